@@ -21,9 +21,11 @@ import com.axelor.event.EventModule;
 import com.axelor.inject.Beans;
 import com.axelor.inject.logger.LoggerModule;
 import com.axelor.meta.MetaScanner;
+import com.axelor.meta.db.repo.MetaJsonReferenceIndex;
 import com.axelor.meta.db.repo.MetaJsonReferenceUpdater;
 import com.axelor.meta.loader.ModuleManager;
 import com.axelor.meta.loader.ViewObserver;
+import com.axelor.meta.service.MaterializedDataSets;
 import com.axelor.report.ReportEngineProvider;
 import com.google.inject.AbstractModule;
 import java.util.List;
@@ -54,6 +56,10 @@ public class AppModule extends AbstractModule {
 
     // Observe updates to fix m2o names in json values
     bind(MetaJsonReferenceUpdater.class);
+    bind(MetaJsonReferenceIndex.class);
+
+    // Observe changes to maintain materialized datasets
+    bind(MaterializedDataSets.class);
 
     // Logger injection support
     install(new LoggerModule());
@@ -45,6 +45,28 @@ public interface AvailableAppSettings {
   String VIEW_ADVSEARCH_EXPORT_FULL = "view.adv-search.export.full";
   String VIEW_ADVSEARCH_SHARE = "view.adv-search.share";
   String VIEW_GRID_SELECTION = "view.grid.selection";
+  String VIEW_RUNTIME_VALIDATION = "view.runtime-validation";
+  String VIEW_INDEX_CHECK_INTERVAL = "view.index.check-interval";
+
+  String MENU_TAGS_CACHE_TTL = "menu.tags.cache-ttl";
+  String MENU_TAGS_THREADS = "menu.tags.threads";
+  String MENU_TAGS_TIMEOUT = "menu.tags.timeout";
+
+  String SEARCH_VIEW_THREADS = "search.view.threads";
+  String SEARCH_VIEW_TIMEOUT = "search.view.timeout";
+
+  String ACTION_TRACE_SAMPLE_RATE = "action.trace.sample-rate";
+  String ACTION_TRACE_THRESHOLD = "action.trace.threshold";
+
+  String ACTION_PARALLEL_THREADS = "action.parallel.threads";
+
+  String ACTION_CACHE_SIZE = "action.cache.size";
+  String ACTION_CACHE_PRELOAD = "action.cache.preload";
+  String ACTION_CACHE_TTL = "action.cache.ttl";
+
+  String ACTION_WS_THREADS = "action.ws.threads";
+  String ACTION_WS_CIRCUIT_FAILURES = "action.ws.circuit.failures";
+  String ACTION_WS_CIRCUIT_OPEN_TIMEOUT = "action.ws.circuit.open-timeout";
 
   String AXELOR_SCRIPT_CACHE_SIZE = "axelor.ScriptCacheSize";
   String AXELOR_SCRIPT_CACHE_EXPIRETIME = "axelor.ScriptCacheExpireTime";
@@ -77,6 +99,11 @@ public interface AvailableAppSettings {
   String DATA_EXPORT_LOCALE = "data.export.locale";
   String DATA_EXPORT_SEPARTOR = "data.export.separator";
 
+  String DATA_MASS_UPDATE_CHUNK_SIZE = "data.mass-update.chunk-size";
+  String DATA_MASS_UPDATE_THROTTLE = "data.mass-update.throttle";
+
+  String DATA_JSON_REFERENCES_INDEX = "data.json-references.index";
+
   String CORS_ALLOW_ORIGIN = "cors.allow.origin";
   String CORS_ALLOW_CREDENTIALS = "cors.allow.credentials";
   String CORS_ALLOW_METHODS = "cors.allow.methods";
@@ -19,6 +19,8 @@ package com.axelor.auth;
 
 import com.axelor.auth.db.AuditableModel;
 import com.axelor.auth.db.Group;
+import com.axelor.auth.db.Permission;
+import com.axelor.auth.db.Role;
 import com.axelor.auth.db.User;
 import com.axelor.db.EntityHelper;
 import com.axelor.db.JPA;
@@ -26,9 +28,29 @@ import com.axelor.db.JpaSequence;
 import com.axelor.db.Model;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
+import com.axelor.inject.Beans;
+import com.axelor.meta.ActionTracer;
+import com.axelor.meta.MetaStore;
+import com.axelor.meta.db.MetaAction;
+import com.axelor.meta.db.MetaField;
+import com.axelor.meta.db.MetaHelp;
+import com.axelor.meta.db.MetaJsonField;
+import com.axelor.meta.db.MetaJsonModel;
+import com.axelor.meta.db.MetaModel;
+import com.axelor.meta.db.MetaPermission;
+import com.axelor.meta.db.MetaPermissionRule;
+import com.axelor.meta.db.MetaSelect;
+import com.axelor.meta.db.MetaSelectItem;
 import com.axelor.meta.db.MetaSequence;
+import com.axelor.meta.db.MetaTranslation;
+import com.axelor.meta.db.MetaView;
+import com.axelor.meta.db.MetaViewCustom;
+import com.axelor.meta.loader.ViewIndex;
+import com.axelor.meta.service.MaterializedDataSets;
 import java.io.Serializable;
 import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import javax.persistence.PersistenceException;
 import org.hibernate.EmptyInterceptor;
 import org.hibernate.Transaction;
@@ -39,6 +61,13 @@ public class AuditInterceptor extends EmptyInterceptor {
 
   private final ThreadLocal<User> currentUser = new ThreadLocal<User>();
   private final ThreadLocal<AuditTracker> tracker = new ThreadLocal<>();
+  private final ThreadLocal<Set<Runnable>> invalidations = new ThreadLocal<>();
+
+  private static final Runnable INVALIDATE_VIEWS = ViewIndex::invalidate;
+  private static final Runnable INVALIDATE_FIELDS = MetaStore::invalidateFields;
+  private static final Runnable INVALIDATE_PERMISSIONS = MetaStore::invalidatePermissions;
+  private static final Runnable INVALIDATE_DATASETS =
+      () -> Beans.get(MaterializedDataSets.class).invalidate();
 
   private static final String UPDATED_BY = "updatedBy";
   private static final String UPDATED_ON = "updatedOn";
@@ -49,6 +78,12 @@ public class AuditInterceptor extends EmptyInterceptor {
   private static final String ADMIN_GROUP = "admins";
   private static final String ADMIN_CHECK_FIELD = "code";
 
+  @Override
+  public String onPrepareStatement(String sql) {
+    ActionTracer.onStatement();
+    return super.onPrepareStatement(sql);
+  }
+
   @Override
   public void afterTransactionBegin(Transaction tx) {
     currentUser.set(AuthUtils.getUser());
@@ -60,6 +95,60 @@ public class AuditInterceptor extends EmptyInterceptor {
     tracker.get().clear();
     tracker.remove();
     currentUser.remove();
+    // caches may have been rebuilt by other threads before commit
+    final Set<Runnable> pending = invalidations.get();
+    if (pending != null) {
+      invalidations.remove();
+      pending.forEach(Runnable::run);
+    }
+  }
+
+  private void invalidate(Runnable invalidation) {
+    Set<Runnable> pending = invalidations.get();
+    if (pending == null) {
+      pending = new LinkedHashSet<>();
+      invalidations.set(pending);
+    }
+    pending.add(invalidation);
+    invalidation.run();
+  }
+
+  private void invalidateAction(String name) {
+    if (name != null) {
+      invalidate(() -> MetaStore.invalidate(name));
+    }
+  }
+
+  private void checkCaches(Object entity) {
+    if (entity instanceof MetaAction) {
+      invalidateAction(((MetaAction) entity).getName());
+    }
+    if (entity instanceof MetaView
+        || entity instanceof MetaViewCustom
+        || entity instanceof MetaModel) {
+      invalidate(INVALIDATE_VIEWS);
+    }
+    if (entity instanceof MetaView) {
+      invalidate(INVALIDATE_DATASETS);
+    }
+    if (entity instanceof MetaModel
+        || entity instanceof MetaField
+        || entity instanceof MetaSelect
+        || entity instanceof MetaSelectItem
+        || entity instanceof MetaJsonField
+        || entity instanceof MetaJsonModel
+        || entity instanceof MetaTranslation
+        || entity instanceof MetaHelp) {
+      invalidate(INVALIDATE_FIELDS);
+    }
+    if (entity instanceof User
+        || entity instanceof Group
+        || entity instanceof Role
+        || entity instanceof Permission
+        || entity instanceof MetaPermission
+        || entity instanceof MetaPermissionRule) {
+      invalidate(INVALIDATE_PERMISSIONS);
+    }
   }
 
   @Override
@@ -148,6 +237,15 @@ public class AuditInterceptor extends EmptyInterceptor {
       String[] propertyNames,
       Type[] types) {
 
+    checkCaches(entity);
+    if (entity instanceof MetaAction) {
+      // the action may have been renamed
+      for (int i = 0; i < propertyNames.length; i++) {
+        if ("name".equals(propertyNames[i]) && previousState != null) {
+          invalidateAction((String) previousState[i]);
+        }
+      }
+    }
     if (!(entity instanceof AuditableModel)) {
       return false;
     }
@@ -182,6 +280,7 @@ public class AuditInterceptor extends EmptyInterceptor {
   public boolean onSave(
       Object entity, Serializable id, Object[] state, String[] propertyNames, Type[] types) {
 
+    checkCaches(entity);
     boolean changed = updateSequence(entity, propertyNames, state);
     if (!(entity instanceof AuditableModel)) {
       return changed;
@@ -217,6 +316,7 @@ public class AuditInterceptor extends EmptyInterceptor {
       throw new PersistenceException(
           String.format("You can't delete: %s#%s", entity.getClass().getName(), id));
     }
+    checkCaches(entity);
     if (tracker.get() != null && entity instanceof Model) {
       tracker.get().delete((Model) entity);
     }
@@ -23,6 +23,7 @@ import com.axelor.auth.db.AuditableModel;
 import com.axelor.auth.db.User;
 import com.axelor.common.Inflector;
 import com.axelor.common.StringUtils;
+import com.axelor.db.EntityHelper;
 import com.axelor.db.JPA;
 import com.axelor.db.Model;
 import com.axelor.db.annotations.Track;
@@ -384,9 +385,14 @@ final class AuditTracker {
     final MetaFiles files = Beans.get(MetaFiles.class);
     // prevent concurrent delete
     DELETED.remove();
+    final Map<Class<? extends Model>, List<Long>> ids = new HashMap<>();
     for (Model entity : deleted) {
-      files.deleteAttachments(entity);
+      if (entity.getId() != null) {
+        ids.computeIfAbsent(EntityHelper.getEntityClass(entity), k -> new ArrayList<>())
+            .add(entity.getId());
+      }
     }
+    ids.forEach(files::deleteAttachments);
   }
 
   private void fireBeforeCompleteEvent() {
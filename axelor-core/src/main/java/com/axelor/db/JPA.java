@@ -34,11 +34,15 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -47,6 +51,8 @@ import javax.persistence.EntityTransaction;
 import javax.persistence.OneToMany;
 import javax.persistence.OptimisticLockException;
 import javax.persistence.PersistenceException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.StaleObjectStateException;
@@ -65,6 +71,10 @@ public final class JPA {
   private Provider<EntityManager> emp;
   private static JPA INSTANCE = null;
 
+  private static final ThreadLocal<Boolean> FLUSH_DEFERRED = new ThreadLocal<>();
+
+  private static final int PRELOAD_CHUNK_SIZE = 1000;
+
   @Inject
   private JPA(Provider<EntityManager> emp) {
     this.emp = emp;
@@ -111,7 +121,8 @@ public final class JPA {
   }
 
   private static boolean isAutoFlushEnabled() {
-    return !Objects.equal(
+    return FLUSH_DEFERRED.get() != Boolean.TRUE
+        && !Objects.equal(
         "false", em().getEntityManagerFactory().getProperties().get("JPA.auto_flush"));
   }
 
@@ -275,6 +286,124 @@ public final class JPA {
     }
   }
 
+  /**
+   * Run the given task without flushing the persistence context after each {@link
+   * #persist(Model)} or {@link #merge(Model)}.
+   *
+   * <p>The persistence context is flushed once the task is completed, so that the statements can
+   * be sent with jdbc batching (see <code>hibernate.jdbc.batch_size</code>).
+   *
+   * @param task the task to run
+   * @return the task result
+   */
+  public static <T> T runWithDeferredFlush(Supplier<T> task) {
+    final Boolean last = FLUSH_DEFERRED.get();
+    FLUSH_DEFERRED.set(Boolean.TRUE);
+    final T result;
+    try {
+      result = task.get();
+    } finally {
+      FLUSH_DEFERRED.set(last);
+    }
+    if (isAutoFlushEnabled()) {
+      em().flush();
+    }
+    return result;
+  }
+
+  /**
+   * Load the records referenced by the given values into the persistence context, with one query
+   * per model class.
+   *
+   * <p>This is an optimization for {@link #edit(Class, Map)} when editing many records, so that the
+   * records and their references are not fetched one by one.
+   *
+   * @param klass the model class of the values
+   * @param values the key value maps, as given to {@link #edit(Class, Map)}
+   */
+  @SuppressWarnings("unchecked")
+  public static void preload(Class<? extends Model> klass, Collection<?> values) {
+    final Multimap<Class<?>, Long> ids = HashMultimap.create();
+    final Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (Object value : values) {
+      collectIds(klass, value, ids, visited);
+    }
+    for (Class<?> target : ids.keySet()) {
+      final List<Long> all = new ArrayList<>(ids.get(target));
+      for (List<Long> chunk : Lists.partition(all, PRELOAD_CHUNK_SIZE)) {
+        em().createQuery("SELECT self FROM " + target.getName() + " self WHERE self.id IN :ids")
+            .setParameter("ids", chunk)
+            .getResultList();
+      }
+    }
+  }
+
+  private static Long toId(Object value) {
+    try {
+      final long id = Long.parseLong(value.toString());
+      return id > 0 ? id : null;
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  @SuppressWarnings("all")
+  private static void collectIds(
+      Class<?> klass, Object value, Multimap<Class<?>, Long> ids, Set<Object> visited) {
+    if (!(value instanceof Map) || !visited.add(value)) {
+      return;
+    }
+    final Map<String, Object> values = (Map) value;
+    final Long id = values.get("id") == null ? null : toId(values.get("id"));
+    if (id != null) {
+      ids.put(klass, id);
+    }
+
+    final Mapper mapper = Mapper.of(klass);
+    for (Map.Entry<String, Object> entry : values.entrySet()) {
+      final Property property = mapper.getProperty(entry.getKey());
+      if (property == null || property.getTarget() == null || entry.getValue() == null) {
+        continue;
+      }
+      final Class<?> target = property.getTarget();
+      if (entry.getValue() instanceof Collection) {
+        for (Object item : (Collection) entry.getValue()) {
+          if (item instanceof Number) {
+            final Long itemId = toId(item);
+            if (itemId != null) {
+              ids.put(target, itemId);
+            }
+          } else {
+            collectIds(target, item, ids, visited);
+          }
+        }
+      } else {
+        collectIds(target, entry.getValue(), ids, visited);
+      }
+    }
+  }
+
+  /**
+   * Create a lookup matching the given items by id or, for transient items, with {@link
+   * Object#equals(Object)} as {@link Collection#contains(Object)} does.
+   */
+  private static Predicate<Object> lookup(Collection<?> items) {
+    final Set<Long> ids = new HashSet<>();
+    final List<Object> others = new ArrayList<>();
+    for (Object item : items) {
+      final Long id = item instanceof Model ? ((Model) item).getId() : null;
+      if (id == null) {
+        others.add(item);
+      } else {
+        ids.add(id);
+      }
+    }
+    return item -> {
+      final Long id = item instanceof Model ? ((Model) item).getId() : null;
+      return id == null ? others.contains(item) : ids.contains(id);
+    };
+  }
+
   /**
    * Edit an instance of the given model class using the given values.<br>
    * <br>
@@ -380,8 +509,9 @@ public final class JPA {
         if (old instanceof Collection) {
           boolean changed = ((Collection) old).size() != items.size();
           if (!changed) {
+            final Predicate<Object> inOld = lookup((Collection) old);
             for (Object item : items) {
-              if (!((Collection) old).contains(item)) {
+              if (!inOld.test(item)) {
                 changed = true;
                 break;
               }
@@ -389,8 +519,9 @@ public final class JPA {
           }
           if (changed) {
             if (p.isOrphan()) {
+              final Predicate<Object> inItems = lookup(items);
               for (Object item : (Collection) old) {
-                if (!items.contains(item)) {
+                if (!inItems.test(item)) {
                   p.setAssociation(item, null);
                 }
               }
@@ -618,6 +749,52 @@ public final class JPA {
     }
   }
 
+  /**
+   * Run the given <code>task</code> once the current transaction is successfully committed.
+   *
+   * <p>If there is no active transaction, the task is run immediately. The task is not run if the
+   * transaction is rolled back.
+   *
+   * @param task the task to run.
+   */
+  public static void runAfterCommit(Runnable task) {
+    runAfterCommit(task, null);
+  }
+
+  /**
+   * Run the given <code>task</code> once the current transaction is successfully committed, or the
+   * given <code>rollback</code> task if the transaction is rolled back.
+   *
+   * <p>If there is no active transaction, the task is run immediately.
+   *
+   * @param task the task to run on commit.
+   * @param rollback the task to run on rollback, can be null.
+   */
+  public static void runAfterCommit(Runnable task, Runnable rollback) {
+    final EntityTransaction txn = em().getTransaction();
+    if (!txn.isActive()) {
+      task.run();
+      return;
+    }
+    final Session session = (Session) em().getDelegate();
+    session
+        .getTransaction()
+        .registerSynchronization(
+            new Synchronization() {
+              @Override
+              public void beforeCompletion() {}
+
+              @Override
+              public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                  task.run();
+                } else if (rollback != null) {
+                  rollback.run();
+                }
+              }
+            });
+  }
+
   /**
    * Perform JDBC related work using the {@link Connection} managed by the current {@link
    * EntityManager}.
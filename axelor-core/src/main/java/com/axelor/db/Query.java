@@ -44,6 +44,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.IntConsumer;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -62,6 +63,8 @@ import org.hibernate.jpa.QueryHints;
  */
 public class Query<T extends Model> {
 
+  private static final int REMOVE_CHUNK_SIZE = 500;
+
   private Class<T> beanClass;
 
   private String filter;
@@ -452,50 +455,17 @@ public class Query<T extends Model> {
       return 0;
     }
 
-    final Map<String, Object> params = new HashMap<>();
-    final Map<String, Object> namedParams = new HashMap<>();
-    final List<String> where = new ArrayList<>();
-
-    if (this.namedParams != null) {
-      namedParams.putAll(this.namedParams);
-    }
-
-    for (final Entry<String, Object> entry : values.entrySet()) {
-      String name = entry.getKey().replaceFirst("^self\\.", "");
-      Object value = entry.getValue();
-      params.put(name, value);
-      if (value == null) {
-        where.add("self." + name + " IS NOT NULL");
-      } else {
-        where.add("(self." + name + " IS NULL OR " + "self." + name + " != :" + name + ")");
-      }
-    }
-
-    if (updatedBy != null && AuditableModel.class.isAssignableFrom(beanClass)) {
-      params.put("updatedBy", updatedBy);
-      params.put("updatedOn", LocalDateTime.now());
-    }
-
-    namedParams.putAll(params);
-
-    boolean versioned = updatedBy != null;
-    boolean notMySQL = !DBHelper.isMySQL();
-
-    String whereClause = String.join(" OR ", where);
-    String selectQuery = updateQuery().replaceFirst("SELECT self", "SELECT self.id");
-
-    if (selectQuery.contains(" WHERE ")) {
-      selectQuery = selectQuery.replaceFirst(" WHERE ", " WHERE (" + whereClause + ") AND (") + ")";
-    } else {
-      selectQuery = selectQuery + " WHERE " + whereClause;
-    }
-
-    selectQuery = selectQuery.replaceAll("\\bself", "that");
+    final MassUpdate update = new MassUpdate(values, updatedBy);
+    final boolean notMySQL = !DBHelper.isMySQL();
 
     if (notMySQL) {
       return QueryBinder.of(
-              em().createQuery(updateQuery(params, versioned, "self.id IN (" + selectQuery + ")")))
-          .bind(namedParams, this.params)
+              em().createQuery(
+                  updateQuery(
+                      update.params,
+                      update.versioned,
+                      "self.id IN (" + update.selectQuery + ")")))
+          .bind(update.namedParams, this.params)
           .getQuery()
           .executeUpdate();
     }
@@ -503,16 +473,16 @@ public class Query<T extends Model> {
     // MySQL doesn't allow sub select on same table with UPDATE also, JPQL doesn't
     // support JOIN with UPDATE query so we have to update in batch.
 
-    String updateQuery = updateQuery(params, versioned, "self.id IN (:ids)");
+    String updateQuery = updateQuery(update.params, update.versioned, "self.id IN (:ids)");
 
     int count = 0;
     int limit = 1000;
 
-    TypedQuery<Long> sq = em().createQuery(selectQuery, Long.class);
+    TypedQuery<Long> sq = em().createQuery(update.selectQuery, Long.class);
     javax.persistence.Query uq = em().createQuery(updateQuery);
 
-    QueryBinder.of(sq).bind(namedParams, this.params);
-    QueryBinder.of(uq).bind(namedParams, this.params);
+    QueryBinder.of(sq).bind(update.namedParams, this.params);
+    QueryBinder.of(uq).bind(update.namedParams, this.params);
 
     sq.setFirstResult(0);
     sq.setMaxResults(limit);
@@ -527,6 +497,140 @@ public class Query<T extends Model> {
     return count;
   }
 
+  /**
+   * Perform mass update on matched records with the given values, in chunks of records.
+   *
+   * <p>The matched records are walked by ascending ids, <code>chunkSize</code> records at a time.
+   * When called outside of a transaction, each chunk is updated and committed in its own
+   * transaction, so that row locks are not held during the whole update.
+   *
+   * @param values the key value map
+   * @param updatedBy the user to set "updatedBy" field
+   * @param chunkSize the number of records to update per chunk
+   * @param throttle the time in milliseconds to wait between two chunks
+   * @param progress called with the total number of records updated after each chunk, can be
+   *     null
+   * @return total number of records updated
+   */
+  public int update(
+      Map<String, Object> values,
+      User updatedBy,
+      int chunkSize,
+      long throttle,
+      IntConsumer progress) {
+    if (ObjectUtils.isEmpty(values)) {
+      return 0;
+    }
+
+    final MassUpdate update = new MassUpdate(values, updatedBy);
+    final String selectQuery =
+        update
+                .selectQuery
+                .replaceFirst("SELECT that.id", "SELECT DISTINCT that.id")
+                .replaceFirst(" WHERE ", " WHERE that.id > :_lastId AND (")
+            + ") ORDER BY that.id";
+    final String updateQuery = updateQuery(update.params, update.versioned, "self.id IN (:ids)");
+
+    int count = 0;
+    long last = 0;
+
+    while (true) {
+      final long from = last;
+      final List<Long> ids = new ArrayList<>();
+      final int[] updated = {0};
+
+      JPA.runInTransaction(
+          () -> {
+            final TypedQuery<Long> sq = em().createQuery(selectQuery, Long.class);
+            QueryBinder.of(sq).bind(update.namedParams, this.params);
+            sq.setParameter("_lastId", from);
+            sq.setMaxResults(chunkSize);
+            ids.addAll(sq.getResultList());
+            if (ids.isEmpty()) {
+              return;
+            }
+            final javax.persistence.Query uq = em().createQuery(updateQuery);
+            QueryBinder.of(uq).bind(update.namedParams, this.params);
+            uq.setParameter("ids", ids);
+            updated[0] = uq.executeUpdate();
+          });
+
+      if (ids.isEmpty()) {
+        break;
+      }
+
+      count += updated[0];
+      last = ids.get(ids.size() - 1);
+
+      if (progress != null) {
+        progress.accept(count);
+      }
+
+      if (ids.size() < chunkSize) {
+        break;
+      }
+
+      if (throttle > 0) {
+        try {
+          Thread.sleep(throttle);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    }
+
+    return count;
+  }
+
+  /** The query parts shared by the mass update methods. */
+  private class MassUpdate {
+
+    private final Map<String, Object> params = new HashMap<>();
+    private final Map<String, Object> namedParams = new HashMap<>();
+    private final boolean versioned;
+    private final String selectQuery;
+
+    private MassUpdate(Map<String, Object> values, User updatedBy) {
+      final List<String> where = new ArrayList<>();
+
+      if (Query.this.namedParams != null) {
+        namedParams.putAll(Query.this.namedParams);
+      }
+
+      for (final Entry<String, Object> entry : values.entrySet()) {
+        String name = entry.getKey().replaceFirst("^self\\.", "");
+        Object value = entry.getValue();
+        params.put(name, value);
+        if (value == null) {
+          where.add("self." + name + " IS NOT NULL");
+        } else {
+          where.add("(self." + name + " IS NULL OR " + "self." + name + " != :" + name + ")");
+        }
+      }
+
+      if (updatedBy != null && AuditableModel.class.isAssignableFrom(beanClass)) {
+        params.put("updatedBy", updatedBy);
+        params.put("updatedOn", LocalDateTime.now());
+      }
+
+      namedParams.putAll(params);
+
+      versioned = updatedBy != null;
+
+      String whereClause = String.join(" OR ", where);
+      String query = updateQuery().replaceFirst("SELECT self", "SELECT self.id");
+
+      if (query.contains(" WHERE ")) {
+        query = query.replaceFirst(" WHERE ", " WHERE (" + whereClause + ") AND (") + ")";
+      } else {
+        query = query + " WHERE " + whereClause;
+      }
+
+      selectQuery = query.replaceAll("\\bself", "that");
+    }
+  }
+
   /**
    * This is similar to {@link #update(Map, User)} but updates only single field.
    *
@@ -588,13 +692,51 @@ public class Query<T extends Model> {
    * Remove all the matched records. <br>
    * <br>
    * In contrast to the {@link #delete()} method, it performs {@link EntityManager#remove(Object)}
-   * operation by fetching objects in pages (100 at a time).
+   * operation by fetching objects in chunks (500 at a time) walked by ascending ids. Each chunk is
+   * flushed and the persistence context is cleared afterwards, so that the memory used doesn't
+   * grow with the number of records.
    *
    * @see #delete()
    * @return total number of records removed.
    */
   public long remove() {
-    return fetchStream().peek(JPA::remove).count();
+    final String query = updateQuery().replaceFirst("SELECT self", "SELECT DISTINCT self.id");
+    final String selectQuery =
+        (query.contains(" WHERE ")
+                ? query.replaceFirst(" WHERE ", " WHERE self.id > :_lastId AND (") + ")"
+                : query + " WHERE self.id > :_lastId")
+            + " ORDER BY self.id";
+    final String fetchQuery =
+        "SELECT self FROM " + beanClass.getSimpleName() + " self WHERE self.id IN (:ids)";
+
+    long count = 0;
+    long last = 0;
+
+    while (true) {
+      final TypedQuery<Long> sq = em().createQuery(selectQuery, Long.class);
+      this.bind(sq);
+      sq.setParameter("_lastId", last);
+      sq.setMaxResults(REMOVE_CHUNK_SIZE);
+
+      final List<Long> ids = sq.getResultList();
+      if (ids.isEmpty()) {
+        break;
+      }
+
+      final List<T> items =
+          em().createQuery(fetchQuery, beanClass).setParameter("ids", ids).getResultList();
+      items.forEach(JPA::remove);
+      em().flush();
+      em().clear();
+
+      count += items.size();
+      last = ids.get(ids.size() - 1);
+
+      if (ids.size() < REMOVE_CHUNK_SIZE) {
+        break;
+      }
+    }
+    return count;
   }
 
   protected String selectQuery(boolean update) {
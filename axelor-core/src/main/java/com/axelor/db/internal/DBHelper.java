@@ -221,6 +221,11 @@ public class DBHelper {
     return jdbcDriver != null && jdbcDriver.contains("Oracle");
   }
 
+  /** Whether using PostgreSQL database. */
+  public static boolean isPostgreSQL() {
+    return jdbcDriver != null && jdbcDriver.contains("postgresql");
+  }
+
   /** Whether using MySQL database. */
   public static boolean isMySQL() {
     return jdbcDriver != null && jdbcDriver.contains("mysql");
@@ -0,0 +1,116 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.db.tenants;
+
+import com.axelor.auth.AuthUtils;
+import com.axelor.inject.Beans;
+import com.google.inject.persist.UnitOfWork;
+import java.util.concurrent.Callable;
+import org.apache.shiro.subject.Subject;
+
+/**
+ * Captures the tenant and the authenticated subject of the calling thread so that tasks can be run
+ * by worker threads on behalf of the same user.
+ *
+ * <p>The wrapped tasks get their own unit of work (and so their own {@link
+ * javax.persistence.EntityManager} and connection), which is closed once the task is completed. The
+ * wrapped tasks should therefore only be run by worker threads and never by the calling thread.
+ */
+public final class TenantAware {
+
+  private final String tenant;
+  private final String host;
+  private final Subject subject;
+
+  private TenantAware(String tenant, String host, Subject subject) {
+    this.tenant = tenant;
+    this.host = host;
+    this.subject = subject;
+  }
+
+  /**
+   * Capture the context of the current thread.
+   *
+   * @return captured context
+   */
+  public static TenantAware capture() {
+    return new TenantAware(
+        TenantResolver.CURRENT_TENANT.get(),
+        TenantResolver.CURRENT_HOST.get(),
+        AuthUtils.getSubject());
+  }
+
+  /**
+   * Get the tenant identifier of the captured context.
+   *
+   * @return tenant identifier, can be null
+   */
+  public String getTenant() {
+    return tenant;
+  }
+
+  /**
+   * Wrap the given task to run with the captured context.
+   *
+   * @param task the task to wrap
+   * @return wrapped task
+   */
+  public <T> Callable<T> wrap(Callable<T> task) {
+    final Callable<T> bound = subject == null ? task : subject.associateWith(task);
+    return () -> {
+      final String lastTenant = TenantResolver.CURRENT_TENANT.get();
+      final String lastHost = TenantResolver.CURRENT_HOST.get();
+      TenantResolver.CURRENT_TENANT.set(tenant);
+      TenantResolver.CURRENT_HOST.set(host);
+      try {
+        return bound.call();
+      } finally {
+        try {
+          Beans.get(UnitOfWork.class).end();
+        } finally {
+          TenantResolver.CURRENT_TENANT.set(lastTenant);
+          TenantResolver.CURRENT_HOST.set(lastHost);
+        }
+      }
+    };
+  }
+
+  /**
+   * Wrap the given task to run with the captured context.
+   *
+   * @param task the task to wrap
+   * @return wrapped task
+   */
+  public Runnable wrap(Runnable task) {
+    final Callable<Object> callable =
+        wrap(
+            () -> {
+              task.run();
+              return null;
+            });
+    return () -> {
+      try {
+        callable.call();
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    };
+  }
+}
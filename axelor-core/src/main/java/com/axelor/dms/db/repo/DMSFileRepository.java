@@ -54,6 +54,7 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -95,6 +96,20 @@ public class DMSFileRepository extends JpaRepository<DMSFile> {
         .fetchOne();
   }
 
+  public List<DMSFile> findHomesByRelated(Class<? extends Model> model, Collection<Long> ids) {
+    return all()
+        .filter(
+            ""
+                + "COALESCE(self.isDirectory, FALSE) = TRUE "
+                + "AND self.relatedId IN (:ids) "
+                + "AND self.relatedModel = :model "
+                + "AND self.parent.relatedModel = :model "
+                + "AND COALESCE(self.parent.relatedId, 0) = 0")
+        .bind("ids", ids)
+        .bind("model", model.getName())
+        .fetch();
+  }
+
   @SuppressWarnings("all")
   private Model findRelated(DMSFile file) {
     if (file == null || file.getRelatedId() == null || file.getRelatedModel() == null) {
@@ -25,5 +25,14 @@ public interface Event<T> {
 
   void fire(T event);
 
+  /**
+   * Check whether any observer would be notified of events fired with this instance.
+   *
+   * @return true if there are matching observers
+   */
+  default boolean isObserved() {
+    return true;
+  }
+
   Event<T> select(Annotation... qualifiers);
 }
@@ -89,14 +89,20 @@ class EventBus {
         .collect(Collectors.toList());
   }
 
-  public void fire(Object event, Type eventType, Set<Annotation> qualifiers) {
-    final Class<?> eventClass = event.getClass();
+  private List<Observer> observers(
+      Class<?> eventClass, Type eventType, Set<Annotation> qualifiers) {
     final Map<Entry<Type, Set<Annotation>>, List<Observer>> observersByTypeAndQualifiers =
         observersCache.getUnchecked(eventClass);
-    final List<Observer> foundObservers =
-        observersByTypeAndQualifiers.computeIfAbsent(
-            new SimpleImmutableEntry<>(eventType, qualifiers),
-            k -> find(eventClass, k.getKey(), k.getValue()));
-    foundObservers.forEach(o -> o.invoke(event));
+    return observersByTypeAndQualifiers.computeIfAbsent(
+        new SimpleImmutableEntry<>(eventType, qualifiers),
+        k -> find(eventClass, k.getKey(), k.getValue()));
+  }
+
+  public void fire(Object event, Type eventType, Set<Annotation> qualifiers) {
+    observers(event.getClass(), eventType, qualifiers).forEach(o -> o.invoke(event));
+  }
+
+  public boolean isObserved(Class<?> eventClass, Type eventType, Set<Annotation> qualifiers) {
+    return !observers(eventClass, eventType, qualifiers).isEmpty();
   }
 }
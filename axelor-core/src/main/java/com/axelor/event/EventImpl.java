@@ -17,6 +17,7 @@
  */
 package com.axelor.event;
 
+import com.google.common.reflect.TypeToken;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.Arrays;
@@ -59,6 +60,14 @@ class EventImpl<T> implements Event<T> {
     eventBus.fire(event, eventType, qualifiers);
   }
 
+  @Override
+  public boolean isObserved() {
+    if (eventType == null) {
+      return true;
+    }
+    return eventBus.isObserved(TypeToken.of(eventType).getRawType(), eventType, qualifiers);
+  }
+
   @Override
   public Event<T> select(Annotation... qualifiers) {
     if (qualifiers == null || qualifiers.length == 0) {
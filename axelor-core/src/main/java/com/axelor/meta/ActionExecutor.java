@@ -17,11 +17,17 @@
  */
 package com.axelor.meta;
 
+import com.axelor.app.internal.AppFilter;
+import com.axelor.db.tenants.TenantResolver;
 import com.axelor.event.Event;
+import com.axelor.event.NamedLiteral;
 import com.axelor.events.PostAction;
 import com.axelor.events.PreAction;
+import com.axelor.meta.schema.actions.Action;
+import com.axelor.meta.schema.actions.ActionView;
 import com.axelor.rpc.ActionRequest;
 import com.axelor.rpc.ActionResponse;
+import java.util.Map;
 import javax.inject.Inject;
 
 public class ActionExecutor {
@@ -40,7 +46,59 @@ public class ActionExecutor {
   }
 
   public ActionResponse execute(ActionRequest request) {
-    return newActionHandler(request).execute();
+    final String variant = findPureVariant(request);
+    if (variant == null) {
+      return newActionHandler(request).execute();
+    }
+
+    final String name = request.getAction().trim();
+    final ActionResponse cached = MetaStore.getActionResponse(name, variant);
+    if (cached != null) {
+      return cached;
+    }
+
+    final ActionResponse response = newActionHandler(request).execute();
+    MetaStore.putActionResponse(name, variant, response);
+    return response;
+  }
+
+  /**
+   * Find the variant of the given request if it calls a single pure action.
+   *
+   * <p>The response of a pure action only depends on the tenant, on the locale, on the model of
+   * the request context and on whether the context has a record id. Requests with a record id,
+   * with observed action events or asking for a trace are always executed.
+   *
+   * @return the variant to cache the response with, or null if not cacheable
+   */
+  private String findPureVariant(ActionRequest request) {
+    final String name = request.getAction();
+    if (name == null || name.contains(",") || ActionTracer.isRequested(request)) {
+      return null;
+    }
+
+    final Action action = MetaStore.getAction(name.trim());
+    if (!(action instanceof ActionView) || !((ActionView) action).isPure()) {
+      return null;
+    }
+
+    final Map<String, Object> context = request.getRawContext();
+    if (context.get("id") != null) {
+      return null;
+    }
+
+    final NamedLiteral named = NamedLiteral.of(action.getName());
+    if (preActionEvent.select(named).isObserved() || postActionEvent.select(named).isObserved()) {
+      return null;
+    }
+
+    return TenantResolver.currentTenantIdentifier()
+        + ":"
+        + AppFilter.getLocale()
+        + ":"
+        + request.getModel()
+        + ":"
+        + context.get("_model");
   }
 
   Event<PreAction> getPreActionEvent() {
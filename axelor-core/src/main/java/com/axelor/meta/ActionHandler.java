@@ -36,11 +36,13 @@ import com.axelor.rpc.ContextEntity;
 import com.axelor.rpc.Resource;
 import com.axelor.script.CompositeScriptHelper;
 import com.axelor.script.ScriptHelper;
+import com.axelor.text.Template;
 import com.axelor.text.Templates;
 import com.google.common.base.Function;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.Collections2;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.escape.Escaper;
 import com.google.common.escape.Escapers;
 import com.google.common.io.CharStreams;
@@ -54,6 +56,8 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -85,6 +89,47 @@ public class ActionHandler {
   private final Pattern pattern =
       Pattern.compile("^\\s*(select\\[\\]|select|action|call|eval):\\s*(.*)");
 
+  private static final Pattern STRING_PATTERN = Pattern.compile("'[^']*'|\"[^\"]*\"");
+
+  private static final Pattern REPO_PATTERN = Pattern.compile("__repo__\\(\\s*[\\w.]+\\s*\\)");
+
+  private static final Pattern CALL_PATTERN = Pattern.compile("\\.\\s*(\\w+)\\s*\\(");
+
+  private static final Pattern ROOT_PATTERN =
+      Pattern.compile("(?<![\\w.$])([A-Za-z_$][\\w$]*)(\\s*\\()?");
+
+  private static final Pattern ASSIGN_PATTERN = Pattern.compile("(?<![=!<>])=(?![=~])|\\+\\+|--");
+
+  private static final Set<String> PURE_ROOTS =
+      ImmutableSet.of("__user__", "__date__", "__config__", "__repo__", "true", "false", "null");
+
+  private static final Set<String> PURE_CALLS =
+      ImmutableSet.of(
+          "find",
+          "findByCode",
+          "findByName",
+          "all",
+          "filter",
+          "order",
+          "fetch",
+          "fetchOne",
+          "count",
+          "equals",
+          "contains",
+          "isEmpty",
+          "size",
+          "get");
+
+  private static final Pattern PARAM_PATTERN = Pattern.compile(":(\\w+)");
+
+  private final Map<Object, Object> cache = new HashMap<>();
+
+  private int cacheHits;
+
+  private int cacheMisses;
+
+  private boolean changed;
+
   /** @deprecated Use {@link ActionExecutor#newActionHandler(ActionRequest)} instead. */
   @Deprecated
   public ActionHandler(ActionRequest request) {
@@ -140,7 +185,7 @@ public class ActionHandler {
 
     String expr = expression.trim();
     if (expr.startsWith("#{") && expr.endsWith("}")) {
-      return handleScript(expr);
+      return handleScript(expr, expr);
     }
 
     String kind = null;
@@ -154,7 +199,7 @@ public class ActionHandler {
     }
 
     if ("eval".equals(kind)) {
-      return handleScript(expr);
+      return handleScript("eval:" + expr, expr);
     }
 
     if ("action".equals(kind)) {
@@ -166,16 +211,126 @@ public class ActionHandler {
     }
 
     if ("select".equals(kind)) {
-      return handleSelectOne(expr);
+      final String query = expr;
+      return cached(selectKey(kind, query), () -> handleSelectOne(query));
     }
 
     if ("select[]".equals(kind)) {
-      return handleSelectAll(expr);
+      final String query = expr;
+      return cached(selectKey(kind, query), () -> handleSelectAll(query));
     }
 
     return expr;
   }
 
+  /**
+   * Check whether the given script expression can be cached for the request.
+   *
+   * <p>An expression is considered pure if it only reads the current user, date, configuration or
+   * repositories, calls read-only methods and doesn't assign anything.
+   */
+  private static boolean isPure(String expression) {
+    String text = STRING_PATTERN.matcher(expression).replaceAll("''");
+    text = REPO_PATTERN.matcher(text).replaceAll("__repo__");
+    if (ASSIGN_PATTERN.matcher(text).find()) {
+      return false;
+    }
+    Matcher matcher = CALL_PATTERN.matcher(text);
+    while (matcher.find()) {
+      if (!PURE_CALLS.contains(matcher.group(1))) {
+        return false;
+      }
+    }
+    matcher = ROOT_PATTERN.matcher(text);
+    while (matcher.find()) {
+      if (matcher.group(2) != null || !PURE_ROOTS.contains(matcher.group(1))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get the cache key of the given select query, made of the query and the values of its named
+   * parameters, or null if the query is parameterized with script arguments.
+   */
+  private Object selectKey(String kind, String query) {
+    if (query.trim().startsWith("(")) {
+      return null;
+    }
+    final List<Object> key = new ArrayList<>();
+    key.add(kind);
+    key.add(query);
+    final Matcher matcher = PARAM_PATTERN.matcher(STRING_PATTERN.matcher(query).replaceAll("''"));
+    while (matcher.find()) {
+      key.add(bindings.get(matcher.group(1)));
+    }
+    return key;
+  }
+
+  private Object cached(Object key, Supplier<Object> supplier) {
+    if (key == null) {
+      return supplier.get();
+    }
+    if (cache.containsKey(key)) {
+      cacheHits++;
+      return cache.get(key);
+    }
+    cacheMisses++;
+    final Object value = supplier.get();
+    cache.put(key, value);
+    return value;
+  }
+
+  /**
+   * Clear the results of pure expressions and select queries cached for this request.
+   *
+   * <p>This should be called whenever the context changes or the database may have been updated.
+   */
+  public void invalidate() {
+    cache.clear();
+    changed = true;
+  }
+
+  /**
+   * Check whether this handler can be forked.
+   *
+   * <p>A handler can't be forked once its context has been updated or the database may have been
+   * updated by an action, as the forked handlers wouldn't see these changes.
+   *
+   * @return true if the handler can be forked
+   * @see #fork()
+   */
+  public boolean canFork() {
+    return !changed;
+  }
+
+  /**
+   * Create a new handler for the same request, to evaluate expressions from another thread.
+   *
+   * <p>The forked handler lazily builds its own context from the request values, using the entity
+   * manager of the thread evaluating the expressions.
+   *
+   * @return a new handler
+   */
+  public ActionHandler fork() {
+    final ActionRequest copy = new ActionRequest();
+    copy.setModel(request.getModel());
+    copy.setAction(request.getAction());
+    copy.setData(request.getData());
+    return new ActionHandler(copy, preActionEvent, postActionEvent);
+  }
+
+  /** Get the number of expressions served from the request cache. */
+  public int getCacheHits() {
+    return cacheHits;
+  }
+
+  /** Get the number of cacheable expressions evaluated. */
+  public int getCacheMisses() {
+    return cacheMisses;
+  }
+
   public Object call(String className, String method) {
     ActionResponse response = new ActionResponse();
     try {
@@ -253,7 +408,11 @@ public class ActionHandler {
   }
 
   public String template(Templates engine, Reader template) throws IOException {
-    return engine.fromText(CharStreams.toString(template)).make(bindings).render();
+    return template(engine.fromText(CharStreams.toString(template)));
+  }
+
+  public String template(Template template) {
+    return template.make(bindings).render();
   }
 
   @SuppressWarnings("all")
@@ -321,19 +480,37 @@ public class ActionHandler {
   }
 
   private Object handleSelectOne(String expression) {
-    expression = makeMethodCall("__me__.selectOne", expression);
-    return handleScript(expression);
+    final ActionTracer.Node trace = ActionTracer.enter(expression, "select");
+    try {
+      return handleScript(makeMethodCall("__me__.selectOne", expression));
+    } finally {
+      if (trace != null) {
+        trace.close();
+      }
+    }
   }
 
   private Object handleSelectAll(String expression) {
-    expression = makeMethodCall("__me__.selectAll", expression);
-    return handleScript(expression);
+    final ActionTracer.Node trace = ActionTracer.enter(expression, "select[]");
+    try {
+      return handleScript(makeMethodCall("__me__.selectAll", expression));
+    } finally {
+      if (trace != null) {
+        trace.close();
+      }
+    }
   }
 
   private Object handleScript(String expression) {
     return scriptHelper.eval(expression);
   }
 
+  private Object handleScript(String key, String expression) {
+    return isPure(expression)
+        ? cached(key, () -> handleScript(expression))
+        : handleScript(expression);
+  }
+
   private Object handleAction(String expression) {
 
     Action action = MetaStore.getAction(expression);
@@ -342,7 +519,11 @@ public class ActionHandler {
       return null;
     }
 
-    return action.execute(this);
+    try {
+      return action.execute(this);
+    } finally {
+      invalidate();
+    }
   }
 
   private Object handleCall(String expression) {
@@ -363,7 +544,11 @@ public class ActionHandler {
     action.setCall(call);
     action.setName(expression);
 
-    return action.execute(this);
+    try {
+      return action.execute(this);
+    } finally {
+      invalidate();
+    }
   }
 
   private static final String KEY_VALUES = "values";
@@ -450,14 +635,33 @@ public class ActionHandler {
       action.addAction(item);
     }
 
-    Object data = action.wrap(this);
+    ActionTracer.Node trace = ActionTracer.enter(name, "request");
+    if (trace == null && ActionTracer.isSampled(request)) {
+      trace = ActionTracer.start(name);
+    }
 
-    if (data instanceof ActionResponse) {
-      return (ActionResponse) data;
+    try {
+      Object data = action.wrap(this);
+
+      if (data instanceof ActionResponse) {
+        response = (ActionResponse) data;
+      } else {
+        response.setData(process(data));
+        response.setStatus(ActionResponse.STATUS_SUCCESS);
+      }
+    } finally {
+      if (trace != null) {
+        trace.close();
+      }
+    }
+
+    if (cacheHits > 0 || cacheMisses > 0) {
+      log.debug("action cache of {}: {} hits, {} misses", name, cacheHits, cacheMisses);
     }
 
-    response.setData(process(data));
-    response.setStatus(ActionResponse.STATUS_SUCCESS);
+    if (trace != null && ActionTracer.isRequested(request)) {
+      response.setTrace(trace.toMap());
+    }
 
     return response;
   }
@@ -0,0 +1,160 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta;
+
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
+import com.axelor.db.tenants.TenantResolver;
+import com.axelor.meta.loader.XMLViews;
+import com.axelor.meta.schema.actions.Action;
+import com.axelor.rpc.ActionResponse;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of parsed actions.
+ *
+ * <p>Actions are kept with strong references, by tenant and name, up to <code>
+ * action.cache.size</code> entries, and either loaded on first use or all at once with {@link
+ * #preload()}. Unknown names are not registered, so they can't evict known actions.
+ *
+ * <p>The registry also keeps the responses of pure actions, see {@link
+ * com.axelor.meta.schema.actions.ActionView#isPure()}, by action name and request variant.
+ *
+ * <p>The registry is invalidated by name when an action is saved or deleted, and entirely when
+ * views are reloaded. As actions saved by other nodes of a cluster are not seen by the local
+ * interceptor, entries also expire <code>action.cache.ttl</code> seconds after they were loaded
+ * (300 by default, 0 to never expire).
+ */
+final class ActionRegistry {
+
+  private static final Logger log = LoggerFactory.getLogger(ActionRegistry.class);
+
+  private static final int MAX_SIZE =
+      AppSettings.get().getInt(AvailableAppSettings.ACTION_CACHE_SIZE, 5000);
+
+  private static final int TTL =
+      AppSettings.get().getInt(AvailableAppSettings.ACTION_CACHE_TTL, 300);
+
+  private static final Cache<String, Action> ACTIONS = newCache();
+
+  private static final Cache<String, ActionResponse> RESPONSES = newCache();
+
+  private static final String SEPARATOR = "\u0000";
+
+  private ActionRegistry() {}
+
+  private static <T> Cache<String, T> newCache() {
+    final CacheBuilder<Object, Object> builder =
+        CacheBuilder.newBuilder().maximumSize(MAX_SIZE).recordStats();
+    if (TTL > 0) {
+      builder.expireAfterWrite(TTL, TimeUnit.SECONDS);
+    }
+    return builder.build();
+  }
+
+  private static String key(String name) {
+    return TenantResolver.currentTenantIdentifier() + SEPARATOR + name;
+  }
+
+  /**
+   * Get the action with the given name, loading it if required.
+   *
+   * @param name the action name
+   * @return the action or null if not found
+   */
+  static Action get(String name) {
+    if (name == null) {
+      return null;
+    }
+    final String key = key(name);
+    final Action cached = ACTIONS.getIfPresent(key);
+    if (cached != null) {
+      return cached;
+    }
+    final Action action = XMLViews.findAction(name);
+    if (action != null) {
+      ACTIONS.put(key, action);
+    }
+    return action;
+  }
+
+  /**
+   * Register the given action.
+   *
+   * @param action the action
+   */
+  static void put(Action action) {
+    ACTIONS.put(key(action.getName()), action);
+  }
+
+  /** Load all the actions, up to the maximum size of the registry. */
+  static void preload() {
+    final long start = System.currentTimeMillis();
+    final Map<String, Action> actions = XMLViews.findActions();
+    actions.values().stream().limit(MAX_SIZE).forEach(ActionRegistry::put);
+    log.info(
+        "Actions loaded: {} of {} in {} ms",
+        ACTIONS.size(),
+        actions.size(),
+        System.currentTimeMillis() - start);
+  }
+
+  static ActionResponse getResponse(String name, String variant) {
+    return RESPONSES.getIfPresent(name + SEPARATOR + variant);
+  }
+
+  static void putResponse(String name, String variant, ActionResponse response) {
+    RESPONSES.put(name + SEPARATOR + variant, response);
+  }
+
+  static void invalidateResponses() {
+    RESPONSES.invalidateAll();
+  }
+
+  static void invalidate(String name) {
+    ACTIONS.invalidate(key(name));
+    RESPONSES.asMap().keySet().removeIf(key -> key.startsWith(name + SEPARATOR));
+  }
+
+  static void invalidateAll() {
+    ACTIONS.invalidateAll();
+    RESPONSES.invalidateAll();
+  }
+
+  static long size() {
+    return ACTIONS.size();
+  }
+
+  static CacheStats stats() {
+    return ACTIONS.stats();
+  }
+
+  static long responseSize() {
+    return RESPONSES.size();
+  }
+
+  static CacheStats responseStats() {
+    return RESPONSES.stats();
+  }
+}
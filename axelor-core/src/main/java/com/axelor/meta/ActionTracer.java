@@ -0,0 +1,313 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta;
+
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
+import com.axelor.auth.AuthUtils;
+import com.axelor.auth.db.User;
+import com.axelor.common.StringUtils;
+import com.axelor.rpc.ActionRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.CaseFormat;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records the execution tree of actions.
+ *
+ * <p>A trace is started for the sampled action requests (see <code>action.trace.sample-rate</code>)
+ * or when the request asks for it with the <code>_trace</code> flag (only allowed in dev mode or
+ * for administrators). Each executed action records its name, type, wall time and the number of
+ * SQL statements prepared while it was running.
+ *
+ * <p>Completed traces are logged as a single json line (if slower than <code>
+ * action.trace.threshold</code> milliseconds) and aggregated per action in {@link #getMetrics()}.
+ * The <code>select</code> expressions are only part of the traces, and at most {@link
+ * #MAX_METRICS} actions are aggregated. Requested traces are also returned to the client with the
+ * action response.
+ *
+ * <p>When no trace is running, the overhead is a single thread local lookup per action.
+ */
+public final class ActionTracer {
+
+  private static final Logger log = LoggerFactory.getLogger(ActionTracer.class);
+
+  private static final String TRACE_FLAG = "_trace";
+
+  private static final double SAMPLE_RATE = sampleRate();
+
+  private static final long THRESHOLD =
+      AppSettings.get().getInt(AvailableAppSettings.ACTION_TRACE_THRESHOLD, 0);
+
+  private static final ThreadLocal<Node> CURRENT = new ThreadLocal<>();
+
+  /** The maximum number of actions with aggregated timings. */
+  public static final int MAX_METRICS = 1000;
+
+  private static final Cache<String, Stats> METRICS =
+      CacheBuilder.newBuilder().maximumSize(MAX_METRICS).build();
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private ActionTracer() {}
+
+  private static double sampleRate() {
+    final String value = AppSettings.get().get(AvailableAppSettings.ACTION_TRACE_SAMPLE_RATE);
+    if (StringUtils.isBlank(value)) {
+      return 0;
+    }
+    try {
+      return Math.max(0, Math.min(1, Double.parseDouble(value.trim())));
+    } catch (NumberFormatException e) {
+      log.warn("Invalid {}: {}", AvailableAppSettings.ACTION_TRACE_SAMPLE_RATE, value);
+      return 0;
+    }
+  }
+
+  /** A node of the trace tree. */
+  public static final class Node {
+
+    private final Node parent;
+    private final String name;
+    private final String type;
+    private final long start = System.nanoTime();
+    private final List<Node> children = new ArrayList<>();
+
+    private long elapsed;
+    private long statements;
+
+    private Node(Node parent, String name, String type) {
+      this.parent = parent;
+      this.name = name;
+      this.type = type;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public String getType() {
+      return type;
+    }
+
+    /** Get the wall time in milliseconds. */
+    public long getElapsed() {
+      return elapsed / 1_000_000;
+    }
+
+    /** Get the number of SQL statements, including the ones of the nested actions. */
+    public long getStatements() {
+      return statements;
+    }
+
+    public List<Node> getChildren() {
+      return Collections.unmodifiableList(children);
+    }
+
+    /** Close this node and return to its parent. */
+    public void close() {
+      if (CURRENT.get() != this) {
+        return;
+      }
+      elapsed = System.nanoTime() - start;
+      CURRENT.set(parent);
+      if (parent == null) {
+        CURRENT.remove();
+        complete(this);
+      } else {
+        parent.statements += statements;
+      }
+    }
+
+    public Map<String, Object> toMap() {
+      final Map<String, Object> map = new LinkedHashMap<>();
+      map.put("name", name);
+      map.put("type", type);
+      map.put("elapsed", getElapsed());
+      map.put("sql", statements);
+      if (!children.isEmpty()) {
+        final List<Map<String, Object>> items = new ArrayList<>();
+        for (Node child : children) {
+          items.add(child.toMap());
+        }
+        map.put("children", items);
+      }
+      return map;
+    }
+  }
+
+  /** Aggregated timings of an action. */
+  public static final class Stats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private final AtomicLong statements = new AtomicLong();
+
+    private void record(Node node) {
+      count.increment();
+      total.add(node.elapsed);
+      max.accumulate(node.elapsed);
+      statements.addAndGet(node.statements);
+    }
+
+    public long getCount() {
+      return count.sum();
+    }
+
+    /** Get the total wall time in milliseconds. */
+    public long getTotal() {
+      return total.sum() / 1_000_000;
+    }
+
+    /** Get the maximum wall time in milliseconds. */
+    public long getMax() {
+      return max.get() / 1_000_000;
+    }
+
+    /** Get the total number of SQL statements. */
+    public long getStatements() {
+      return statements.get();
+    }
+  }
+
+  /**
+   * Whether a trace should be started for the given request.
+   *
+   * @param request the action request
+   * @return true if the request is sampled or asks for a trace
+   */
+  static boolean isSampled(ActionRequest request) {
+    return isRequested(request)
+        || (SAMPLE_RATE > 0 && ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE);
+  }
+
+  /**
+   * Whether the given request asks for its trace to be returned.
+   *
+   * @param request the action request
+   * @return true if the trace should be returned with the response
+   */
+  static boolean isRequested(ActionRequest request) {
+    if (request.getData() == null || !Boolean.TRUE.equals(request.getData().get(TRACE_FLAG))) {
+      return false;
+    }
+    final User user = AuthUtils.getUser();
+    return !AppSettings.get().isProduction() || (user != null && AuthUtils.isAdmin(user));
+  }
+
+  /**
+   * Start a new trace on this thread.
+   *
+   * @param name the name of the traced request
+   * @return the root node
+   */
+  static Node start(String name) {
+    final Node node = new Node(null, name, "request");
+    CURRENT.set(node);
+    return node;
+  }
+
+  /**
+   * Enter a new node if a trace is running on this thread.
+   *
+   * @param name the action name
+   * @param type the action type
+   * @return the new node or null if no trace is running
+   */
+  public static Node enter(String name, String type) {
+    final Node parent = CURRENT.get();
+    if (parent == null) {
+      return null;
+    }
+    final Node node = new Node(parent, name, type);
+    parent.children.add(node);
+    CURRENT.set(node);
+    return node;
+  }
+
+  /**
+   * Get the type name of the given action, for example <code>action-record</code>.
+   *
+   * @param klass the action class
+   * @return the type name
+   */
+  public static String typeOf(Class<?> klass) {
+    return CaseFormat.UPPER_CAMEL.to(CaseFormat.LOWER_HYPHEN, klass.getSimpleName());
+  }
+
+  /** Count a prepared SQL statement against the running node, if any. */
+  public static void onStatement() {
+    final Node node = CURRENT.get();
+    if (node != null) {
+      node.statements++;
+    }
+  }
+
+  /**
+   * Get the aggregated timings of the traced actions, by action name.
+   *
+   * @return the metrics snapshot
+   */
+  public static Map<String, Stats> getMetrics() {
+    return Collections.unmodifiableMap(new TreeMap<>(METRICS.asMap()));
+  }
+
+  /** Reset the aggregated timings. */
+  public static void resetMetrics() {
+    METRICS.invalidateAll();
+  }
+
+  private static boolean isExpression(Node node) {
+    return "select".equals(node.type) || "select[]".equals(node.type);
+  }
+
+  private static void record(Node node) {
+    // expressions are not aggregated, they are free text
+    if (node.name != null && node.parent != null && !isExpression(node)) {
+      METRICS.asMap().computeIfAbsent(node.type + ":" + node.name, k -> new Stats()).record(node);
+    }
+    for (Node child : node.children) {
+      record(child);
+    }
+  }
+
+  private static void complete(Node root) {
+    record(root);
+    if (log.isInfoEnabled() && root.getElapsed() >= THRESHOLD) {
+      try {
+        log.info("{}", MAPPER.writeValueAsString(root.toMap()));
+      } catch (Exception e) {
+        log.debug("Unable to log action trace: {}", root.name, e);
+      }
+    }
+  }
+}
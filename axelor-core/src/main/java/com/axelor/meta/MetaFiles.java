@@ -33,6 +33,7 @@ import com.axelor.meta.db.MetaFile;
 import com.axelor.meta.db.repo.MetaAttachmentRepository;
 import com.axelor.meta.db.repo.MetaFileRepository;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.inject.persist.Transactional;
 import java.io.BufferedOutputStream;
 import java.io.File;
@@ -49,6 +50,8 @@ import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileAttribute;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.regex.Pattern;
@@ -721,6 +724,19 @@ public class MetaFiles {
     Optional.ofNullable(dmsFileRepo.findHomeByRelated(entity)).ifPresent(dmsFileRepo::remove);
   }
 
+  /**
+   * Delete the attachments of the given records.
+   *
+   * @param model the model of the records
+   * @param ids the ids of the records
+   */
+  public void deleteAttachments(Class<? extends Model> model, Collection<Long> ids) {
+    final DMSFileRepository dmsFileRepo = Beans.get(DMSFileRepository.class);
+    for (List<Long> chunk : Lists.partition(new ArrayList<>(ids), 1000)) {
+      dmsFileRepo.findHomesByRelated(model, chunk).forEach(dmsFileRepo::remove);
+    }
+  }
+
   public String fileTypeIcon(MetaFile file) {
     String fileType = file.getFileType();
     if (fileType == null) {
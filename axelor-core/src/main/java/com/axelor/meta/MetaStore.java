@@ -19,6 +19,7 @@ package com.axelor.meta;
 
 import static com.axelor.common.StringUtils.isBlank;
 
+import com.axelor.app.internal.AppFilter;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.Role;
 import com.axelor.auth.db.User;
@@ -32,6 +33,7 @@ import com.axelor.db.ValueEnum;
 import com.axelor.db.annotations.Widget;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
+import com.axelor.db.tenants.TenantResolver;
 import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.meta.db.MetaJsonField;
@@ -41,10 +43,10 @@ import com.axelor.meta.db.MetaPermissionRule;
 import com.axelor.meta.db.MetaSelectItem;
 import com.axelor.meta.db.repo.MetaJsonModelRepository;
 import com.axelor.meta.loader.ModuleManager;
-import com.axelor.meta.loader.XMLViews;
 import com.axelor.meta.schema.ObjectViews;
 import com.axelor.meta.schema.actions.Action;
 import com.axelor.meta.schema.views.Selection;
+import com.axelor.rpc.ActionResponse;
 import com.axelor.script.CompositeScriptHelper;
 import com.axelor.script.ScriptHelper;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -53,7 +55,9 @@ import com.google.common.base.Objects;
 import com.google.common.base.Splitter;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import java.lang.reflect.Field;
+import java.time.temporal.Temporal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -64,7 +68,11 @@ import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -73,8 +81,13 @@ public final class MetaStore {
 
   private static final Logger log = LoggerFactory.getLogger(MetaStore.class);
 
-  private static final Cache<String, Action> ACTIONS =
-      CacheBuilder.newBuilder().maximumSize(1000).weakValues().build();
+  private static final Cache<String, FieldsInfo> FIELDS =
+      CacheBuilder.newBuilder().maximumSize(2000).build();
+
+  private static final Cache<String, Object> USER_FIELDS =
+      CacheBuilder.newBuilder().maximumSize(10000).expireAfterAccess(1, TimeUnit.HOURS).build();
+
+  private static final AtomicLong GENERATION = new AtomicLong();
 
   private MetaStore() {}
 
@@ -82,20 +95,14 @@ public final class MetaStore {
   static void resister(ObjectViews views) {
     try {
       for (Action item : views.getActions()) {
-        ACTIONS.put(item.getName(), item);
+        ActionRegistry.put(item);
       }
     } catch (NullPointerException e) {
     }
   }
 
   public static Action getAction(String name) {
-    Action action = ACTIONS.getIfPresent(name);
-    if (action == null) {
-      action = XMLViews.findAction(name);
-      if (action != null) {
-        ACTIONS.put(name, action);
-      }
-    }
+    final Action action = ActionRegistry.get(name);
     if (action == null) {
       return null;
     }
@@ -143,14 +150,21 @@ public final class MetaStore {
     return property;
   }
 
-  public static Map<String, Object> findFields(
-      final Class<?> modelClass, final Collection<String> names) {
-    final Map<String, Object> data = new HashMap<>();
+  /** The user independent metadata of a set of fields, see {@link #findFields}. */
+  private static final class FieldsInfo {
+
+    private final List<Map<String, Object>> fields = new ArrayList<>();
+    private final List<Class<?>> targets = new ArrayList<>();
+    private final List<Property> temporals = new ArrayList<>();
+    private final List<String> jsonNames = new ArrayList<>();
+    private boolean massUpdate;
+  }
+
+  private static FieldsInfo buildFields(final Class<?> modelClass, final Collection<String> names) {
     final Mapper mapper = Mapper.of(modelClass);
-    final Map<String, Property> fieldsMap = new LinkedHashMap<>();
-    final List<Object> fields = new ArrayList<>();
+    final Set<String> found = new HashSet<>();
+    final FieldsInfo info = new FieldsInfo();
 
-    boolean massUpdate = false;
     Object bean = null;
     try {
       bean = modelClass.newInstance();
@@ -169,13 +183,11 @@ public final class MetaStore {
       if (property.isEnum()) {
         map.put("selectionList", getSelectionList(property.getEnumType()));
       }
-      if (property.getTarget() != null) {
-        map.put("perms", getPermissions(property.getTarget()));
-      }
       if (property.isMassUpdate() && !name.contains(".")) {
-        massUpdate = true;
+        info.massUpdate = true;
       }
       // find the default value
+      Object defaultValue = null;
       if (!property.isTransient() && !property.isVirtual()) {
         Object obj = null;
         if (name.contains(".")) {
@@ -187,7 +199,7 @@ public final class MetaStore {
           obj = bean;
         }
         if (obj != null) {
-          Object defaultValue = property.get(obj);
+          defaultValue = property.get(obj);
           if (defaultValue != null) {
             map.put("defaultValue", defaultValue);
           }
@@ -196,32 +208,150 @@ public final class MetaStore {
       if (name.contains(".")) {
         map.put("readonly", true);
       }
-      fieldsMap.put(name, property);
+      found.add(name);
+      info.fields.add(map);
+      info.targets.add(property.getTarget());
+      // default values like `now` must be computed again
+      info.temporals.add(defaultValue instanceof Temporal ? property : null);
+    }
+
+    // find dotted json fields
+    for (String name : names) {
+      if (found.contains(name) || name.indexOf('.') == -1) {
+        continue;
+      }
+      final Property property = findField(mapper, name.substring(0, name.indexOf('.')));
+      if (property != null && property.isJson()) {
+        info.jsonNames.add(name);
+      }
+    }
+
+    return info;
+  }
+
+  private static String userKey(User user, String key) {
+    return TenantResolver.currentTenantIdentifier()
+        + ":"
+        + user.getId()
+        + ":"
+        + AppFilter.getLocale()
+        + ":"
+        + key;
+  }
+
+  /**
+   * Get the permissions of the current user on the given model, cached until permissions change.
+   */
+  private static Map<String, Object> findPermissions(Class<?> model) {
+    final User user = AuthUtils.getUser();
+    if (user == null || user.getId() == null) {
+      return getPermissions(model);
+    }
+    try {
+      @SuppressWarnings("unchecked")
+      final Optional<Map<String, Object>> perms =
+          (Optional<Map<String, Object>>)
+              USER_FIELDS.get(
+                  userKey(user, "perms:" + model.getName()),
+                  () -> Optional.ofNullable(getPermissions(model)));
+      return perms.isPresent() ? new HashMap<>(perms.get()) : null;
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /** Get the json fields visible to the current user, cached per user. */
+  private static Map<String, Object> findUserJsonFields(String modelName, String fieldName) {
+    final User user = AuthUtils.getUser();
+    if (user == null || user.getId() == null) {
+      return findJsonFields(modelName, fieldName);
+    }
+    try {
+      @SuppressWarnings("unchecked")
+      final Optional<Map<String, Object>> fields =
+          (Optional<Map<String, Object>>)
+              USER_FIELDS.get(
+                  userKey(user, "json:" + modelName + ":" + fieldName),
+                  () -> Optional.ofNullable(findJsonFields(modelName, fieldName)));
+      return fields.orElse(null);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  /**
+   * Find the metadata of the given fields.
+   *
+   * <p>The user independent metadata is cached per tenant, model, field set and language until
+   * metadata changes. The user dependent metadata (permissions, custom fields) is cached per tenant
+   * and user until metadata or permissions change.
+   *
+   * @param modelClass the model class
+   * @param names the field names, dotted names are allowed
+   * @return the permissions and field metadata
+   */
+  public static Map<String, Object> findFields(
+      final Class<?> modelClass, final Collection<String> names) {
+    final String key =
+        TenantResolver.currentTenantIdentifier()
+            + ":"
+            + modelClass.getName()
+            + ":"
+            + AppFilter.getLocale()
+            + ":"
+            + String.join(",", names);
+
+    final FieldsInfo info;
+    try {
+      info = FIELDS.get(key, () -> buildFields(modelClass, names));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+
+    final Map<String, Object> data = new HashMap<>();
+    final List<Object> fields = new ArrayList<>();
+    final Map<Class<?>, Object> beans = new HashMap<>();
+
+    for (int i = 0; i < info.fields.size(); i++) {
+      final Map<String, Object> map = new HashMap<>(info.fields.get(i));
+      final Class<?> target = info.targets.get(i);
+      final Property temporal = info.temporals.get(i);
+      if (target != null) {
+        map.put("perms", findPermissions(target));
+      }
+      if (temporal != null) {
+        final Object bean =
+            beans.computeIfAbsent(
+                temporal.getEntity(),
+                k -> {
+                  try {
+                    return k.newInstance();
+                  } catch (Exception e) {
+                    return null;
+                  }
+                });
+        if (bean != null) {
+          map.put("defaultValue", temporal.get(bean));
+        }
+      }
       fields.add(map);
     }
 
-    Map<String, Object> perms = getPermissions(modelClass);
-    if (massUpdate) {
+    Map<String, Object> perms = findPermissions(modelClass);
+    if (info.massUpdate) {
       if (perms == null) {
         perms = new HashMap<>();
       }
-      perms.put("massUpdate", massUpdate);
+      perms.put("massUpdate", info.massUpdate);
     }
 
     // find dotted json fields
     final Map<String, Map<String, Object>> jsonFields = new HashMap<>();
-    for (String name : names) {
-      if (fieldsMap.containsKey(name) || name.indexOf('.') == -1) {
-        continue;
-      }
+    for (String name : info.jsonNames) {
       final String first = name.substring(0, name.indexOf('.'));
       final String field = name.substring(name.indexOf('.') + 1);
-      final Property property = findField(mapper, first);
-      if (property == null || !property.isJson()) {
-        continue;
-      }
       if (!jsonFields.containsKey(first)) {
-        jsonFields.put(first, findJsonFields(modelClass.getName(), first));
+        jsonFields.put(first, findUserJsonFields(modelClass.getName(), first));
       }
       final Map<String, Object> jsonField = jsonFields.get(first);
       if (jsonField != null && jsonField.containsKey(field)) {
@@ -606,11 +736,147 @@ public final class MetaStore {
     return option;
   }
 
+  /** Load all the actions at once, instead of on first use. */
+  public static void preloadActions() {
+    ActionRegistry.preload();
+  }
+
+  /**
+   * Get the number of registered actions.
+   *
+   * @return the number of actions
+   */
+  public static long getActionCount() {
+    return ActionRegistry.size();
+  }
+
+  /**
+   * Get the hit and miss statistics of the action registry.
+   *
+   * @return the statistics
+   */
+  public static CacheStats getActionStats() {
+    return ActionRegistry.stats();
+  }
+
+  /**
+   * Get a copy of the cached response of a pure action.
+   *
+   * @param name the action name
+   * @param variant the request variant the response was computed for
+   * @return a copy of the response or null if not cached
+   */
+  public static ActionResponse getActionResponse(String name, String variant) {
+    final ActionResponse cached = ActionRegistry.getResponse(name, variant);
+    if (cached == null) {
+      return null;
+    }
+    final ActionResponse response = new ActionResponse();
+    response.setStatus(cached.getStatus());
+    response.setData(copyValue(cached.getData()));
+    return response;
+  }
+
+  /**
+   * Cache the response of a pure action.
+   *
+   * <p>Only successful responses made of plain values, lists and maps are cached.
+   *
+   * @param name the action name
+   * @param variant the request variant the response was computed for
+   * @param response the response
+   */
+  public static void putActionResponse(String name, String variant, ActionResponse response) {
+    if (response.getStatus() != ActionResponse.STATUS_SUCCESS
+        || response.getErrors() != null
+        || !isPlainValue(response.getData())) {
+      return;
+    }
+    final ActionResponse cached = new ActionResponse();
+    cached.setStatus(response.getStatus());
+    cached.setData(copyValue(response.getData()));
+    ActionRegistry.putResponse(name, variant, cached);
+  }
+
+  /**
+   * Get the number of cached responses of pure actions.
+   *
+   * @return the number of responses
+   */
+  public static long getActionResponseCount() {
+    return ActionRegistry.responseSize();
+  }
+
+  /**
+   * Get the hit and miss statistics of the cached responses of pure actions.
+   *
+   * @return the statistics
+   */
+  public static CacheStats getActionResponseStats() {
+    return ActionRegistry.responseStats();
+  }
+
+  private static boolean isPlainValue(Object value) {
+    if (value instanceof Map) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (!(entry.getKey() instanceof String) || !isPlainValue(entry.getValue())) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (value instanceof List) {
+      return ((List<?>) value).stream().allMatch(MetaStore::isPlainValue);
+    }
+    return value == null
+        || value instanceof String
+        || value instanceof Number
+        || value instanceof Boolean;
+  }
+
+  private static Object copyValue(Object value) {
+    if (value instanceof Map) {
+      final Map<String, Object> map = new HashMap<>();
+      ((Map<?, ?>) value).forEach((k, v) -> map.put((String) k, copyValue(v)));
+      return map;
+    }
+    if (value instanceof List) {
+      return ((List<?>) value).stream().map(MetaStore::copyValue).collect(Collectors.toList());
+    }
+    return value;
+  }
+
+  /**
+   * Get the generation of the cached metadata, incremented each time field metadata or
+   * permissions are invalidated.
+   *
+   * @return the current generation
+   */
+  public static long getGeneration() {
+    return GENERATION.get();
+  }
+
   public static void clear() {
-    ACTIONS.invalidateAll();
+    ActionRegistry.invalidateAll();
+    invalidateFields();
+  }
+
+  /** Clear the cached field metadata, for example when selections or translations change. */
+  public static void invalidateFields() {
+    GENERATION.incrementAndGet();
+    // responses of pure actions have translated titles
+    ActionRegistry.invalidateResponses();
+    FIELDS.invalidateAll();
+    USER_FIELDS.invalidateAll();
+  }
+
+  /** Clear the cached user dependent field metadata, for example when permissions change. */
+  public static void invalidatePermissions() {
+    GENERATION.incrementAndGet();
+    USER_FIELDS.invalidateAll();
   }
 
   public static void invalidate(String name) {
-    ACTIONS.invalidate(name);
+    ActionRegistry.invalidate(name);
   }
 }
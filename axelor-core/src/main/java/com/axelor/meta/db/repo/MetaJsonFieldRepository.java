@@ -0,0 +1,69 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.db.repo;
+
+import com.axelor.inject.Beans;
+import com.axelor.meta.db.MetaJsonField;
+import com.google.inject.persist.Transactional;
+
+public class MetaJsonFieldRepository extends AbstractMetaJsonFieldRepository {
+
+  void onValidate(MetaJsonField field) {
+    Beans.get(MetaJsonIndexer.class).validate(field);
+  }
+
+  void onSave(MetaJsonField field) {
+    Beans.get(MetaJsonIndexer.class).update(field);
+    if (MetaJsonReferenceIndex.isReference(field)) {
+      final MetaJsonReferenceIndex references = Beans.get(MetaJsonReferenceIndex.class);
+      references.invalidate();
+      references.isReady(field);
+    } else if (field.getReferencesKey() != null) {
+      // no longer a reference
+      final MetaJsonReferenceIndex references = Beans.get(MetaJsonReferenceIndex.class);
+      references.invalidate();
+      references.remove(field);
+      field.setReferencesKey(null);
+    }
+  }
+
+  void onRemove(MetaJsonField field) {
+    Beans.get(MetaJsonIndexer.class).drop(field);
+    if (MetaJsonReferenceIndex.isReference(field)) {
+      final MetaJsonReferenceIndex references = Beans.get(MetaJsonReferenceIndex.class);
+      references.invalidate();
+      references.remove(field);
+    }
+  }
+
+  @Override
+  @Transactional
+  public MetaJsonField save(MetaJsonField entity) {
+    onValidate(entity);
+    final MetaJsonField saved = super.save(entity);
+    onSave(saved);
+    return saved;
+  }
+
+  @Override
+  @Transactional
+  public void remove(MetaJsonField entity) {
+    onRemove(entity);
+    super.remove(entity);
+  }
+}
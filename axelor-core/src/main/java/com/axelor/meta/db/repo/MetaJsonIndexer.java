@@ -0,0 +1,374 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.db.repo;
+
+import com.axelor.db.JPA;
+import com.axelor.db.hibernate.dialect.AbstractJsonExtractFunction;
+import com.axelor.db.internal.DBHelper;
+import com.axelor.db.tenants.TenantAware;
+import com.axelor.meta.db.MetaJsonField;
+import com.axelor.meta.db.MetaJsonRecord;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import javax.inject.Singleton;
+import org.hibernate.dialect.function.SQLFunction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maintains database indexes for custom fields marked as indexed.
+ *
+ * <p>The indexed expression is rendered with the same dialect function used to query the custom
+ * field (<code>json_extract_*</code>), so the existing queries are served by the index as is. On
+ * PostgreSQL an expression index is created, on MySQL a virtual generated column is added and
+ * indexed. Other databases are not supported.
+ *
+ * <p>The DDL statements are executed in background, once the transaction saving the field is
+ * committed, so that index creation never blocks the user transaction.
+ */
+@Singleton
+public class MetaJsonIndexer {
+
+  private static final String PREFIX = "json_idx_";
+
+  // the lowest identifier length limit of the supported databases (PostgreSQL)
+  private static final int MAX_IDENTIFIER_LENGTH = 63;
+
+  private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+  private static final Pattern IDENTIFIER_PATTERN =
+      Pattern.compile("([A-Za-z_][A-Za-z0-9_$]*\\.)?[A-Za-z_][A-Za-z0-9_$]*");
+
+  private static final Logger log = LoggerFactory.getLogger(MetaJsonIndexer.class);
+
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder().setNameFormat("json-indexes").setDaemon(true).build());
+
+  private static final class Definition {
+
+    private final String name;
+    private final String table;
+    private final String scope;
+    private final String expression;
+    private final String cast;
+
+    private Definition(String table, String scope, String expression, String cast, Long id) {
+      this.table = table;
+      this.scope = scope;
+      this.expression = expression;
+      this.cast = cast;
+      this.name =
+          PREFIX
+              + id
+              + "_"
+              + Hashing.murmur3_32()
+                  .hashString(table + "|" + scope + "|" + expression, StandardCharsets.UTF_8);
+    }
+  }
+
+  private static boolean isSupported() {
+    return DBHelper.isPostgreSQL() || DBHelper.isMySQL();
+  }
+
+  private static boolean isIdentifier(String name) {
+    return name != null
+        && name.length() <= MAX_IDENTIFIER_LENGTH
+        && IDENTIFIER_PATTERN.matcher(name).matches();
+  }
+
+  /**
+   * Check whether the given custom field can be indexed.
+   *
+   * <p>The field name is rendered in the index DDL, so only plain names are accepted for indexed
+   * fields.
+   *
+   * @param field the custom field being saved
+   * @throws IllegalArgumentException if the field is indexed and its name is not a plain name
+   */
+  public void validate(MetaJsonField field) {
+    if (field.getIndexed() != Boolean.TRUE) {
+      return;
+    }
+    final String name = field.getName();
+    if (name == null
+        || name.length() > MAX_IDENTIFIER_LENGTH
+        || !NAME_PATTERN.matcher(name).matches()) {
+      throw new IllegalArgumentException("Invalid name of indexed custom field: " + name);
+    }
+  }
+
+  /**
+   * Create, replace or drop the index of the given custom field depending on its definition.
+   *
+   * <p>The name of the index is kept as the field index key, so the database is only checked when
+   * the index definition changes.
+   *
+   * @param field the custom field being saved
+   */
+  public void update(MetaJsonField field) {
+    if (!isSupported() || field.getId() == null) {
+      return;
+    }
+    final Definition definition = field.getIndexed() == Boolean.TRUE ? define(field) : null;
+    final String key = definition == null ? null : definition.name;
+    if (Objects.equals(key, field.getIndexKey())) {
+      return;
+    }
+    final Long id = field.getId();
+    field.setIndexKey(key);
+    afterCommit(() -> apply(id, definition));
+  }
+
+  /**
+   * Drop the index of the given custom field.
+   *
+   * @param field the custom field being removed
+   */
+  public void drop(MetaJsonField field) {
+    if (!isSupported() || field.getId() == null || field.getIndexKey() == null) {
+      return;
+    }
+    final Long id = field.getId();
+    afterCommit(() -> apply(id, null));
+  }
+
+  private String functionFor(String type) {
+    if (type == null) {
+      return null;
+    }
+    switch (type) {
+      case "integer":
+        return "json_extract_integer";
+      case "decimal":
+        return "json_extract_decimal";
+      case "boolean":
+        return "json_extract_boolean";
+      case "string":
+      case "date":
+      case "datetime":
+      case "time":
+      case "enum":
+      case "many-to-one":
+      case "json-many-to-one":
+        return "json_extract_text";
+      default:
+        return null;
+    }
+  }
+
+  private Definition define(MetaJsonField field) {
+    final String func = functionFor(field.getType());
+    if (func == null) {
+      log.warn("Custom field of type {} can't be indexed: {}", field.getType(), field.getName());
+      return null;
+    }
+
+    final SessionFactoryImplementor factory =
+        JPA.em().getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+    final EntityPersister persister;
+    try {
+      persister = factory.getMetamodel().entityPersister(field.getModel());
+    } catch (Exception e) {
+      log.warn("Unable to find model of custom field {}: {}", field.getName(), field.getModel());
+      return null;
+    }
+    if (!(persister instanceof AbstractEntityPersister)) {
+      return null;
+    }
+
+    final AbstractEntityPersister entity = (AbstractEntityPersister) persister;
+    final String table = entity.getTableName();
+    final String column = entity.getPropertyColumnNames(field.getModelField())[0];
+
+    // custom model records share the same table, index them per custom model
+    final String scope =
+        MetaJsonRecord.class.getName().equals(field.getModel())
+            ? entity.getPropertyColumnNames("jsonModel")[0]
+            : null;
+
+    // all the names are rendered in the DDL statements
+    validate(field);
+    if (!isIdentifier(table) || !isIdentifier(column) || (scope != null && !isIdentifier(scope))) {
+      log.warn("Custom field {} can't be indexed: {}.{}", field.getName(), table, column);
+      return null;
+    }
+
+    final List<String> args = new ArrayList<>(Arrays.asList(column, "'" + field.getName() + "'"));
+    if (field.getType().endsWith("many-to-one")) {
+      args.add("'id'");
+    }
+
+    final SQLFunction function = factory.getSqlFunctionRegistry().findSQLFunction(func);
+    if (!(function instanceof AbstractJsonExtractFunction)) {
+      return null;
+    }
+
+    final String expression = function.render(null, args, factory);
+    final String cast = ((AbstractJsonExtractFunction) function).getCast();
+
+    final Definition definition = new Definition(table, scope, expression, cast, field.getId());
+    return isIdentifier(definition.name) ? definition : null;
+  }
+
+  private void afterCommit(Runnable task) {
+    final Runnable wrapped = TenantAware.capture().wrap(task);
+    JPA.runAfterCommit(() -> executor.execute(wrapped));
+  }
+
+  private void apply(Long id, Definition definition) {
+    try {
+      JPA.jdbcWork(
+          connection -> {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(true);
+            try {
+              if (DBHelper.isPostgreSQL()) {
+                applyPostgreSQL(connection, id, definition);
+              } else {
+                applyMySQL(connection, id, definition);
+              }
+            } finally {
+              connection.setAutoCommit(autoCommit);
+            }
+          });
+    } catch (Exception e) {
+      log.error("Unable to update index of custom field #{}", id, e);
+      resetKey(id);
+    }
+  }
+
+  // the index is checked again on next save
+  private void resetKey(Long id) {
+    try {
+      JPA.runInTransaction(
+          () ->
+              JPA.em()
+                  .createQuery(
+                      "UPDATE MetaJsonField self SET self.indexKey = NULL WHERE self.id = :id")
+                  .setParameter("id", id)
+                  .executeUpdate());
+    } catch (Exception e) {
+      log.error("Unable to reset index key of custom field #{}", id, e);
+    }
+  }
+
+  private static String pattern(Long id) {
+    return (PREFIX + id + "_").replace("_", "\\_") + "%";
+  }
+
+  private void applyPostgreSQL(Connection connection, Long id, Definition definition)
+      throws SQLException {
+    final List<String> existing = new ArrayList<>();
+    try (PreparedStatement stmt =
+        connection.prepareStatement(
+            "SELECT indexname FROM pg_indexes"
+                + " WHERE schemaname = current_schema() AND indexname LIKE ?")) {
+      stmt.setString(1, pattern(id));
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          existing.add(rs.getString(1));
+        }
+      }
+    }
+
+    try (Statement stmt = connection.createStatement()) {
+      for (String name : existing) {
+        if (definition == null || !definition.name.equals(name)) {
+          log.info("Dropping custom field index: {}", name);
+          stmt.execute("DROP INDEX CONCURRENTLY IF EXISTS " + name);
+        }
+      }
+      if (definition != null && !existing.contains(definition.name)) {
+        final String columns =
+            definition.scope == null
+                ? "(" + definition.expression + ")"
+                : definition.scope + ", (" + definition.expression + ")";
+        log.info("Creating custom field index: {}", definition.name);
+        stmt.execute(
+            String.format(
+                "CREATE INDEX CONCURRENTLY IF NOT EXISTS %s ON %s (%s)",
+                definition.name, definition.table, columns));
+      }
+    }
+  }
+
+  private void applyMySQL(Connection connection, Long id, Definition definition)
+      throws SQLException {
+    final List<String[]> existing = new ArrayList<>();
+    try (PreparedStatement stmt =
+        connection.prepareStatement(
+            "SELECT table_name, column_name FROM information_schema.columns"
+                + " WHERE table_schema = database() AND column_name LIKE ?")) {
+      stmt.setString(1, pattern(id));
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          existing.add(new String[] {rs.getString(1), rs.getString(2)});
+        }
+      }
+    }
+
+    boolean found = false;
+    try (Statement stmt = connection.createStatement()) {
+      for (String[] item : existing) {
+        if (definition != null && definition.name.equalsIgnoreCase(item[1])) {
+          found = true;
+          continue;
+        }
+        log.info("Dropping custom field index: {}", item[1]);
+        // dropping the generated column drops its index as well
+        stmt.execute(String.format("ALTER TABLE %s DROP COLUMN %s", item[0], item[1]));
+      }
+      if (definition != null && !found) {
+        final String type =
+            definition.cast == null
+                ? "varchar(255)"
+                : "signed".equals(definition.cast) ? "bigint" : definition.cast;
+        final String columns =
+            definition.scope == null ? definition.name : definition.scope + ", " + definition.name;
+        log.info("Creating custom field index: {}", definition.name);
+        stmt.execute(
+            String.format(
+                "ALTER TABLE %s ADD COLUMN %s %s GENERATED ALWAYS AS (%s) VIRTUAL,"
+                    + " ADD INDEX %s (%s)",
+                definition.table,
+                definition.name,
+                type,
+                definition.expression,
+                definition.name,
+                columns));
+      }
+    }
+  }
+}
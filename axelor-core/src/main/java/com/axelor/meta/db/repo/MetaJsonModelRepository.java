@@ -67,10 +67,9 @@ public class MetaJsonModelRepository extends AbstractMetaJsonModelRepository {
       jsonModel.setNameField(nameField.getName());
     }
 
-    // if name field is changed, update or records with new name field value
-    if (!Objects.equal(lastName, jsonModel.getNameField())) {
-      MetaJsonRecordRepository records = Beans.get(MetaJsonRecordRepository.class);
-      records.all(jsonModel.getName()).fetchStream().forEach(records::save);
+    // if name field is changed, update all records with new name field value
+    if (!Objects.equal(lastName, jsonModel.getNameField()) && jsonModel.getId() != null) {
+      Beans.get(MetaJsonRecordRenamer.class).rename(jsonModel.getName());
     }
 
     MetaView gridView = jsonModel.getGridView();
@@ -249,8 +248,16 @@ public class MetaJsonModelRepository extends AbstractMetaJsonModelRepository {
   @Override
   @Transactional
   public MetaJsonModel save(MetaJsonModel entity) {
+    final MetaJsonFieldRepository fields = Beans.get(MetaJsonFieldRepository.class);
+    if (entity.getFields() != null) {
+      entity.getFields().forEach(fields::onValidate);
+    }
     this.onSave(entity);
-    return super.save(entity);
+    final MetaJsonModel saved = super.save(entity);
+    if (saved.getFields() != null) {
+      saved.getFields().forEach(fields::onSave);
+    }
+    return saved;
   }
 
   @Override
@@ -267,6 +274,11 @@ public class MetaJsonModelRepository extends AbstractMetaJsonModelRepository {
       }
     }
 
+    if (entity.getFields() != null) {
+      final MetaJsonFieldRepository fields = Beans.get(MetaJsonFieldRepository.class);
+      entity.getFields().forEach(fields::onRemove);
+    }
+
     super.remove(entity);
     JPA.all(MetaJsonRecord.class).filter("self.jsonModel = ?", entity.getName()).remove();
   }
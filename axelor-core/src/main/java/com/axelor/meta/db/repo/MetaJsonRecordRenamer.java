@@ -0,0 +1,221 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.db.repo;
+
+import com.axelor.db.JPA;
+import com.axelor.db.hibernate.type.JsonFunction;
+import com.axelor.db.internal.DBHelper;
+import com.axelor.db.tenants.TenantAware;
+import com.axelor.db.tenants.TenantResolver;
+import com.axelor.meta.db.MetaJsonModel;
+import com.axelor.meta.db.MetaJsonRecord;
+import com.axelor.rpc.JsonContext;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Singleton;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Updates the name of custom model records in background when the name field of the custom model
+ * changes.
+ *
+ * <p>The records are updated in chunks of ids, each chunk in its own transaction, with a single
+ * update statement extracting the name from the json values.
+ */
+@Singleton
+public class MetaJsonRecordRenamer {
+
+  private static final int CHUNK_SIZE = 5000;
+
+  private static final Logger log = LoggerFactory.getLogger(MetaJsonRecordRenamer.class);
+
+  private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+  private final Map<String, Progress> running = new ConcurrentHashMap<>();
+
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder().setNameFormat("json-record-names").setDaemon(true).build());
+
+  /** The progress of a running update. */
+  public static final class Progress {
+
+    private final long total;
+    private final AtomicLong done = new AtomicLong();
+
+    private Progress(long total) {
+      this.total = total;
+    }
+
+    /** Get the number of records to update. */
+    public long getTotal() {
+      return total;
+    }
+
+    /** Get the number of records already updated. */
+    public long getDone() {
+      return done.get();
+    }
+  }
+
+  /**
+   * Get the progress of the running update of the given custom model, if any.
+   *
+   * @param jsonModel the custom model name
+   * @return the progress
+   */
+  public Optional<Progress> getProgress(String jsonModel) {
+    return Optional.ofNullable(running.get(key(jsonModel)));
+  }
+
+  private static String key(String jsonModel) {
+    return TenantResolver.currentTenantIdentifier() + ":" + jsonModel;
+  }
+
+  /**
+   * Update the name of all the records of the given custom model in background, once the current
+   * transaction is committed.
+   *
+   * @param jsonModel the custom model name
+   */
+  public void rename(String jsonModel) {
+    final String key = key(jsonModel);
+    if (!pending.add(key)) {
+      return;
+    }
+    final Runnable task =
+        TenantAware.capture()
+            .wrap(
+                () -> {
+                  pending.remove(key);
+                  try {
+                    run(key, jsonModel);
+                  } catch (Exception e) {
+                    log.error("Unable to update names of custom model records: {}", jsonModel, e);
+                  } finally {
+                    running.remove(key);
+                  }
+                });
+    JPA.runAfterCommit(() -> executor.execute(task), () -> pending.remove(key));
+  }
+
+  private void run(String key, String jsonModel) {
+    final EntityManager em = JPA.em();
+    final long total =
+        em.createQuery(
+                "SELECT COUNT(self.id) FROM MetaJsonRecord self WHERE self.jsonModel = :model",
+                Long.class)
+            .setParameter("model", jsonModel)
+            .getSingleResult();
+
+    final Progress progress = new Progress(total);
+    running.put(key, progress);
+
+    log.info("Updating names of {} records of custom model: {}", total, jsonModel);
+
+    long last = 0;
+    while (true) {
+      final List<Long> ids =
+          em.createQuery(
+                  "SELECT self.id FROM MetaJsonRecord self "
+                      + "WHERE self.jsonModel = :model AND self.id > :last ORDER BY self.id",
+                  Long.class)
+              .setParameter("model", jsonModel)
+              .setParameter("last", last)
+              .setMaxResults(CHUNK_SIZE)
+              .getResultList();
+
+      if (ids.isEmpty()) {
+        break;
+      }
+
+      final long from = last;
+      final long to = ids.get(ids.size() - 1);
+
+      JPA.runInTransaction(() -> update(jsonModel, from, to));
+      em.clear();
+
+      last = to;
+      progress.done.addAndGet(ids.size());
+      log.debug(
+          "Updated names of {}/{} records of custom model: {}",
+          progress.getDone(),
+          total,
+          jsonModel);
+    }
+
+    log.info("Updated names of {} records of custom model: {}", progress.getDone(), jsonModel);
+  }
+
+  private void update(String jsonModel, long from, long to) {
+    final EntityManager em = JPA.em();
+
+    // read the name field for each chunk, it may have changed meanwhile
+    final MetaJsonModel model =
+        em.createQuery(
+                "SELECT self FROM MetaJsonModel self WHERE self.name = :name", MetaJsonModel.class)
+            .setParameter("name", jsonModel)
+            .getResultList()
+            .stream()
+            .findFirst()
+            .orElse(null);
+
+    if (model == null) {
+      return;
+    }
+
+    final String nameField = model.getNameField();
+    final String range = " WHERE self.jsonModel = :model AND self.id > :from AND self.id <= :to";
+
+    if (nameField == null) {
+      em.createQuery("UPDATE MetaJsonRecord self SET self.name = NULL" + range)
+          .setParameter("model", jsonModel)
+          .setParameter("from", from)
+          .setParameter("to", to)
+          .executeUpdate();
+      return;
+    }
+
+    // no json functions on HSQLDB, compute the names one by one
+    if (!DBHelper.isPostgreSQL() && !DBHelper.isMySQL() && !DBHelper.isOracle()) {
+      em.createQuery("SELECT self FROM MetaJsonRecord self" + range, MetaJsonRecord.class)
+          .setParameter("model", jsonModel)
+          .setParameter("from", from)
+          .setParameter("to", to)
+          .getResultList()
+          .forEach(record -> record.setName((String) new JsonContext(record).get(nameField)));
+      return;
+    }
+
+    final String value = new JsonFunction("attrs", nameField).toString();
+    em.createQuery("UPDATE MetaJsonRecord self SET self.name = " + value + range)
+        .setParameter("model", jsonModel)
+        .setParameter("from", from)
+        .setParameter("to", to)
+        .executeUpdate();
+  }
+}
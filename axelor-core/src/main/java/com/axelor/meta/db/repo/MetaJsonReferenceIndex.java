@@ -0,0 +1,521 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.db.repo;
+
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
+import com.axelor.db.EntityHelper;
+import com.axelor.db.JPA;
+import com.axelor.db.Model;
+import com.axelor.db.hibernate.type.JsonFunction;
+import com.axelor.db.internal.DBHelper;
+import com.axelor.db.mapper.Mapper;
+import com.axelor.db.tenants.TenantAware;
+import com.axelor.db.tenants.TenantResolver;
+import com.axelor.event.Observes;
+import com.axelor.events.internal.BeforeTransactionComplete;
+import com.axelor.meta.db.MetaJsonField;
+import com.axelor.meta.db.MetaJsonRecord;
+import com.axelor.meta.db.MetaJsonReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.inject.Singleton;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maintains the reverse references of custom relational fields, that is which records reference a
+ * given record through a <code>many-to-one</code> or <code>json-many-to-one</code> custom field.
+ *
+ * <p>The references are updated whenever a record having such custom fields is saved or deleted.
+ * The references of existing records are built in background the first time a field is used or
+ * whenever its definition changes. Until then, {@link #isReady(MetaJsonField)} returns false.
+ *
+ * <p>Bulk updates (JPQL or native queries) of the custom field values are not seen by the index, so
+ * it is only used when enabled with the <code>data.json-references.index</code> setting, that is
+ * when such values are only written through entities, or the affected fields are rebuilt with
+ * {@link #rebuild(MetaJsonField)} afterwards.
+ */
+@Singleton
+public class MetaJsonReferenceIndex {
+
+  private static final int BATCH_SIZE = 500;
+
+  private static final Logger log = LoggerFactory.getLogger(MetaJsonReferenceIndex.class);
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final LoadingCache<String, List<Field>> fields =
+      CacheBuilder.newBuilder()
+          .maximumSize(1000)
+          .expireAfterWrite(10, TimeUnit.MINUTES)
+          .build(CacheLoader.from(this::findFields));
+
+  private final Set<String> building = ConcurrentHashMap.newKeySet();
+
+  private final boolean enabled;
+
+  private final ExecutorService executor =
+      Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder().setNameFormat("json-references").setDaemon(true).build());
+
+  public MetaJsonReferenceIndex() {
+    this(AppSettings.get().getBoolean(AvailableAppSettings.DATA_JSON_REFERENCES_INDEX, false));
+  }
+
+  MetaJsonReferenceIndex(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  private static final class Field {
+
+    private final String name;
+    private final String modelField;
+    private final String jsonModel;
+    private final String targetModel;
+
+    private Field(MetaJsonField field) {
+      this.name = field.getName();
+      this.modelField = field.getModelField();
+      this.jsonModel = getJsonModel(field);
+      this.targetModel = getTargetModel(field);
+    }
+  }
+
+  private static final class Key {
+
+    private final String ownerField;
+    private final String path;
+    private final String targetModel;
+    private final Long targetId;
+
+    private Key(String ownerField, String path, String targetModel, Long targetId) {
+      this.ownerField = ownerField;
+      this.path = path;
+      this.targetModel = targetModel;
+      this.targetId = targetId;
+    }
+
+    private Key(MetaJsonReference reference) {
+      this(
+          reference.getOwnerField(),
+          reference.getPath(),
+          reference.getTargetModel(),
+          reference.getTargetId());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(ownerField, path, targetModel, targetId);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) return true;
+      if (!(obj instanceof Key)) return false;
+      final Key other = (Key) obj;
+      return Objects.equals(ownerField, other.ownerField)
+          && Objects.equals(path, other.path)
+          && Objects.equals(targetModel, other.targetModel)
+          && Objects.equals(targetId, other.targetId);
+    }
+  }
+
+  /**
+   * Check whether the given custom field is a reference tracked by this index.
+   *
+   * @param field the custom field
+   * @return true if references of the field are tracked
+   */
+  public static boolean isReference(MetaJsonField field) {
+    return "many-to-one".equals(field.getType()) || "json-many-to-one".equals(field.getType());
+  }
+
+  private static String getTargetModel(MetaJsonField field) {
+    return "json-many-to-one".equals(field.getType())
+        ? MetaJsonRecord.class.getName()
+        : field.getTargetModel();
+  }
+
+  private static String getJsonModel(MetaJsonField field) {
+    return field.getJsonModel() == null ? null : field.getJsonModel().getName();
+  }
+
+  private static String signature(MetaJsonField field) {
+    return String.join(
+        "|",
+        field.getModel(),
+        field.getModelField(),
+        field.getName(),
+        field.getType(),
+        Objects.toString(getTargetModel(field), ""),
+        Objects.toString(getJsonModel(field), ""));
+  }
+
+  /**
+   * Check whether the references of the given custom field are fully indexed.
+   *
+   * <p>If not, the references are built in background. Always false if the index is not enabled.
+   *
+   * @param field the custom field
+   * @return true if all the references of the field are indexed
+   */
+  public boolean isReady(MetaJsonField field) {
+    if (!enabled) {
+      return false;
+    }
+    if (Objects.equals(signature(field), field.getReferencesKey())) {
+      return true;
+    }
+    rebuild(field);
+    return false;
+  }
+
+  /**
+   * Find the records referencing the given record, grouped by custom field.
+   *
+   * @param fields the custom fields referencing the record model
+   * @param targetModel the record model name
+   * @param targetId the record id
+   * @return map of custom field to referencing record ids
+   */
+  public Map<MetaJsonField, List<Long>> findOwners(
+      Collection<MetaJsonField> fields, String targetModel, Long targetId) {
+    final Map<String, List<Long>> found = new HashMap<>();
+    JPA.em()
+        .createQuery(
+            "SELECT self.ownerModel, self.ownerField, self.path, self.ownerId "
+                + "FROM MetaJsonReference self "
+                + "WHERE self.targetModel = :model AND self.targetId = :id",
+            Object[].class)
+        .setParameter("model", targetModel)
+        .setParameter("id", targetId)
+        .getResultList()
+        .forEach(
+            row ->
+                found
+                    .computeIfAbsent(row[0] + "|" + row[1] + "|" + row[2], k -> new ArrayList<>())
+                    .add((Long) row[3]));
+
+    final Map<MetaJsonField, List<Long>> owners = new LinkedHashMap<>();
+    for (MetaJsonField field : fields) {
+      final List<Long> ids =
+          found.get(field.getModel() + "|" + field.getModelField() + "|" + field.getName());
+      if (ids != null) {
+        owners.put(field, ids);
+      }
+    }
+    return owners;
+  }
+
+  /**
+   * Run the given task in background, once the current transaction is committed.
+   *
+   * @param task the task to run
+   */
+  void submit(Runnable task) {
+    submit(task, null);
+  }
+
+  private void submit(Runnable task, Runnable rollback) {
+    final Runnable wrapped = TenantAware.capture().wrap(task);
+    JPA.runAfterCommit(() -> executor.execute(wrapped), rollback);
+  }
+
+  /**
+   * Rebuild the references of the given custom field in background, once the current transaction
+   * is committed.
+   *
+   * @param field the custom field
+   */
+  public void rebuild(MetaJsonField field) {
+    final Long id = field.getId();
+    if (!enabled || id == null || !isReference(field)) {
+      return;
+    }
+    final String key = TenantResolver.currentTenantIdentifier() + ":" + id;
+    if (!building.add(key)) {
+      return;
+    }
+    submit(
+        () -> {
+          try {
+            JPA.runInTransaction(() -> doRebuild(id));
+          } catch (Exception e) {
+            log.error("Unable to index references of custom field #{}", id, e);
+          } finally {
+            building.remove(key);
+          }
+        },
+        () -> building.remove(key));
+  }
+
+  private void doRebuild(Long id) {
+    final EntityManager em = JPA.em();
+    final MetaJsonField field = em.find(MetaJsonField.class, id);
+    if (field == null || !isReference(field)) {
+      return;
+    }
+
+    final String signature = signature(field);
+    final String ownerModel = field.getModel();
+    final String ownerField = field.getModelField();
+    final String path = field.getName();
+    final String targetModel = getTargetModel(field);
+    final String jsonModel = getJsonModel(field);
+
+    log.debug("Indexing references of custom field: {}.{}", ownerModel, path);
+
+    remove(field);
+
+    // no json functions on HSQLDB, extract the references from the json values
+    final boolean extracted = DBHelper.isPostgreSQL() || DBHelper.isMySQL();
+    final String extract =
+        extracted
+            ? new JsonFunction(ownerField, path + ".id", "integer").toString()
+            : "self." + ownerField;
+    final String queryString =
+        String.format(
+            "SELECT self.id, %s FROM %s self WHERE %s IS NOT NULL AND self.id > :last%s "
+                + "ORDER BY self.id",
+            extract, ownerModel, extract, jsonModel == null ? "" : " AND self.jsonModel = :model");
+
+    Long last = 0L;
+    while (true) {
+      final Query query =
+          em.createQuery(queryString).setParameter("last", last).setMaxResults(BATCH_SIZE);
+      if (jsonModel != null) {
+        query.setParameter("model", jsonModel);
+      }
+      @SuppressWarnings("unchecked")
+      final List<Object[]> rows = query.getResultList();
+      for (Object[] row : rows) {
+        last = (Long) row[0];
+        final Long targetId =
+            extracted ? Long.valueOf(((Number) row[1]).longValue()) : toId(parse(row[1]), path);
+        if (targetId != null) {
+          em.persist(
+              toReference(ownerModel, last, new Key(ownerField, path, targetModel, targetId)));
+        }
+      }
+      em.flush();
+      em.clear();
+      if (rows.size() < BATCH_SIZE) {
+        break;
+      }
+    }
+
+    em.createQuery("UPDATE MetaJsonField self SET self.referencesKey = :key WHERE self.id = :id")
+        .setParameter("key", signature)
+        .setParameter("id", id)
+        .executeUpdate();
+  }
+
+  /**
+   * Remove the references of the given custom field.
+   *
+   * <p>The references indexed before the field was renamed or moved are removed as well.
+   *
+   * @param field the custom field
+   */
+  public void remove(MetaJsonField field) {
+    final String previous = field.getReferencesKey();
+    if (previous != null && !previous.equals(signature(field))) {
+      // model|modelField|name|type|targetModel|jsonModel, see signature()
+      final String[] parts = previous.split("\\|", -1);
+      if (parts.length == 6) {
+        remove(parts[0], parts[1], parts[2], parts[5].isEmpty() ? null : parts[5]);
+      }
+    }
+    remove(field.getModel(), field.getModelField(), field.getName(), getJsonModel(field));
+  }
+
+  private void remove(String ownerModel, String ownerField, String path, String jsonModel) {
+    final Query query =
+        JPA.em()
+            .createQuery(
+                "DELETE FROM MetaJsonReference self "
+                    + "WHERE self.ownerModel = :ownerModel AND self.ownerField = :ownerField "
+                    + "AND self.path = :path"
+                    + (jsonModel == null
+                        ? ""
+                        : " AND self.ownerId IN "
+                            + "(SELECT r.id FROM MetaJsonRecord r WHERE r.jsonModel = :model)"))
+            .setParameter("ownerModel", ownerModel)
+            .setParameter("ownerField", ownerField)
+            .setParameter("path", path);
+    if (jsonModel != null) {
+      query.setParameter("model", jsonModel);
+    }
+    query.executeUpdate();
+  }
+
+  /** Invalidate the cached custom field definitions. */
+  public void invalidate() {
+    fields.invalidateAll();
+  }
+
+  private List<Field> findFields(String model) {
+    return JPA.em()
+        .createQuery(
+            "SELECT self FROM MetaJsonField self WHERE self.model = :model "
+                + "AND self.type IN ('many-to-one', 'json-many-to-one')",
+            MetaJsonField.class)
+        .setParameter("model", model)
+        .getResultList()
+        .stream()
+        .map(Field::new)
+        .collect(Collectors.toList());
+  }
+
+  void onBeforeTransactionComplete(@Observes BeforeTransactionComplete event) {
+    // Not supported on Oracle
+    if (!enabled || DBHelper.isOracle()) {
+      return;
+    }
+
+    final Map<String, Map<Long, Set<Key>>> changes = new HashMap<>();
+
+    for (Model entity : new ArrayList<>(event.getUpdated())) {
+      collect(entity, false, changes);
+    }
+    for (Model entity : new ArrayList<>(event.getDeleted())) {
+      collect(entity, true, changes);
+    }
+
+    changes.forEach(this::apply);
+  }
+
+  private void collect(Model entity, boolean deleted, Map<String, Map<Long, Set<Key>>> changes) {
+    if (entity instanceof MetaJsonReference || entity.getId() == null) {
+      return;
+    }
+
+    final Class<?> entityClass = EntityHelper.getEntityClass(entity);
+    final String model = entityClass.getName();
+    final List<Field> all = fields.getUnchecked(model);
+    if (all.isEmpty()) {
+      return;
+    }
+
+    final Map<Long, Set<Key>> owners = changes.computeIfAbsent(model, k -> new LinkedHashMap<>());
+    if (deleted) {
+      owners.put(entity.getId(), null);
+      return;
+    }
+
+    final String jsonModel =
+        entity instanceof MetaJsonRecord ? ((MetaJsonRecord) entity).getJsonModel() : null;
+    final Mapper mapper = Mapper.of(entityClass);
+    final Map<String, JsonNode> values = new HashMap<>();
+    final Set<Key> keys = new HashSet<>();
+
+    for (Field field : all) {
+      if (!Objects.equals(jsonModel, field.jsonModel)) {
+        continue;
+      }
+      final Long targetId =
+          toId(
+              values.computeIfAbsent(field.modelField, name -> parse(mapper.get(entity, name))),
+              field.name);
+      if (targetId != null) {
+        keys.add(new Key(field.modelField, field.name, field.targetModel, targetId));
+      }
+    }
+
+    owners.put(entity.getId(), keys);
+  }
+
+  private Long toId(JsonNode json, String path) {
+    final JsonNode value = json.path(path).path("id");
+    if (value.canConvertToLong() || value.isTextual() && value.asLong(0) > 0) {
+      return value.asLong();
+    }
+    return null;
+  }
+
+  private JsonNode parse(Object value) {
+    if (value == null) {
+      return objectMapper.createObjectNode();
+    }
+    try {
+      return objectMapper.readTree(value.toString());
+    } catch (IOException e) {
+      return objectMapper.createObjectNode();
+    }
+  }
+
+  private void apply(String model, Map<Long, Set<Key>> owners) {
+    final EntityManager em = JPA.em();
+    final Map<Long, List<MetaJsonReference>> existing =
+        em
+            .createQuery(
+                "SELECT self FROM MetaJsonReference self "
+                    + "WHERE self.ownerModel = :model AND self.ownerId IN :ids",
+                MetaJsonReference.class)
+            .setParameter("model", model)
+            .setParameter("ids", owners.keySet())
+            .getResultList()
+            .stream()
+            .collect(Collectors.groupingBy(MetaJsonReference::getOwnerId));
+
+    owners.forEach(
+        (id, keys) -> {
+          final Set<Key> missing = keys == null ? new HashSet<>() : new HashSet<>(keys);
+          for (MetaJsonReference reference : existing.getOrDefault(id, Collections.emptyList())) {
+            if (!missing.remove(new Key(reference))) {
+              em.remove(reference);
+            }
+          }
+          missing.forEach(key -> em.persist(toReference(model, id, key)));
+        });
+  }
+
+  private MetaJsonReference toReference(String ownerModel, Long ownerId, Key key) {
+    final MetaJsonReference reference = new MetaJsonReference();
+    reference.setOwnerModel(ownerModel);
+    reference.setOwnerId(ownerId);
+    reference.setOwnerField(key.ownerField);
+    reference.setPath(key.path);
+    reference.setTargetModel(key.targetModel);
+    reference.setTargetId(key.targetId);
+    return reference;
+  }
+}
@@ -31,6 +31,7 @@ import com.axelor.inject.Beans;
 import com.axelor.meta.db.MetaJsonField;
 import com.axelor.meta.db.MetaJsonRecord;
 import com.axelor.rpc.Request;
+import com.google.common.collect.Lists;
 import com.google.inject.persist.Transactional;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -38,6 +39,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.persistence.Query;
@@ -45,6 +47,10 @@ import javax.persistence.Query;
 @Singleton
 public class MetaJsonReferenceUpdater {
 
+  private static final int CHUNK_SIZE = 1000;
+
+  @Inject private MetaJsonReferenceIndex referenceIndex;
+
   void handleOnSave(@Observes @Named(RequestEvent.SAVE) PostRequest event) {
 
     // Not supported on Oracle
@@ -77,17 +83,28 @@ public class MetaJsonReferenceUpdater {
       return;
     }
 
-    List<? extends Model> records =
+    final List<Long> ids =
         items.stream()
             .map(Map.class::cast)
             .filter(map -> map.get("id") != null)
             .filter(map -> nameChanged(field, map))
             .map(map -> Long.parseLong(map.get("id").toString()))
-            .map(id -> JPA.em().find(beanClass, id))
-            .filter(Objects::nonNull)
             .collect(Collectors.toList());
 
-    updateJsonFields(records);
+    if (ids.isEmpty()) {
+      return;
+    }
+
+    // propagate names in background, once the changes are committed
+    referenceIndex.submit(
+        () ->
+            JPA.runInTransaction(
+                () ->
+                    updateJsonFields(
+                        ids.stream()
+                            .map(id -> JPA.em().find(beanClass, id))
+                            .filter(Objects::nonNull)
+                            .collect(Collectors.toList()))));
   }
 
   private boolean nameChanged(Property field, Map<?, ?> map) {
@@ -135,22 +152,53 @@ public class MetaJsonReferenceUpdater {
     final List<MetaJsonField> fields =
         fieldRepository.all().filter(filter).bind("model", model).fetch();
 
+    final List<MetaJsonField> indexed = new ArrayList<>();
     for (MetaJsonField field : fields) {
-      String queryString =
-          String.format(
-              "UPDATE %s self SET self.%s = json_set(self.%s, '%s.%s', :value) WHERE json_extract(self.%s, '%s', 'id') = :id",
-              field.getModel(),
-              field.getModelField(),
-              field.getModelField(),
-              field.getName(),
-              nameField.getName(),
-              field.getModelField(),
-              field.getName());
-
-      Query query = JPA.em().createQuery(queryString);
-      query.setParameter("value", nameField.get(bean));
-      query.setParameter("id", bean.getId().toString());
-      query.executeUpdate();
+      if (referenceIndex.isReady(field)) {
+        indexed.add(field);
+      } else {
+        updateJsonField(field, nameField, bean, null);
+      }
+    }
+
+    if (indexed.isEmpty()) {
+      return;
+    }
+
+    // only update the records known to reference the bean
+    referenceIndex
+        .findOwners(indexed, entityClass.getName(), bean.getId())
+        .forEach(
+            (field, ids) -> {
+              for (List<Long> chunk : Lists.partition(ids, CHUNK_SIZE)) {
+                updateJsonField(field, nameField, bean, chunk);
+              }
+            });
+  }
+
+  private <T extends Model> void updateJsonField(
+      MetaJsonField field, Property nameField, T bean, List<Long> ids) {
+    String queryString =
+        String.format(
+            "UPDATE %s self SET self.%s = json_set(self.%s, '%s.%s', :value) WHERE json_extract(self.%s, '%s', 'id') = :id",
+            field.getModel(),
+            field.getModelField(),
+            field.getModelField(),
+            field.getName(),
+            nameField.getName(),
+            field.getModelField(),
+            field.getName());
+
+    if (ids != null) {
+      queryString += " AND self.id IN :ids";
+    }
+
+    Query query = JPA.em().createQuery(queryString);
+    query.setParameter("value", nameField.get(bean));
+    query.setParameter("id", bean.getId().toString());
+    if (ids != null) {
+      query.setParameter("ids", ids);
     }
+    query.executeUpdate();
   }
 }
@@ -17,6 +17,8 @@
  */
 package com.axelor.meta.loader;
 
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
 import com.axelor.auth.AuditableRunner;
 import com.axelor.auth.AuthService;
 import com.axelor.auth.db.AuditableModel;
@@ -32,6 +34,7 @@ import com.axelor.event.NamedLiteral;
 import com.axelor.events.ModuleChanged;
 import com.axelor.inject.Beans;
 import com.axelor.meta.MetaScanner;
+import com.axelor.meta.MetaStore;
 import com.axelor.meta.db.MetaModule;
 import com.axelor.meta.db.repo.MetaActionMenuRepository;
 import com.axelor.meta.db.repo.MetaActionRepository;
@@ -146,6 +149,9 @@ public class ModuleManager {
       this.encryptPasswords();
       this.doCleanUp();
     }
+    if (AppSettings.get().getBoolean(AvailableAppSettings.ACTION_CACHE_PRELOAD, false)) {
+      MetaStore.preloadActions();
+    }
     ViewWatcher.getInstance().start();
   }
 
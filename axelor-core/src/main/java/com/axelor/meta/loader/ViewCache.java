@@ -0,0 +1,213 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.loader;
+
+import com.axelor.db.Model;
+import com.axelor.db.tenants.TenantResolver;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+
+/**
+ * Cache of parsed views.
+ *
+ * <p>The parsed object trees are keyed by the tenant, id and version of the record they are parsed
+ * from, so an updated record is parsed again. The cached trees are never exposed: every lookup
+ * returns a deep copy, which callers are free to modify.
+ */
+final class ViewCache {
+
+  private static final int MAX_SIZE = 5000;
+
+  private static final String SCHEMA_PACKAGE = "com.axelor.meta.schema.";
+
+  private static final Cache<String, Object> CACHE =
+      CacheBuilder.newBuilder().maximumSize(MAX_SIZE).build();
+
+  private static final ClassValue<List<Field>> FIELDS =
+      new ClassValue<List<Field>>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+          final List<Field> fields = new ArrayList<>();
+          for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+              if (!Modifier.isStatic(field.getModifiers())) {
+                field.setAccessible(true);
+                fields.add(field);
+              }
+            }
+          }
+          return fields;
+        }
+      };
+
+  private ViewCache() {}
+
+  /**
+   * Get a copy of the object parsed from the given record.
+   *
+   * @param record the record holding the xml
+   * @param parser the parser to call if the record is not cached yet
+   * @return a copy of the parsed object
+   * @throws Exception if parsing fails
+   */
+  @SuppressWarnings("unchecked")
+  static <T> T get(Model record, Callable<T> parser) throws Exception {
+    final String key =
+        TenantResolver.currentTenantIdentifier()
+            + ":"
+            + record.getClass().getSimpleName()
+            + ":"
+            + record.getId()
+            + ":"
+            + record.getVersion();
+    try {
+      return (T) copy(CACHE.get(key, parser));
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    }
+  }
+
+  /**
+   * Get the instance fields of the given type, including the inherited ones.
+   *
+   * @param type the type
+   * @return the accessible fields
+   */
+  static List<Field> fields(Class<?> type) {
+    return FIELDS.get(type);
+  }
+
+  /** Clear the cache. */
+  static void clear() {
+    CACHE.invalidateAll();
+  }
+
+  /**
+   * Check whether the given object tree has an object matching the given predicate.
+   *
+   * @param value the root object
+   * @param predicate the predicate to test schema objects with
+   * @return true if any schema object of the tree matches
+   */
+  static boolean anyMatch(Object value, Predicate<Object> predicate) {
+    return anyMatch(value, predicate, Collections.newSetFromMap(new IdentityHashMap<>()));
+  }
+
+  private static boolean anyMatch(Object value, Predicate<Object> predicate, Set<Object> seen) {
+    if (value == null || !isMutable(value.getClass()) || !seen.add(value)) {
+      return false;
+    }
+    if (value instanceof Collection) {
+      for (Object item : (Collection<?>) value) {
+        if (anyMatch(item, predicate, seen)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    if (value instanceof Map) {
+      for (Object item : ((Map<?, ?>) value).values()) {
+        if (anyMatch(item, predicate, seen)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    if (predicate.test(value)) {
+      return true;
+    }
+    try {
+      for (Field field : FIELDS.get(value.getClass())) {
+        if (anyMatch(field.get(value), predicate, seen)) {
+          return true;
+        }
+      }
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    }
+    return false;
+  }
+
+  static Object copy(Object value) {
+    return copy(value, new IdentityHashMap<>());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Object copy(Object value, Map<Object, Object> copies) {
+    if (value == null || !isMutable(value.getClass())) {
+      return value;
+    }
+
+    final Object existing = copies.get(value);
+    if (existing != null) {
+      return existing;
+    }
+
+    if (value instanceof List) {
+      final List<Object> list = new ArrayList<>(((List<?>) value).size());
+      copies.put(value, list);
+      for (Object item : (Collection<?>) value) {
+        list.add(copy(item, copies));
+      }
+      return list;
+    }
+
+    if (value instanceof Map) {
+      final Map<Object, Object> map =
+          value instanceof LinkedHashMap ? new LinkedHashMap<>() : new HashMap<>();
+      copies.put(value, map);
+      ((Map<Object, Object>) value).forEach((k, v) -> map.put(k, copy(v, copies)));
+      return map;
+    }
+
+    try {
+      final Constructor<?> constructor = value.getClass().getDeclaredConstructor();
+      constructor.setAccessible(true);
+      final Object copy = constructor.newInstance();
+      copies.put(value, copy);
+      for (Field field : FIELDS.get(value.getClass())) {
+        field.set(copy, copy(field.get(value), copies));
+      }
+      return copy;
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Unable to copy: " + value.getClass(), e);
+    }
+  }
+
+  private static boolean isMutable(Class<?> type) {
+    return !Enum.class.isAssignableFrom(type)
+        && (List.class.isAssignableFrom(type)
+            || Map.class.isAssignableFrom(type)
+            || type.getName().startsWith(SCHEMA_PACKAGE));
+  }
+}
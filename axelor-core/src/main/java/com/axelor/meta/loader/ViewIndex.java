@@ -0,0 +1,330 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.loader;
+
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
+import com.axelor.db.JPA;
+import com.axelor.db.tenants.TenantResolver;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory index used to resolve views without querying the database.
+ *
+ * <p>The index holds the lookup columns of all the non-extension views (by name and by type and
+ * model, ordered by priority), the custom views and the model ids. It's built with a few queries
+ * the first time a view is resolved and dropped whenever a view, custom view or model is saved or
+ * deleted, or views are reloaded. Each tenant has its own index, as ids are only valid in the
+ * tenant database.
+ *
+ * <p>Changes made by other nodes of a cluster don't reach the local interceptor, so the index also
+ * records the row count, the max id and the last update time of the indexed tables. They are
+ * checked again at most every <code>view.index.check-interval</code> seconds (10 by default, a
+ * negative value disables the check) and the index is dropped if any of them changed.
+ */
+public final class ViewIndex {
+
+  private static final Map<String, Holder> HOLDERS = new ConcurrentHashMap<>();
+
+  private static final long CHECK_INTERVAL =
+      AppSettings.get().getInt(AvailableAppSettings.VIEW_INDEX_CHECK_INTERVAL, 10) * 1000L;
+
+  private static final String[] TABLES = {"MetaView", "MetaViewCustom", "MetaModel"};
+
+  private final Map<String, List<ViewEntry>> byName = new HashMap<>();
+  private final Map<String, List<ViewEntry>> byTypeModel = new HashMap<>();
+  private final Map<Long, List<CustomEntry>> customsByUser = new HashMap<>();
+  private final List<CustomEntry> sharedCustoms = new ArrayList<>();
+  private final Map<String, Long> models = new HashMap<>();
+
+  private final List<Object> stamp;
+  private volatile long checked = System.currentTimeMillis();
+
+  private ViewIndex(List<Object> stamp) {
+    this.stamp = stamp;
+  }
+
+  /** The index of a tenant. */
+  private static final class Holder {
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile ViewIndex instance;
+  }
+
+  private static Holder holder() {
+    final String tenant = String.valueOf(TenantResolver.currentTenantIdentifier());
+    return HOLDERS.computeIfAbsent(tenant, key -> new Holder());
+  }
+
+  // the holder of the current tenant, with its index dropped if the tables have changed
+  private static Holder current() {
+    final Holder holder = holder();
+    final ViewIndex index = holder.instance;
+    if (index != null && index.isStale(CHECK_INTERVAL)) {
+      // updated by another node
+      drop(holder);
+    }
+    return holder;
+  }
+
+  private static final class ViewEntry {
+
+    private final long id;
+    private final String model;
+    private final String module;
+    private final int priority;
+    private final Set<Long> groups = new HashSet<>();
+
+    private ViewEntry(long id, String model, String module, Integer priority) {
+      this.id = id;
+      this.model = model;
+      this.module = module;
+      this.priority = priority == null ? 0 : priority;
+    }
+
+    private boolean matches(String model, String module, Long group) {
+      return (model == null || model.equals(this.model))
+          && (module == null || module.equals(this.module))
+          && (group == null ? groups.isEmpty() : groups.contains(group));
+    }
+  }
+
+  private static final class CustomEntry {
+
+    private final long id;
+    private final String name;
+    private final String type;
+    private final String model;
+
+    private CustomEntry(long id, String name, String type, String model) {
+      this.id = id;
+      this.name = name;
+      this.type = type;
+      this.model = model;
+    }
+
+    private boolean matches(String name, String type, String model) {
+      return (name == null || name.equals(this.name))
+          && (type == null || type.equals(this.type))
+          && (model == null || model.equals(this.model));
+    }
+  }
+
+  /**
+   * Get the index of the current tenant, building it if required.
+   *
+   * @return the view index
+   */
+  static ViewIndex get() {
+    final Holder holder = current();
+    ViewIndex index = holder.instance;
+    if (index != null) {
+      return index;
+    }
+    synchronized (holder) {
+      index = holder.instance;
+      if (index == null) {
+        final long generation = holder.generation.get();
+        index = build();
+        // don't keep it if views have changed while building
+        if (generation == holder.generation.get()) {
+          holder.instance = index;
+        }
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Get the generation of the index of the current tenant, incremented each time the index is
+   * dropped.
+   *
+   * @return the current generation
+   */
+  public static long getGeneration() {
+    return current().generation.get();
+  }
+
+  /** Drop the index of the current tenant, it will be rebuilt on next use. */
+  public static void invalidate() {
+    drop(holder());
+  }
+
+  /** Drop the indexes of all the tenants, for example when views are reloaded. */
+  public static void invalidateAll() {
+    HOLDERS.values().forEach(ViewIndex::drop);
+  }
+
+  private static void drop(Holder holder) {
+    holder.generation.incrementAndGet();
+    holder.instance = null;
+  }
+
+  private static String typeModelKey(String type, String model) {
+    return type + ":" + model;
+  }
+
+  /**
+   * Check whether the indexed tables have changed since the index was built.
+   *
+   * @param interval the minimum time in milliseconds between two checks, negative to never check
+   * @return true if the tables have changed
+   */
+  boolean isStale(long interval) {
+    final long now = System.currentTimeMillis();
+    if (interval < 0 || now - checked < interval) {
+      return false;
+    }
+    checked = now;
+    return !stamp.equals(stamp());
+  }
+
+  private static List<Object> stamp() {
+    final List<Object> stamp = new ArrayList<>();
+    for (String table : TABLES) {
+      final String query =
+          "SELECT COUNT(self.id), MAX(self.id), MAX(self.updatedOn) FROM " + table + " self";
+      final Object[] row = JPA.em().createQuery(query, Object[].class).getSingleResult();
+      stamp.addAll(Arrays.asList(row));
+    }
+    return stamp;
+  }
+
+  private static ViewIndex build() {
+    // taken first, so changes made while building are seen by the next check
+    final ViewIndex index = new ViewIndex(stamp());
+    final Map<Long, ViewEntry> views = new LinkedHashMap<>();
+
+    final List<Object[]> rows =
+        JPA.em()
+            .createQuery(
+                "SELECT self.id, self.name, self.type, self.model, self.module, self.priority, "
+                    + "g.id FROM MetaView self LEFT JOIN self.groups g "
+                    + "WHERE COALESCE(self.extension, FALSE) = FALSE",
+                Object[].class)
+            .getResultList();
+
+    for (Object[] row : rows) {
+      final Long id = (Long) row[0];
+      ViewEntry entry = views.get(id);
+      if (entry == null) {
+        entry = new ViewEntry(id, (String) row[3], (String) row[4], (Integer) row[5]);
+        views.put(id, entry);
+        final String key = typeModelKey((String) row[2], (String) row[3]);
+        index.byName.computeIfAbsent((String) row[1], k -> new ArrayList<>()).add(entry);
+        index.byTypeModel.computeIfAbsent(key, k -> new ArrayList<>()).add(entry);
+      }
+      if (row[6] != null) {
+        entry.groups.add((Long) row[6]);
+      }
+    }
+
+    final Comparator<ViewEntry> order =
+        Comparator.<ViewEntry>comparingInt(e -> -e.priority).thenComparingLong(e -> e.id);
+    index.byName.values().forEach(list -> list.sort(order));
+    index.byTypeModel.values().forEach(list -> list.sort(order));
+
+    final List<Object[]> customs =
+        JPA.em()
+            .createQuery(
+                "SELECT self.id, self.name, self.type, self.model, self.user.id, self.shared "
+                    + "FROM MetaViewCustom self ORDER BY self.id",
+                Object[].class)
+            .getResultList();
+
+    for (Object[] row : customs) {
+      final CustomEntry entry =
+          new CustomEntry((Long) row[0], (String) row[1], (String) row[2], (String) row[3]);
+      index.customsByUser.computeIfAbsent((Long) row[4], k -> new ArrayList<>()).add(entry);
+      if (Boolean.TRUE.equals(row[5])) {
+        index.sharedCustoms.add(entry);
+      }
+    }
+
+    JPA.em()
+        .createQuery("SELECT self.fullName, self.id FROM MetaModel self", Object[].class)
+        .getResultList()
+        .forEach(row -> index.models.put((String) row[0], (Long) row[1]));
+
+    return index;
+  }
+
+  /**
+   * Find the id of the view with highest priority matching the given parameters.
+   *
+   * <p>Either name or type and model are required. Other parameters are matched only if not null,
+   * except the group: a null group matches views without groups.
+   *
+   * @return the view id or null if not found
+   */
+  Long findView(String name, String type, String model, String module, Long group) {
+    final List<ViewEntry> candidates =
+        name == null ? byTypeModel.get(typeModelKey(type, model)) : byName.get(name);
+    if (candidates == null) {
+      return null;
+    }
+    for (ViewEntry entry : candidates) {
+      if (entry.matches(model, module, group)) {
+        return entry.id;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Find the id of the custom view of the given user, or else of a shared custom view.
+   *
+   * @return the custom view id or null if not found
+   */
+  Long findCustomView(String name, String type, String model, Long user) {
+    final Long id = findCustomView(customsByUser.get(user), name, type, model);
+    return id == null ? findCustomView(sharedCustoms, name, type, model) : id;
+  }
+
+  private static Long findCustomView(
+      List<CustomEntry> candidates, String name, String type, String model) {
+    if (candidates != null) {
+      for (CustomEntry entry : candidates) {
+        if (entry.matches(name, type, model)) {
+          return entry.id;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Find the id of the given model.
+   *
+   * @param fullName the fully qualified model name
+   * @return the model id or null if not found
+   */
+  Long findModel(String fullName) {
+    return models.get(fullName);
+  }
+}
@@ -54,6 +54,7 @@ import com.axelor.meta.schema.views.Panel;
 import com.axelor.meta.schema.views.PanelField;
 import com.axelor.meta.schema.views.PanelRelated;
 import com.axelor.meta.schema.views.Selection;
+import com.axelor.meta.service.MaterializedDataSets;
 import com.axelor.meta.service.MetaService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -125,8 +126,20 @@ public class ViewLoader extends AbstractParallelLoader {
   }
 
   @Override
-  @Transactional
   protected void doLast(Module module, boolean update) {
+    resolveViews(module);
+
+    // final views are generated concurrently, outside of the transaction
+    generateFinalViews(update);
+
+    // views may have been updated in bulk, without version change
+    ViewCache.clear();
+    ViewIndex.invalidateAll();
+    Beans.get(MaterializedDataSets.class).invalidate();
+  }
+
+  @Transactional
+  void resolveViews(Module module) {
     // generate default views
     importDefault(module);
 
@@ -140,7 +153,6 @@ public class ViewLoader extends AbstractParallelLoader {
 
     migrateViews();
     linkMissingGroups();
-    generateFinalViews(update);
   }
 
   private void migrateViews() {
@@ -183,7 +195,7 @@ public class ViewLoader extends AbstractParallelLoader {
 
   private void generateFinalViews(boolean update) {
     try {
-      finalViewGenerator.generate(viewsToGenerate, update);
+      finalViewGenerator.generateParallel(viewsToGenerate, update);
     } finally {
       viewsToGenerate.clear();
     }
@@ -200,6 +212,9 @@ public class ViewLoader extends AbstractParallelLoader {
       process(file.toUri().toURL(), module, true);
     } finally {
       doCleanUp();
+      ViewCache.clear();
+      ViewIndex.invalidateAll();
+      Beans.get(MaterializedDataSets.class).invalidate();
     }
   }
 
@@ -339,6 +354,7 @@ public class ViewLoader extends AbstractParallelLoader {
     entity.setModel(modelName);
     entity.setModule(module.getName());
     entity.setXml(xml);
+    entity.setSnapshot(ViewSnapshot.of(view, xml));
     entity.setComputed(null);
     final Set<String> missingGroups = addGroups(entity::addGroup, view.getGroups());
     entity.setExtension(view.getExtension());
@@ -541,6 +557,7 @@ public class ViewLoader extends AbstractParallelLoader {
     Mapper mapper = Mapper.of(klass);
 
     entity.setXml(XMLViews.toXml(action, true));
+    entity.setSnapshot(ViewSnapshot.of(action, entity.getXml()));
 
     String model = (String) mapper.get(action, "model");
     entity.setModel(model);
@@ -0,0 +1,406 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.loader;
+
+import com.axelor.common.VersionUtils;
+import com.axelor.meta.schema.ObjectViews;
+import com.axelor.meta.schema.actions.Action;
+import com.axelor.meta.schema.views.AbstractView;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.namespace.QName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Binary snapshots of parsed views and actions.
+ *
+ * <p>A snapshot is the parsed object tree of the stored xml, encoded field by field. It's built
+ * when a view or action is stored, and used instead of parsing the xml again when the stored
+ * record is read.
+ *
+ * <p>Each snapshot has a header with the platform version and a digest of the xml it was built
+ * from. If the schema classes change with a new version, or if the xml is updated without updating
+ * the snapshot, the snapshot is ignored and the xml is parsed instead.
+ */
+final class ViewSnapshot {
+
+  private static final Logger log = LoggerFactory.getLogger(ViewSnapshot.class);
+
+  private static final String FORMAT = "axelor-views:1:" + VersionUtils.getVersion().version;
+
+  private static final String SCHEMA_PACKAGE = "com.axelor.meta.schema.";
+
+  private static final int NULL = 0;
+  private static final int STRING = 1;
+  private static final int TRUE = 2;
+  private static final int FALSE = 3;
+  private static final int INTEGER = 4;
+  private static final int LONG = 5;
+  private static final int DOUBLE = 6;
+  private static final int ENUM = 7;
+  private static final int LIST = 8;
+  private static final int MAP = 9;
+  private static final int OBJECT = 10;
+  private static final int REFERENCE = 11;
+  private static final int QNAME = 12;
+
+  private static final ClassValue<Map<String, Field>> FIELDS =
+      new ClassValue<Map<String, Field>>() {
+        @Override
+        protected Map<String, Field> computeValue(Class<?> type) {
+          final Map<String, Field> fields = new HashMap<>();
+          for (Field field : ViewCache.fields(type)) {
+            fields.put(key(field), field);
+          }
+          return fields;
+        }
+      };
+
+  private ViewSnapshot() {}
+
+  private static String key(Field field) {
+    return field.getDeclaringClass().getName() + "#" + field.getName();
+  }
+
+  private static String digest(String xml) {
+    return Hashing.murmur3_128().hashString(xml, StandardCharsets.UTF_8).toString();
+  }
+
+  /**
+   * Create the snapshot of a parsed view or action.
+   *
+   * <p>The given object is encoded as is, so it must be the object the stored xml was generated
+   * from, not parsed again.
+   *
+   * @param obj the parsed view or action
+   * @param xml the stored xml generated from the object
+   * @return the snapshot or null if it can't be created
+   */
+  static byte[] of(Object obj, String xml) {
+    if (obj == null || xml == null) {
+      return null;
+    }
+    final ObjectViews views = new ObjectViews();
+    if (obj instanceof Action) {
+      views.setActions(ImmutableList.of((Action) obj));
+    } else if (obj instanceof AbstractView) {
+      views.setViews(ImmutableList.of((AbstractView) obj));
+    } else {
+      throw new IllegalArgumentException("Unsupported type: " + obj.getClass().getName());
+    }
+    try {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        out.writeUTF(FORMAT);
+        out.writeUTF(digest(xml));
+        new Writer(out).write(views);
+      }
+      return bytes.toByteArray();
+    } catch (Exception e) {
+      log.warn("Unable to create view snapshot: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Read the given snapshot.
+   *
+   * @param snapshot the snapshot
+   * @param xml the stored xml the snapshot should match
+   * @return the object views or null if the snapshot is missing or stale
+   */
+  static ObjectViews read(byte[] snapshot, String xml) {
+    if (snapshot == null || xml == null) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+      if (!FORMAT.equals(in.readUTF()) || !digest(xml).equals(in.readUTF())) {
+        return null;
+      }
+      return (ObjectViews) new Reader(in).read();
+    } catch (Exception e) {
+      log.debug("Unable to read view snapshot: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  private static void writeSize(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int readSize(DataInputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      final int b = in.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed size");
+  }
+
+  private static final class Writer {
+
+    private final DataOutputStream out;
+    private final Map<String, Integer> names = new HashMap<>();
+    private final Map<Object, Integer> objects = new IdentityHashMap<>();
+
+    private Writer(DataOutputStream out) {
+      this.out = out;
+    }
+
+    private void writeString(String value) throws IOException {
+      final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeSize(out, bytes.length);
+      out.write(bytes);
+    }
+
+    // class and field names are written once, then referenced by index
+    private void writeName(String name) throws IOException {
+      final Integer index = names.get(name);
+      if (index != null) {
+        writeSize(out, index + 1);
+        return;
+      }
+      names.put(name, names.size());
+      writeSize(out, 0);
+      writeString(name);
+    }
+
+    private void write(Object value) throws IOException {
+      if (value == null) {
+        out.writeByte(NULL);
+      } else if (value instanceof String) {
+        out.writeByte(STRING);
+        writeString((String) value);
+      } else if (value instanceof Boolean) {
+        out.writeByte((Boolean) value ? TRUE : FALSE);
+      } else if (value instanceof Integer) {
+        out.writeByte(INTEGER);
+        out.writeInt((Integer) value);
+      } else if (value instanceof Long) {
+        out.writeByte(LONG);
+        out.writeLong((Long) value);
+      } else if (value instanceof Double) {
+        out.writeByte(DOUBLE);
+        out.writeDouble((Double) value);
+      } else if (value instanceof Enum) {
+        out.writeByte(ENUM);
+        writeName(((Enum<?>) value).getDeclaringClass().getName());
+        writeName(((Enum<?>) value).name());
+      } else if (value instanceof QName) {
+        final QName name = (QName) value;
+        out.writeByte(QNAME);
+        writeString(name.getNamespaceURI());
+        writeString(name.getLocalPart());
+        writeString(name.getPrefix());
+      } else if (objects.containsKey(value)) {
+        out.writeByte(REFERENCE);
+        writeSize(out, objects.get(value));
+      } else {
+        writeObject(value);
+      }
+    }
+
+    private void writeObject(Object value) throws IOException {
+      objects.put(value, objects.size());
+
+      if (value instanceof List) {
+        final List<?> list = (List<?>) value;
+        out.writeByte(LIST);
+        writeSize(out, list.size());
+        for (Object item : list) {
+          write(item);
+        }
+        return;
+      }
+
+      if (value instanceof Map) {
+        final Map<?, ?> map = (Map<?, ?>) value;
+        out.writeByte(MAP);
+        writeSize(out, map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          write(entry.getKey());
+          write(entry.getValue());
+        }
+        return;
+      }
+
+      final Class<?> type = value.getClass();
+      if (!type.getName().startsWith(SCHEMA_PACKAGE)) {
+        throw new IllegalArgumentException("Unsupported type: " + type.getName());
+      }
+
+      final List<Field> fields = ViewCache.fields(type);
+      out.writeByte(OBJECT);
+      writeName(type.getName());
+      writeSize(out, fields.size());
+      try {
+        for (Field field : fields) {
+          writeName(key(field));
+          write(field.get(value));
+        }
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+
+  private static final class Reader {
+
+    private final DataInputStream in;
+    private final List<String> names = new ArrayList<>();
+    private final List<Object> objects = new ArrayList<>();
+
+    private Reader(DataInputStream in) {
+      this.in = in;
+    }
+
+    private String readString() throws IOException {
+      final byte[] bytes = new byte[readSize(in)];
+      in.readFully(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String readName() throws IOException {
+      final int index = readSize(in);
+      if (index > 0) {
+        return names.get(index - 1);
+      }
+      final String name = readString();
+      names.add(name);
+      return name;
+    }
+
+    private Object read() throws IOException, ReflectiveOperationException {
+      final int tag = in.readUnsignedByte();
+      switch (tag) {
+        case NULL:
+          return null;
+        case STRING:
+          return readString();
+        case TRUE:
+          return Boolean.TRUE;
+        case FALSE:
+          return Boolean.FALSE;
+        case INTEGER:
+          return in.readInt();
+        case LONG:
+          return in.readLong();
+        case DOUBLE:
+          return in.readDouble();
+        case ENUM:
+          return readEnum();
+        case QNAME:
+          return new QName(readString(), readString(), readString());
+        case REFERENCE:
+          return objects.get(readSize(in));
+        case LIST:
+          return readList();
+        case MAP:
+          return readMap();
+        case OBJECT:
+          return readObject();
+        default:
+          throw new IOException("Unknown tag: " + tag);
+      }
+    }
+
+    // only schema types are ever written, don't load anything else from the stored bytes
+    private Class<?> readType() throws IOException, ClassNotFoundException {
+      final String name = readName();
+      if (!name.startsWith(SCHEMA_PACKAGE)) {
+        throw new IOException("Unsupported type: " + name);
+      }
+      return Class.forName(name, false, ViewSnapshot.class.getClassLoader());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readEnum() throws IOException, ClassNotFoundException {
+      final Class type = readType();
+      if (!type.isEnum()) {
+        throw new IOException("Not an enum: " + type.getName());
+      }
+      return Enum.valueOf(type, readName());
+    }
+
+    private Object readList() throws IOException, ReflectiveOperationException {
+      final int size = readSize(in);
+      final List<Object> list = new ArrayList<>(size);
+      objects.add(list);
+      for (int i = 0; i < size; i++) {
+        list.add(read());
+      }
+      return list;
+    }
+
+    private Object readMap() throws IOException, ReflectiveOperationException {
+      final int size = readSize(in);
+      final Map<Object, Object> map = new LinkedHashMap<>();
+      objects.add(map);
+      for (int i = 0; i < size; i++) {
+        map.put(read(), read());
+      }
+      return map;
+    }
+
+    private Object readObject() throws IOException, ReflectiveOperationException {
+      final Class<?> type = readType();
+      if (type.isEnum() || type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+        throw new IOException("Unsupported type: " + type.getName());
+      }
+      final Constructor<?> constructor = type.getDeclaredConstructor();
+      constructor.setAccessible(true);
+      final Object value = constructor.newInstance();
+      objects.add(value);
+
+      final Map<String, Field> fields = FIELDS.get(type);
+      final int size = readSize(in);
+      for (int i = 0; i < size; i++) {
+        final String key = readName();
+        final Field field = fields.get(key);
+        if (field == null) {
+          throw new IOException("Unknown field: " + key);
+        }
+        field.set(value, read());
+      }
+      return value;
+    }
+  }
+}
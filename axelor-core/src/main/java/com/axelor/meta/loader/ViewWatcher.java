@@ -249,6 +249,8 @@ public final class ViewWatcher {
                   try {
                     moduleManager.update(pendingModules, pendingPaths);
                     MetaStore.clear();
+                    ViewCache.clear();
+                    ViewIndex.invalidateAll();
                     I18nBundle.invalidate();
                   } catch (Exception e) {
                     log.error(e.getMessage(), e);
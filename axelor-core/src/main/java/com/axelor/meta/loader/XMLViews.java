@@ -27,20 +27,21 @@ import com.axelor.auth.db.repo.GroupRepository;
 import com.axelor.common.ObjectUtils;
 import com.axelor.common.StringUtils;
 import com.axelor.db.JPA;
+import com.axelor.db.Model;
+import com.axelor.db.ParallelTransactionExecutor;
 import com.axelor.db.Query;
 import com.axelor.db.internal.DBHelper;
 import com.axelor.inject.Beans;
 import com.axelor.meta.db.MetaAction;
-import com.axelor.meta.db.MetaModel;
 import com.axelor.meta.db.MetaView;
 import com.axelor.meta.db.MetaViewCustom;
 import com.axelor.meta.db.repo.MetaActionRepository;
-import com.axelor.meta.db.repo.MetaModelRepository;
 import com.axelor.meta.db.repo.MetaViewCustomRepository;
 import com.axelor.meta.db.repo.MetaViewRepository;
 import com.axelor.meta.schema.ObjectViews;
 import com.axelor.meta.schema.actions.Action;
 import com.axelor.meta.schema.views.AbstractView;
+import com.axelor.meta.schema.views.AbstractWidget;
 import com.axelor.meta.schema.views.Position;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeName;
@@ -55,6 +56,8 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Resources;
 import com.google.inject.persist.Transactional;
 import java.io.IOException;
@@ -63,11 +66,14 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -78,6 +84,9 @@ import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -129,10 +138,19 @@ public class XMLViews {
     "com.sun.xml.bind.indentString"
   };
 
-  private static Marshaller marshaller;
-  private static Unmarshaller unmarshaller;
+  private static final boolean RUNTIME_VALIDATION =
+      AppSettings.get().getBoolean(AvailableAppSettings.VIEW_RUNTIME_VALIDATION, true);
+
+  private static JAXBContext context;
+  private static Schema schema;
   private static DocumentBuilderFactory documentBuilderFactory;
 
+  // marshallers and unmarshallers are not thread-safe, use one per thread
+  private static final ThreadLocal<Marshaller> MARSHALLER = new ThreadLocal<>();
+  private static final ThreadLocal<Unmarshaller> UNMARSHALLER = new ThreadLocal<>();
+  private static final ThreadLocal<Unmarshaller> TRUSTED_UNMARSHALLER = new ThreadLocal<>();
+  private static final ThreadLocal<DocumentBuilder> DOCUMENT_BUILDER = new ThreadLocal<>();
+
   private static final XPathFactory XPATH_FACTORY = XPathFactory.newInstance();
   private static final NamespaceContext NS_CONTEXT =
       new NamespaceContext() {
@@ -184,32 +202,14 @@ public class XMLViews {
   private XMLViews() {}
 
   private static void init() throws JAXBException, SAXException {
-    if (unmarshaller != null) {
+    if (context != null) {
       return;
     }
 
-    JAXBContext context = JAXBContext.newInstance(ObjectViews.class);
-    unmarshaller = context.createUnmarshaller();
-    marshaller = context.createMarshaller();
-    marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-    marshaller.setProperty(
-        Marshaller.JAXB_SCHEMA_LOCATION,
-        ObjectViews.NAMESPACE + " " + ObjectViews.NAMESPACE + "/" + REMOTE_SCHEMA);
-
-    for (String name : INDENT_PROPERTIES) {
-      try {
-        marshaller.setProperty(name, INDENT_STRING);
-        break;
-      } catch (Exception e) {
-        log.info("JAXB marshaller doesn't support property: {}", name);
-      }
-    }
+    context = JAXBContext.newInstance(ObjectViews.class);
 
     SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-    Schema schema = schemaFactory.newSchema(Resources.getResource(LOCAL_SCHEMA));
-
-    unmarshaller.setSchema(schema);
-    marshaller.setSchema(schema);
+    schema = schemaFactory.newSchema(Resources.getResource(LOCAL_SCHEMA));
 
     // find supported views
     JsonSubTypes types = AbstractView.class.getAnnotation(JsonSubTypes.class);
@@ -246,39 +246,94 @@ public class XMLViews {
     }
   }
 
-  public static ObjectViews unmarshal(InputStream stream) throws JAXBException {
-    synchronized (unmarshaller) {
-      return (ObjectViews) unmarshaller.unmarshal(stream);
+  private static Marshaller marshaller() throws JAXBException {
+    Marshaller marshaller = MARSHALLER.get();
+    if (marshaller != null) {
+      return marshaller;
     }
-  }
 
-  public static ObjectViews unmarshal(String xml) throws JAXBException {
-    Reader reader = new StringReader(prepareXML(xml));
+    marshaller = context.createMarshaller();
+    marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+    marshaller.setProperty(
+        Marshaller.JAXB_SCHEMA_LOCATION,
+        ObjectViews.NAMESPACE + " " + ObjectViews.NAMESPACE + "/" + REMOTE_SCHEMA);
 
-    synchronized (unmarshaller) {
-      return (ObjectViews) unmarshaller.unmarshal(reader);
+    for (String name : INDENT_PROPERTIES) {
+      try {
+        marshaller.setProperty(name, INDENT_STRING);
+        break;
+      } catch (Exception e) {
+        log.debug("JAXB marshaller doesn't support property: {}", name);
+      }
     }
-  }
 
-  public static ObjectViews unmarshal(Node node) throws JAXBException {
-    JAXBElement<ObjectViews> element;
+    marshaller.setSchema(schema);
+    MARSHALLER.set(marshaller);
+    return marshaller;
+  }
 
-    synchronized (unmarshaller) {
-      element = unmarshaller.unmarshal(node, ObjectViews.class);
+  private static Unmarshaller unmarshaller(boolean validate) throws JAXBException {
+    final ThreadLocal<Unmarshaller> local = validate ? UNMARSHALLER : TRUSTED_UNMARSHALLER;
+    Unmarshaller unmarshaller = local.get();
+    if (unmarshaller == null) {
+      unmarshaller = context.createUnmarshaller();
+      if (validate) {
+        unmarshaller.setSchema(schema);
+      }
+      local.set(unmarshaller);
     }
+    return unmarshaller;
+  }
 
+  public static ObjectViews unmarshal(InputStream stream) throws JAXBException {
+    return (ObjectViews) unmarshaller(true).unmarshal(stream);
+  }
+
+  public static ObjectViews unmarshal(String xml) throws JAXBException {
+    return unmarshal(xml, true);
+  }
+
+  /**
+   * Unmarshal the given xml fragment.
+   *
+   * @param xml the xml fragment
+   * @param validate whether to validate the xml against the schema
+   * @return the unmarshalled object views
+   * @throws JAXBException if the xml can't be unmarshalled
+   */
+  public static ObjectViews unmarshal(String xml, boolean validate) throws JAXBException {
+    Reader reader = new StringReader(prepareXML(xml));
+    return (ObjectViews) unmarshaller(validate).unmarshal(reader);
+  }
+
+  public static ObjectViews unmarshal(Node node) throws JAXBException {
+    JAXBElement<ObjectViews> element = unmarshaller(true).unmarshal(node, ObjectViews.class);
     return element.getValue();
   }
 
   public static void marshal(ObjectViews views, Writer writer) throws JAXBException {
-    synchronized (marshaller) {
-      marshaller.marshal(views, writer);
-    }
+    marshaller().marshal(views, writer);
+  }
+
+  /**
+   * Unmarshal the xml of a stored view or action.
+   *
+   * <p>The stored xml was already validated when loaded, so it's only validated again if <code>
+   * view.runtime-validation</code> is enabled (default).
+   */
+  private static ObjectViews unmarshalStored(String xml) throws JAXBException {
+    return unmarshal(xml, RUNTIME_VALIDATION);
   }
 
   public static Document parseXml(String xml)
       throws ParserConfigurationException, SAXException, IOException {
-    final DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+    DocumentBuilder documentBuilder = DOCUMENT_BUILDER.get();
+    if (documentBuilder == null) {
+      synchronized (documentBuilderFactory) {
+        documentBuilder = documentBuilderFactory.newDocumentBuilder();
+      }
+      DOCUMENT_BUILDER.set(documentBuilder);
+    }
     final InputSource is = new InputSource(new StringReader(prepareXML(xml)));
     return documentBuilder.parse(is);
   }
@@ -348,7 +403,7 @@ public class XMLViews {
     if (!xml.trim().startsWith("<?xml")) xml = prepareXML(xml);
 
     StringReader reader = new StringReader(xml);
-    return (ObjectViews) unmarshaller.unmarshal(reader);
+    return (ObjectViews) unmarshaller(true).unmarshal(reader);
   }
 
   /** Apply pending updates if auto-update watch is running. */
@@ -412,6 +467,42 @@ public class XMLViews {
         .fetchOne();
   }
 
+  private static MetaViewCustom findCustomView(
+      MetaViewCustomRepository views, ViewIndex index, String name, String type, String model) {
+    final User user = AuthUtils.getUser();
+    final Long id =
+        index.findCustomView(
+            StringUtils.isBlank(name) ? null : name,
+            StringUtils.isBlank(type) ? null : type,
+            StringUtils.isBlank(model) ? null : model,
+            user.getId());
+    final MetaViewCustom custom = id == null ? null : views.find(id);
+    if (id != null && custom == null) {
+      // removed without index update (bulk delete)
+      ViewIndex.invalidate();
+      return findCustomView(views, name, type, model);
+    }
+    return custom;
+  }
+
+  private static MetaView findMetaView(
+      MetaViewRepository views,
+      ViewIndex index,
+      String name,
+      String type,
+      String model,
+      String module,
+      Long group) {
+    final Long id = index.findView(name, type, model, module, group);
+    final MetaView view = id == null ? null : views.find(id);
+    if (id != null && view == null) {
+      // removed without index update (bulk delete)
+      ViewIndex.invalidate();
+      return findMetaView(views, name, type, model, module, group);
+    }
+    return view;
+  }
+
   private static MetaView findMetaView(
       MetaViewRepository views, String name, String type, String model, String module, Long group) {
     final List<String> select = new ArrayList<>();
@@ -446,14 +537,32 @@ public class XMLViews {
         .fetchOne();
   }
 
+  /**
+   * Read the object views stored in a record, from its snapshot if valid or else from its xml.
+   */
+  private static ObjectViews readStored(String xml, byte[] snapshot) throws JAXBException {
+    final ObjectViews views = ViewSnapshot.read(snapshot, xml);
+    return views == null ? unmarshalStored(xml) : views;
+  }
+
+  /**
+   * Parse the view stored in the given record.
+   *
+   * <p>The parsed view is cached by record id and version, and a copy is returned.
+   */
+  private static AbstractView parseView(Model record, String xml, byte[] snapshot)
+      throws Exception {
+    return ViewCache.get(record, () -> readStored(xml, snapshot).getViews().get(0));
+  }
+
   public static AbstractView findView(Long id) {
     final MetaView view = Beans.get(MetaViewRepository.class).find(id);
     if (view == null) {
       return null;
     }
     try {
-      return unmarshal(view.getXml()).getViews().get(0);
-    } catch (JAXBException e) {
+      return parseView(view, view.getXml(), view.getSnapshot());
+    } catch (Exception e) {
       log.error(e.getMessage(), e);
       return null;
     }
@@ -465,8 +574,8 @@ public class XMLViews {
       return null;
     }
     try {
-      return unmarshal(view.getXml()).getViews().get(0);
-    } catch (JAXBException e) {
+      return parseView(view, view.getXml(), null);
+    } catch (Exception e) {
       log.error(e.getMessage(), e);
       return null;
     }
@@ -508,23 +617,25 @@ public class XMLViews {
     MetaView view = null;
     MetaViewCustom custom = null;
 
+    // make sure hot updates are applied
+    applyHotUpdates();
+
+    final ViewIndex index = ViewIndex.get();
+
     // find personalized view
     if (module == null && user != null) {
-      custom = findCustomView(customViews, name, type, model);
+      custom = findCustomView(customViews, index, name, type, model);
     }
 
-    // make sure hot updates are applied
-    applyHotUpdates();
-
     // first find by name
     if (StringUtils.notBlank(name)) {
       // with group
-      view = findMetaView(views, name, null, model, module, group);
-      view = view == null ? findMetaView(views, name, null, null, module, group) : view;
+      view = findMetaView(views, index, name, null, model, module, group);
+      view = view == null ? findMetaView(views, index, name, null, null, module, group) : view;
 
       // without group
-      view = view == null ? findMetaView(views, name, null, model, module, null) : view;
-      view = view == null ? findMetaView(views, name, null, null, module, null) : view;
+      view = view == null ? findMetaView(views, index, name, null, model, module, null) : view;
+      view = view == null ? findMetaView(views, index, name, null, null, module, null) : view;
 
       if (view == null) {
         log.error("No such view found: {}", name);
@@ -534,27 +645,21 @@ public class XMLViews {
 
     // next find by type
     if (type != null && model != null) {
-      view = view == null ? findMetaView(views, null, type, model, module, group) : view;
-      view = view == null ? findMetaView(views, null, type, model, module, null) : view;
+      view = view == null ? findMetaView(views, index, null, type, model, module, group) : view;
+      view = view == null ? findMetaView(views, index, null, type, model, module, null) : view;
     }
 
     final AbstractView xmlView;
-    final MetaModel metaModel;
     try {
-      final String xml;
-
       if (custom == null) {
         if (view == null) {
           return null;
         }
 
-        xml = view.getXml();
+        xmlView = parseView(view, view.getXml(), view.getSnapshot());
       } else {
-        xml = custom.getXml();
+        xmlView = parseView(custom, custom.getXml(), null);
       }
-
-      final ObjectViews objectViews = unmarshal(xml);
-      xmlView = objectViews.getViews().get(0);
     } catch (Exception e) {
       log.error(e.getMessage(), e);
       return null;
@@ -563,17 +668,7 @@ public class XMLViews {
       xmlView.setViewId(view.getId());
       xmlView.setHelpLink(view.getHelpLink());
       if (view.getModel() != null) {
-        metaModel =
-            Beans.get(MetaModelRepository.class)
-                .all()
-                .filter("self.fullName = :name")
-                .bind("name", view.getModel())
-                .cacheable()
-                .autoFlush(false)
-                .fetchOne();
-        if (metaModel != null) {
-          xmlView.setModelId(metaModel.getId());
-        }
+        xmlView.setModelId(index.findModel(view.getModel()));
       }
     }
     if (custom != null) {
@@ -583,12 +678,27 @@ public class XMLViews {
     return xmlView;
   }
 
+  /**
+   * Check whether the given view has widgets shown conditionally, using the <code>if</code>
+   * attribute. Such widgets are evaluated against the current request when serialized.
+   *
+   * @param view the view to check
+   * @return true if any widget of the view has a condition
+   */
+  public static boolean hasConditions(AbstractView view) {
+    return ViewCache.anyMatch(
+        view,
+        item ->
+            item instanceof AbstractWidget
+                && StringUtils.notBlank(((AbstractWidget) item).getConditionToCheck()));
+  }
+
   public static Action findAction(String name) {
     applyHotUpdates();
     final MetaAction metaAction = Beans.get(MetaActionRepository.class).findByName(name);
     final Action action;
     try {
-      action = XMLViews.unmarshal(metaAction.getXml()).getActions().get(0);
+      action = readStored(metaAction.getXml(), metaAction.getSnapshot()).getActions().get(0);
       action.setActionId(metaAction.getId());
       return action;
     } catch (Exception e) {
@@ -596,6 +706,48 @@ public class XMLViews {
     }
   }
 
+  /**
+   * Find all the actions.
+   *
+   * <p>Actions are read by pages, and the one with highest priority is kept for each name, like
+   * {@link #findAction(String)} does.
+   *
+   * @return the parsed actions by name
+   */
+  public static Map<String, Action> findActions() {
+    applyHotUpdates();
+    final Map<String, Action> actions = new HashMap<>();
+    final TypedQuery<Object[]> query =
+        JPA.em()
+            .createQuery(
+                "SELECT self.id, self.name, self.xml, self.snapshot FROM MetaAction self "
+                    + "ORDER BY self.priority DESC, self.id",
+                Object[].class)
+            .setMaxResults(DBHelper.getJdbcFetchSize());
+
+    List<Object[]> rows;
+    int offset = 0;
+    do {
+      rows = query.setFirstResult(offset).getResultList();
+      offset += rows.size();
+      for (Object[] row : rows) {
+        final String name = (String) row[1];
+        if (actions.containsKey(name)) {
+          continue;
+        }
+        try {
+          final Action action = readStored((String) row[2], (byte[]) row[3]).getActions().get(0);
+          action.setActionId((Long) row[0]);
+          actions.put(name, action);
+        } catch (Exception e) {
+          log.warn("Unable to read action: {}", name);
+        }
+      }
+    } while (!rows.isEmpty());
+
+    return actions;
+  }
+
   static class FinalViewGenerator {
 
     private static final String STRING_DELIMITER = ",";
@@ -609,6 +761,12 @@ public class XMLViews {
     @Inject private MetaViewRepository metaViewRepo;
     @Inject private GroupRepository groupRepo;
 
+    private enum Outcome {
+      REMOVED,
+      UNCHANGED,
+      COMPUTED
+    }
+
     @Transactional
     public boolean generate(MetaView view) {
       try {
@@ -652,6 +810,40 @@ public class XMLViews {
     public boolean generateChecked(MetaView view)
         throws ParserConfigurationException, SAXException, IOException, XPathExpressionException,
             JAXBException {
+      return compute(view, null) != Outcome.REMOVED;
+    }
+
+    /**
+     * Compute the digest of the sources of a final view.
+     *
+     * <p>It covers the original view, the extension views in order, their modules and the state
+     * of the features and modules the original view depends on (as found by the last
+     * computation).
+     */
+    private static String digest(MetaView originalView, List<MetaView> extensionViews) {
+      final Hasher hasher = Hashing.murmur3_128().newHasher();
+      hasher.putString(originalView.getXml(), StandardCharsets.UTF_8);
+      hasher.putInt(MoreObjects.firstNonNull(originalView.getPriority(), 0));
+      for (final MetaView extensionView : extensionViews) {
+        final String module = Strings.nullToEmpty(extensionView.getModule());
+        hasher.putString(module, StandardCharsets.UTF_8);
+        hasher.putBoolean(ModuleManager.isInstalled(module));
+        hasher.putString(extensionView.getXml(), StandardCharsets.UTF_8);
+      }
+      for (final String feature : new TreeSet<>(stringToSet(originalView.getDependentFeatures()))) {
+        hasher.putString(feature, StandardCharsets.UTF_8);
+        hasher.putBoolean(appConfigProvider.hasFeature(feature));
+      }
+      for (final String module : new TreeSet<>(stringToSet(originalView.getDependentModules()))) {
+        hasher.putString(module, StandardCharsets.UTF_8);
+        hasher.putBoolean(ModuleManager.isInstalled(module));
+      }
+      return hasher.hash().toString();
+    }
+
+    private Outcome compute(MetaView view, Map<String, Set<Long>> missingGroups)
+        throws ParserConfigurationException, SAXException, IOException, XPathExpressionException,
+            JAXBException {
 
       final MetaView originalView = getOriginalView(view);
       final List<MetaView> extensionViews = findExtensionMetaViewsByModuleOrder(originalView);
@@ -662,7 +854,14 @@ public class XMLViews {
 
       if (extensionViews.isEmpty()) {
         Optional.ofNullable(metaViewRepo.findByID(xmlId)).ifPresent(metaViewRepo::remove);
-        return false;
+        return Outcome.REMOVED;
+      }
+
+      final MetaView existing = metaViewRepo.findByID(xmlId);
+      if (existing != null
+          && existing.getDigest() != null
+          && existing.getDigest().equals(digest(originalView, extensionViews))) {
+        return Outcome.UNCHANGED;
       }
 
       final String xml = originalView.getXml();
@@ -670,7 +869,7 @@ public class XMLViews {
       final Node viewNode = findViewNode(document);
 
       final MetaView computedView =
-          Optional.ofNullable(metaViewRepo.findByID(xmlId))
+          Optional.ofNullable(existing)
               .orElseGet(
                   () -> {
                     final MetaView copy = metaViewRepo.copy(originalView, false);
@@ -705,18 +904,27 @@ public class XMLViews {
       final AbstractView finalView = objectViews.getViews().get(0);
       final String finalXml = toXml(finalView, true);
       computedView.setXml(finalXml);
+      computedView.setSnapshot(ViewSnapshot.of(finalView, finalXml));
       computedView.setModule(getLastModule(extensionViews));
-      addGroups(computedView, finalView.getGroups());
+      computedView.setDigest(digest(originalView, extensionViews));
+      addGroups(computedView, finalView.getGroups(), missingGroups);
 
-      return true;
+      return Outcome.COMPUTED;
     }
 
-    private void addGroups(MetaView view, String codes) {
+    private void addGroups(MetaView view, String codes, Map<String, Set<Long>> missingGroups) {
       if (StringUtils.notBlank(codes)) {
         Arrays.stream(codes.split("\\s*,\\s*"))
             .forEach(
                 code -> {
                   Group group = groupRepo.findByCode(code);
+                  if (group == null && missingGroups != null) {
+                    // created after parallel generation, to avoid duplicates
+                    missingGroups
+                        .computeIfAbsent(code, k -> ConcurrentHashMap.newKeySet())
+                        .add(view.getId());
+                    return;
+                  }
                   if (group == null) {
                     log.info("Creating a new user group: {}", code);
                     group = groupRepo.save(new Group(code, code));
@@ -1250,8 +1458,16 @@ public class XMLViews {
 
     @Transactional
     public long generate(Collection<String> names, boolean update) {
+      final long start = System.currentTimeMillis();
       final long count = generate(findForCompute(names, update));
 
+      removeComputed(names, count);
+
+      log.info("Final views generated: {} in {} ms", count, System.currentTimeMillis() - start);
+      return count;
+    }
+
+    private void removeComputed(Collection<String> names, long count) {
       if (count == 0L && ObjectUtils.notEmpty(names)) {
         metaViewRepo
             .all()
@@ -1259,10 +1475,84 @@ public class XMLViews {
             .bind("names", names)
             .remove();
       }
+    }
+
+    /**
+     * Generate final views of the given view names concurrently.
+     *
+     * <p>Each view is generated in a transaction of a {@link ParallelTransactionExecutor} worker.
+     * Views whose sources didn't change since last generation are skipped. If called within a
+     * transaction, views are generated in that transaction instead, as uncommitted changes wouldn't
+     * be seen by the workers.
+     *
+     * @param names the view names, or empty for all views
+     * @param update whether to generate views already generated
+     * @return the number of final views
+     */
+    public long generateParallel(Collection<String> names, boolean update) {
+      if (JPA.em().getTransaction().isActive()) {
+        return generate(names, update);
+      }
+
+      final long start = System.currentTimeMillis();
+      final List<Long> ids = new ArrayList<>();
+      JPA.runInTransaction(
+          () -> findForCompute(names, update).getResultList().forEach(v -> ids.add(v.getId())));
+
+      final Map<Outcome, LongAdder> counts = new EnumMap<>(Outcome.class);
+      for (final Outcome outcome : Outcome.values()) {
+        counts.put(outcome, new LongAdder());
+      }
+
+      final Map<String, Set<Long>> missingGroups = new ConcurrentHashMap<>();
+      final ParallelTransactionExecutor executor = new ParallelTransactionExecutor();
+      for (final Long id : ids) {
+        executor.add(
+            () -> {
+              try {
+                counts.get(compute(metaViewRepo.find(id), missingGroups)).increment();
+              } catch (ParserConfigurationException
+                  | SAXException
+                  | IOException
+                  | XPathExpressionException
+                  | JAXBException e) {
+                throw new RuntimeException(e);
+              }
+            });
+      }
+      executor.run();
+
+      final long count = ids.size() - counts.get(Outcome.REMOVED).sum();
+      JPA.runInTransaction(
+          () -> {
+            removeComputed(names, count);
+            createMissingGroups(missingGroups);
+          });
+
+      log.info(
+          "Final views generated: {} ({} computed, {} unchanged) in {} ms",
+          count,
+          counts.get(Outcome.COMPUTED).sum(),
+          counts.get(Outcome.UNCHANGED).sum(),
+          System.currentTimeMillis() - start);
 
       return count;
     }
 
+    private void createMissingGroups(Map<String, Set<Long>> missingGroups) {
+      missingGroups.forEach(
+          (code, viewIds) -> {
+            Group group = groupRepo.findByCode(code);
+            if (group == null) {
+              log.info("Creating a new user group: {}", code);
+              group = groupRepo.save(new Group(code, code));
+            }
+            for (final Long viewId : viewIds) {
+              metaViewRepo.find(viewId).addGroup(group);
+            }
+          });
+    }
+
     @Transactional
     public long generate(TypedQuery<MetaView> query) {
       query.setMaxResults(DBHelper.getJdbcFetchSize());
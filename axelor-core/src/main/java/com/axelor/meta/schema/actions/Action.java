@@ -20,6 +20,7 @@ package com.axelor.meta.schema.actions;
 import com.axelor.common.StringUtils;
 import com.axelor.events.PostAction;
 import com.axelor.meta.ActionHandler;
+import com.axelor.meta.ActionTracer;
 import com.axelor.rpc.ActionResponse;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.MoreObjects;
@@ -90,14 +91,24 @@ public abstract class Action {
 
   public Object execute(ActionHandler handler) {
     final Object result;
-
-    if (StringUtils.isBlank(getName())) {
-      result = evaluate(handler);
-    } else {
-      handler.firePreEvent(getName());
-      final Object value = evaluate(handler);
-      PostAction event = handler.firePostEvent(getName(), value);
-      result = event.getResult();
+    final ActionTracer.Node trace =
+        StringUtils.isBlank(getName())
+            ? null
+            : ActionTracer.enter(getName(), ActionTracer.typeOf(getClass()));
+
+    try {
+      if (StringUtils.isBlank(getName())) {
+        result = evaluate(handler);
+      } else {
+        handler.firePreEvent(getName());
+        final Object value = evaluate(handler);
+        PostAction event = handler.firePostEvent(getName(), value);
+        result = event.getResult();
+      }
+    } finally {
+      if (trace != null) {
+        trace.close();
+      }
     }
 
     return result;
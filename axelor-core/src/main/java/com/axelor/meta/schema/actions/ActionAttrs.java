@@ -20,7 +20,9 @@ package com.axelor.meta.schema.actions;
 import com.axelor.meta.ActionHandler;
 import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -48,6 +50,8 @@ public class ActionAttrs extends Action {
   @XmlElement(name = "attribute", type = Attribute.class)
   private List<Attribute> attributes;
 
+  @XmlAttribute private Boolean parallel;
+
   public List<Attribute> getAttributes() {
     return attributes;
   }
@@ -56,37 +60,70 @@ public class ActionAttrs extends Action {
     this.attributes = attributes;
   }
 
+  public Boolean getParallel() {
+    return parallel;
+  }
+
+  public void setParallel(Boolean parallel) {
+    this.parallel = parallel;
+  }
+
   @Override
   @SuppressWarnings("all")
   protected Object evaluate(ActionHandler handler) {
 
-    Map<String, Object> map = Maps.newHashMap();
-    for (Attribute attribute : attributes) {
-      if (!attribute.test(handler) || Strings.isNullOrEmpty(attribute.getFieldName())) continue;
-      for (String field : attribute.fieldName.split(",")) {
-        if (Strings.isNullOrEmpty(field)) {
-          continue;
-        }
-        field = field.trim();
-        Map<String, Object> attrs = (Map) map.get(field);
-        if (attrs == null) {
-          attrs = Maps.newHashMap();
-          map.put(field, attrs);
-        }
-
-        String name = attribute.getName();
-        Object value = null;
-        if (name.matches("readonly|required|recommend|hidden|collapse")) {
-          value = Action.test(handler, attribute.getExpression());
-        } else {
-          value = handler.evaluate(attribute.getExpression());
-        }
-        attrs.put(attribute.getName(), value);
+    final List<Map<String, Object>> values;
+    if (parallel == Boolean.TRUE && ParallelEvaluator.isEnabled(handler, attributes)) {
+      values = ParallelEvaluator.evaluate(handler, attributes, this::evaluate);
+    } else {
+      values = new ArrayList<>();
+      for (Attribute attribute : attributes) {
+        values.add(evaluate(handler, attribute));
       }
     }
+
+    // merge in declaration order, the last attribute wins
+    Map<String, Object> map = Maps.newHashMap();
+    for (int i = 0; i < attributes.size(); i++) {
+      String name = attributes.get(i).getName();
+      values
+          .get(i)
+          .forEach(
+              (field, value) -> {
+                Map<String, Object> attrs = (Map) map.get(field);
+                if (attrs == null) {
+                  attrs = Maps.newHashMap();
+                  map.put(field, attrs);
+                }
+                attrs.put(name, value);
+              });
+    }
     return map;
   }
 
+  private Map<String, Object> evaluate(ActionHandler handler, Attribute attribute) {
+    Map<String, Object> values = new LinkedHashMap<>();
+    if (!attribute.test(handler) || Strings.isNullOrEmpty(attribute.getFieldName())) {
+      return values;
+    }
+    for (String field : attribute.fieldName.split(",")) {
+      if (Strings.isNullOrEmpty(field)) {
+        continue;
+      }
+      field = field.trim();
+
+      String name = attribute.getName();
+      Object value = null;
+      if (name.matches("readonly|required|recommend|hidden|collapse")) {
+        value = Action.test(handler, attribute.getExpression());
+      } else {
+        value = handler.evaluate(attribute.getExpression());
+      }
+      values.put(field, value);
+    }
+    return values;
+  }
+
   @Override
   protected Object wrapper(Object value) {
     if (value == null) {
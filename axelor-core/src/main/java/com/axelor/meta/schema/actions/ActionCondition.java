@@ -24,7 +24,9 @@ import com.axelor.meta.ActionHandler;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.xml.bind.annotation.XmlAttribute;
@@ -37,38 +39,77 @@ public class ActionCondition extends Action {
   @XmlElement(name = "check")
   private List<Check> conditions;
 
+  @XmlAttribute private Boolean parallel;
+
   public List<Check> getConditions() {
     return conditions;
   }
 
+  public Boolean getParallel() {
+    return parallel;
+  }
+
+  public void setParallel(Boolean parallel) {
+    this.parallel = parallel;
+  }
+
   @Override
   public Object evaluate(ActionHandler handler) {
+    final List<Map<String, String>> results;
+    if (parallel == Boolean.TRUE && ParallelEvaluator.isEnabled(handler, conditions)) {
+      results = ParallelEvaluator.evaluate(handler, conditions, this::evaluate);
+    } else {
+      results = new ArrayList<>();
+      for (Check check : conditions) {
+        Map<String, String> result = evaluate(handler, check);
+        if (result == null) {
+          return false;
+        }
+        results.add(result);
+      }
+    }
+
+    // merge in declaration order, stop on first failed check without field
     Map<String, String> errors = Maps.newHashMap();
-    for (Check check : conditions) {
-      String names = check.getField();
-      String error = check.getLocalizedError();
-      if (Strings.isNullOrEmpty(names) && Strings.isNullOrEmpty(error) && !check.test(handler)) {
+    for (Map<String, String> result : results) {
+      if (result == null) {
         return false;
       }
-      if (names == null) {
-        continue;
-      }
+      errors.putAll(result);
+    }
 
-      if (!StringUtils.isBlank(error)) {
-        error = handler.evaluate(toExpression(error, true)).toString();
-      }
+    return ObjectUtils.isEmpty(errors) ? true : errors;
+  }
 
-      for (String field : names.split(",")) {
-        field = field.trim();
-        if (Action.test(handler, check.getCondition(field))) {
-          errors.put(field, error);
-        } else {
-          errors.put(field, "");
-        }
-      }
+  /**
+   * Evaluate the given check.
+   *
+   * @return the errors by field name, or null if a check without field failed
+   */
+  private Map<String, String> evaluate(ActionHandler handler, Check check) {
+    Map<String, String> errors = new LinkedHashMap<>();
+    String names = check.getField();
+    String error = check.getLocalizedError();
+    if (Strings.isNullOrEmpty(names) && Strings.isNullOrEmpty(error) && !check.test(handler)) {
+      return null;
+    }
+    if (names == null) {
+      return errors;
     }
 
-    return ObjectUtils.isEmpty(errors) ? true : errors;
+    if (!StringUtils.isBlank(error)) {
+      error = handler.evaluate(toExpression(error, true)).toString();
+    }
+
+    for (String field : names.split(",")) {
+      field = field.trim();
+      if (Action.test(handler, check.getCondition(field))) {
+        errors.put(field, error);
+      } else {
+        errors.put(field, "");
+      }
+    }
+    return errors;
   }
 
   @Override
@@ -229,6 +229,12 @@ public class ActionGroup extends ActionResumable {
       }
 
       Object value = action.wrap(handler);
+
+      // the database may have been updated, don't reuse cached queries
+      if (isWriting(action)) {
+        handler.invalidate();
+      }
+
       if (value instanceof Response) {
         Response res = (Response) value;
         // if this is the only action then return the response
@@ -321,6 +327,17 @@ public class ActionGroup extends ActionResumable {
     return result;
   }
 
+  private boolean isWriting(Action action) {
+    if (action instanceof ActionRecord) {
+      return StringUtils.notBlank(((ActionRecord) action).getSaveIf());
+    }
+    return !(action instanceof ActionGroup
+        || action instanceof ActionAttrs
+        || action instanceof ActionCondition
+        || action instanceof ActionValidate
+        || action instanceof ActionView);
+  }
+
   @SuppressWarnings("rawtypes")
   private Boolean hasErrors(Map<String, Object> value) {
     if (ObjectUtils.isEmpty(value)) return Boolean.FALSE;
@@ -379,6 +396,12 @@ public class ActionGroup extends ActionResumable {
       }
     }
 
+    if (map.isEmpty()) {
+      return;
+    }
+
+    handler.invalidate();
+
     try {
       handler.getContext().putAll(map);
     } catch (IllegalArgumentException e) {
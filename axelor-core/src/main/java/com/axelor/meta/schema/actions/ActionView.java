@@ -33,6 +33,7 @@ import com.google.common.collect.Maps;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlTransient;
@@ -41,6 +42,9 @@ import javax.xml.bind.annotation.XmlType;
 @XmlType(propOrder = {"views", "params", "domain", "contexts"})
 public class ActionView extends Action {
 
+  private static final Pattern DYNAMIC_PATTERN =
+      Pattern.compile("^\\s*(select\\[\\]|select|action|call|eval):");
+
   @XmlType
   public static class View extends Element {
 
@@ -91,6 +95,8 @@ public class ActionView extends Action {
   @XmlElement(name = "view-param")
   private List<ActionView.Param> params;
 
+  @XmlTransient @JsonIgnore private Boolean pure;
+
   @JsonGetter("title")
   public String getLocalizedTitle() {
     return I18n.get(title);
@@ -138,6 +144,61 @@ public class ActionView extends Action {
     this.params = params;
   }
 
+  private static boolean isStatic(String expression) {
+    if (expression == null) {
+      return true;
+    }
+    final String expr = expression.trim();
+    return !(expr.startsWith("#{") && expr.endsWith("}")) && !DYNAMIC_PATTERN.matcher(expr).find();
+  }
+
+  private static boolean isStaticTemplate(String text) {
+    return text == null || (!text.contains("$") && isStatic(text));
+  }
+
+  private static boolean isStaticCondition(String condition) {
+    return condition == null
+        || condition.trim().isEmpty()
+        || "true".equals(condition)
+        || "false".equals(condition);
+  }
+
+  /**
+   * Check whether this action only uses static attributes.
+   *
+   * <p>A pure action has no conditions, scripts or queries in its views, context, domain and
+   * title. Its result only depends on the locale and on the request context having a record id,
+   * so it can be computed once and reused.
+   *
+   * @return true if the action is pure
+   */
+  @JsonIgnore
+  public boolean isPure() {
+    if (pure == null) {
+      pure = computePure();
+    }
+    return pure;
+  }
+
+  private boolean computePure() {
+    if (getName() == null || views == null) {
+      return false;
+    }
+    for (View view : views) {
+      if (!isStaticCondition(view.getCondition()) || !isStatic(view.getName())) {
+        return false;
+      }
+    }
+    if (contexts != null) {
+      for (Context ctx : contexts) {
+        if (!isStaticCondition(ctx.getCondition()) || !isStatic(ctx.getExpression())) {
+          return false;
+        }
+      }
+    }
+    return isStaticTemplate(domain) && isStaticTemplate(title);
+  }
+
   @Override
   public Object evaluate(ActionHandler handler) {
     Map<String, Object> result = Maps.newHashMap();
@@ -195,6 +256,7 @@ public class ActionView extends Action {
           // make it available to the evaluation context
           if (handler.getContext() != null && ctx.getName().startsWith("_")) {
             handler.getContext().put(ctx.getName(), value);
+            handler.invalidate();
           }
         }
       }
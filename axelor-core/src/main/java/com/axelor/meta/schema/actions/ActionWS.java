@@ -19,27 +19,14 @@ package com.axelor.meta.schema.actions;
 
 import com.axelor.meta.ActionHandler;
 import com.axelor.meta.MetaStore;
-import com.axelor.text.GroovyTemplates;
-import com.axelor.text.StringTemplates;
-import com.axelor.text.Templates;
 import com.google.common.base.Strings;
-import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
-import groovy.util.slurpersupport.GPathResult;
-import groovy.xml.XmlUtil;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
-import java.io.Reader;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Future;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlElement;
 import javax.xml.bind.annotation.XmlType;
-import wslite.soap.SOAPClient;
-import wslite.soap.SOAPResponse;
 
 @XmlType
 public class ActionWS extends Action {
@@ -91,43 +78,6 @@ public class ActionWS extends Action {
     return (ActionWS) ref;
   }
 
-  private Object send(String location, WSAction act, String template, ActionHandler handler)
-      throws IOException, FileNotFoundException, ClassNotFoundException {
-
-    File templateFile = new File(template);
-    if (!templateFile.isFile()) {
-      throw new IllegalArgumentException("No such template: " + template);
-    }
-
-    Templates engine = new StringTemplates('$', '$');
-    if ("groovy".equals(act.engine)) {
-      engine = new GroovyTemplates();
-    }
-
-    String payload = null;
-    Reader reader = new FileReader(templateFile);
-    try {
-      payload = handler.template(engine, reader);
-    } finally {
-      reader.close();
-    }
-    Map<String, Object> params = Maps.newHashMap();
-
-    params.put("connectTimeout", getConnectTimeout() * 1000);
-    params.put("readTimeout", getReadTimeout() * 1000);
-
-    SOAPClient client = new SOAPClient(location);
-    SOAPResponse response = client.send(params, payload);
-
-    GPathResult gpath = ((GPathResult) response.getBody()).children();
-    String ns = gpath.lookupNamespace("");
-    if (ns != null) {
-      gpath.declareNamespace(ImmutableMap.of(":", ns));
-    }
-
-    return XmlUtil.serialize(gpath);
-  }
-
   private String getService(ActionWS ref, ActionHandler handler) {
     String url = ref == null ? service : ref.getService();
     Object service = handler.evaluate(url);
@@ -152,7 +102,8 @@ public class ActionWS extends Action {
       ref.evaluate(handler);
     }
 
-    List<Object> result = Lists.newArrayList();
+    // render the payloads here, the calls are sent concurrently
+    List<Future<String>> calls = Lists.newArrayList();
     log.info("action-ws (name): " + getName());
     for (WSAction act : methods) {
       Object template = handler.evaluate(act.template);
@@ -162,8 +113,18 @@ public class ActionWS extends Action {
       }
       log.info("action-ws (method, template): " + act.getName() + ", " + template.toString());
       try {
-        Object res = this.send(url, act, template.toString(), handler);
-        result.add(res);
+        String payload =
+            handler.template(WebServiceClient.template(new File(template.toString()), act.engine));
+        calls.add(WebServiceClient.submit(url, payload, getConnectTimeout(), getReadTimeout()));
+      } catch (Exception e) {
+        log.error("error: " + e);
+      }
+    }
+
+    List<Object> result = Lists.newArrayList();
+    for (Future<String> call : calls) {
+      try {
+        result.add(WebServiceClient.await(call, getConnectTimeout() + getReadTimeout()));
       } catch (Exception e) {
         log.error("error: " + e);
       }
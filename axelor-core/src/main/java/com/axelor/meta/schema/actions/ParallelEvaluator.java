@@ -0,0 +1,129 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.schema.actions;
+
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
+import com.axelor.db.JPA;
+import com.axelor.db.tenants.TenantAware;
+import com.axelor.meta.ActionHandler;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+
+/**
+ * Evaluates the items of an action concurrently.
+ *
+ * <p>The items are split in as many chunks as <code>action.parallel.threads</code>, each chunk
+ * being evaluated by a worker thread with a forked {@link ActionHandler} and its own read-only
+ * entity manager. The results are returned in item order, so they can be merged exactly as if the
+ * items were evaluated one after another.
+ */
+final class ParallelEvaluator {
+
+  private static final int THREADS =
+      AppSettings.get().getInt(AvailableAppSettings.ACTION_PARALLEL_THREADS, 0);
+
+  private static ExecutorService executor;
+
+  private ParallelEvaluator() {}
+
+  private static synchronized ExecutorService getExecutor() {
+    if (executor == null) {
+      executor =
+          Executors.newFixedThreadPool(
+              THREADS,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("action-parallel-%d")
+                  .setDaemon(true)
+                  .build());
+    }
+    return executor;
+  }
+
+  /**
+   * Whether the given items can be evaluated concurrently.
+   *
+   * @param handler the action handler
+   * @param items the items to evaluate
+   * @return true if parallel evaluation is enabled and possible
+   */
+  static boolean isEnabled(ActionHandler handler, List<?> items) {
+    return THREADS > 0 && items != null && items.size() > 1 && handler.canFork();
+  }
+
+  private static <T, R> List<R> run(
+      ActionHandler handler, List<T> chunk, BiFunction<ActionHandler, T, R> task) {
+    final Session session = JPA.em().unwrap(Session.class);
+    session.setDefaultReadOnly(true);
+    session.setHibernateFlushMode(FlushMode.MANUAL);
+
+    final ActionHandler forked = handler.fork();
+    final List<R> results = new ArrayList<>();
+    for (T item : chunk) {
+      results.add(task.apply(forked, item));
+    }
+    return results;
+  }
+
+  /**
+   * Evaluate the given items concurrently.
+   *
+   * @param handler the action handler
+   * @param items the items to evaluate
+   * @param task the function evaluating an item with the given handler
+   * @return the results in item order
+   */
+  static <T, R> List<R> evaluate(
+      ActionHandler handler, List<T> items, BiFunction<ActionHandler, T, R> task) {
+    final TenantAware context = TenantAware.capture();
+    final int size = (items.size() + THREADS - 1) / THREADS;
+    final List<Future<List<R>>> futures = new ArrayList<>();
+
+    for (List<T> chunk : Lists.partition(items, size)) {
+      futures.add(getExecutor().submit(context.wrap(() -> run(handler, chunk, task))));
+    }
+
+    final List<R> results = new ArrayList<>();
+    try {
+      for (Future<List<R>> future : futures) {
+        results.addAll(future.get());
+      }
+    } catch (InterruptedException e) {
+      futures.forEach(f -> f.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      futures.forEach(f -> f.cancel(true));
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+
+    return results;
+  }
+}
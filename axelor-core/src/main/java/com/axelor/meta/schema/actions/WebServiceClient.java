@@ -0,0 +1,250 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.schema.actions;
+
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
+import com.axelor.text.GroovyTemplates;
+import com.axelor.text.StringTemplates;
+import com.axelor.text.Template;
+import com.axelor.text.Templates;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import groovy.util.XmlSlurper;
+import groovy.util.slurpersupport.GPathResult;
+import groovy.xml.XmlUtil;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The SOAP client used by {@link ActionWS}.
+ *
+ * <p>Payload templates are compiled once and cached until the template file changes. Requests are
+ * sent from a bounded pool of threads, so that the methods of an action can run concurrently, over
+ * persistent http connections (the response is always fully consumed and the connection never
+ * explicitly closed, so that the JDK keeps it alive for the next request to the same host).
+ *
+ * <p>Each service has a circuit breaker: after a number of consecutive failures, calls to that
+ * service fail immediately until the open timeout expires, then a single call is let through to
+ * probe the service.
+ */
+final class WebServiceClient {
+
+  private static final String SOAP12_NS = "http://www.w3.org/2003/05/soap-envelope";
+
+  private static final AppSettings settings = AppSettings.get();
+
+  private static final int THREADS = settings.getInt(AvailableAppSettings.ACTION_WS_THREADS, 10);
+
+  private static final int FAILURE_THRESHOLD =
+      settings.getInt(AvailableAppSettings.ACTION_WS_CIRCUIT_FAILURES, 5);
+
+  private static final long OPEN_TIMEOUT =
+      TimeUnit.SECONDS.toMillis(
+          settings.getInt(AvailableAppSettings.ACTION_WS_CIRCUIT_OPEN_TIMEOUT, 30));
+
+  private static final Map<String, CachedTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+  private static final Map<String, Circuit> CIRCUITS = new ConcurrentHashMap<>();
+
+  private static final ThreadPoolExecutor EXECUTOR =
+      new ThreadPoolExecutor(
+          THREADS,
+          THREADS,
+          60,
+          TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(),
+          new ThreadFactoryBuilder().setNameFormat("action-ws-%d").setDaemon(true).build());
+
+  static {
+    EXECUTOR.allowCoreThreadTimeOut(true);
+  }
+
+  private WebServiceClient() {}
+
+  private static final class CachedTemplate {
+
+    private final long lastModified;
+    private final long length;
+    private final Template template;
+
+    private CachedTemplate(long lastModified, long length, Template template) {
+      this.lastModified = lastModified;
+      this.length = length;
+      this.template = template;
+    }
+  }
+
+  private static final class Circuit {
+
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicLong openUntil = new AtomicLong();
+
+    private boolean allow() {
+      final long until = openUntil.get();
+      if (until == 0) {
+        return true;
+      }
+      final long now = System.currentTimeMillis();
+      // half open, let a single call probe the service
+      return now >= until && openUntil.compareAndSet(until, now + OPEN_TIMEOUT);
+    }
+
+    private void success() {
+      failures.set(0);
+      openUntil.set(0);
+    }
+
+    private void failure() {
+      if (failures.incrementAndGet() >= FAILURE_THRESHOLD) {
+        openUntil.set(System.currentTimeMillis() + OPEN_TIMEOUT);
+      }
+    }
+  }
+
+  /**
+   * Get the compiled template of the given file.
+   *
+   * @param file the template file
+   * @param engine the template engine name, <code>groovy</code> or <code>st</code> (default)
+   * @return the compiled template
+   * @throws IOException if the template can't be read
+   */
+  static Template template(File file, String engine) throws IOException {
+    if (!file.isFile()) {
+      throw new IllegalArgumentException("No such template: " + file);
+    }
+
+    final String key = engine + ":" + file.getCanonicalPath();
+    final long lastModified = file.lastModified();
+    final long length = file.length();
+
+    final CachedTemplate cached = TEMPLATES.get(key);
+    if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+      return cached.template;
+    }
+
+    final Templates templates =
+        "groovy".equals(engine) ? new GroovyTemplates() : new StringTemplates('$', '$');
+    final Template template = templates.from(file);
+
+    TEMPLATES.put(key, new CachedTemplate(lastModified, length, template));
+    return template;
+  }
+
+  /**
+   * Send the given payload to the given service in background.
+   *
+   * @param location the service url
+   * @param payload the SOAP envelope
+   * @param connectTimeout the connect timeout in seconds
+   * @param readTimeout the read timeout in seconds
+   * @return the future serialized SOAP body
+   */
+  static Future<String> submit(
+      String location, String payload, int connectTimeout, int readTimeout) {
+    final Circuit circuit = CIRCUITS.computeIfAbsent(location, k -> new Circuit());
+    return EXECUTOR.submit(
+        () -> {
+          if (!circuit.allow()) {
+            throw new IOException("Service unavailable: " + location);
+          }
+          try {
+            final String result = send(location, payload, connectTimeout, readTimeout);
+            circuit.success();
+            return result;
+          } catch (Exception e) {
+            circuit.failure();
+            throw e;
+          }
+        });
+  }
+
+  /**
+   * Wait for the result of the given call.
+   *
+   * @param call the submitted call
+   * @param timeout the maximum time to wait in seconds
+   * @return the serialized SOAP body
+   * @throws Exception if the call failed or timed out
+   */
+  static String await(Future<String> call, int timeout) throws Exception {
+    try {
+      return call.get(timeout, TimeUnit.SECONDS);
+    } catch (TimeoutException e) {
+      call.cancel(true);
+      throw e;
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+    }
+  }
+
+  static String send(String location, String payload, int connectTimeout, int readTimeout)
+      throws Exception {
+    final byte[] content = payload.getBytes(StandardCharsets.UTF_8);
+    final String contentType =
+        payload.contains(SOAP12_NS) ? "application/soap+xml" : "text/xml";
+
+    final HttpURLConnection conn = (HttpURLConnection) new URL(location).openConnection();
+    conn.setConnectTimeout(connectTimeout * 1000);
+    conn.setReadTimeout(readTimeout * 1000);
+    conn.setRequestMethod("POST");
+    conn.setDoOutput(true);
+    conn.setFixedLengthStreamingMode(content.length);
+    conn.setRequestProperty("Content-Type", contentType + "; charset=UTF-8");
+
+    try (OutputStream out = conn.getOutputStream()) {
+      out.write(content);
+    }
+
+    final int status = conn.getResponseCode();
+    final String text;
+    try (InputStream in = status < 400 ? conn.getInputStream() : conn.getErrorStream()) {
+      text = in == null ? "" : new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+    }
+
+    if (status >= 400) {
+      throw new IOException(String.format("HTTP %d: %s", status, text));
+    }
+
+    final GPathResult envelope = new XmlSlurper().parseText(text);
+    final GPathResult body = ((GPathResult) envelope.getProperty("Body")).children();
+    final String ns = body.lookupNamespace("");
+    if (ns != null) {
+      body.declareNamespace(ImmutableMap.of(":", ns));
+    }
+
+    return XmlUtil.serialize(body);
+  }
+}
@@ -30,6 +30,23 @@ public class DataSet {
 
   @XmlAttribute public Integer limit;
 
+  @XmlAttribute public Integer cache;
+
+  @XmlAttribute(name = "cache-stale")
+  public Integer cacheStale;
+
+  @XmlAttribute(name = "cache-scope")
+  public String cacheScope;
+
+  @XmlAttribute public String model;
+
+  @XmlAttribute(name = "group-by")
+  public String groupBy;
+
+  @XmlAttribute public String sum;
+
+  @XmlAttribute public String count;
+
   @JsonIgnore @XmlCDATA @XmlValue public String text;
 
   public String getType() {
@@ -48,6 +65,62 @@ public class DataSet {
     this.limit = limit;
   }
 
+  public Integer getCache() {
+    return cache;
+  }
+
+  public void setCache(Integer cache) {
+    this.cache = cache;
+  }
+
+  public Integer getCacheStale() {
+    return cacheStale;
+  }
+
+  public void setCacheStale(Integer cacheStale) {
+    this.cacheStale = cacheStale;
+  }
+
+  public String getCacheScope() {
+    return cacheScope;
+  }
+
+  public void setCacheScope(String cacheScope) {
+    this.cacheScope = cacheScope;
+  }
+
+  public String getModel() {
+    return model;
+  }
+
+  public void setModel(String model) {
+    this.model = model;
+  }
+
+  public String getGroupBy() {
+    return groupBy;
+  }
+
+  public void setGroupBy(String groupBy) {
+    this.groupBy = groupBy;
+  }
+
+  public String getSum() {
+    return sum;
+  }
+
+  public void setSum(String sum) {
+    this.sum = sum;
+  }
+
+  public String getCount() {
+    return count;
+  }
+
+  public void setCount(String count) {
+    this.count = count;
+  }
+
   public String getText() {
     return text;
   }
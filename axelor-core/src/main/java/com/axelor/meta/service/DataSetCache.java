@@ -0,0 +1,264 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.service;
+
+import com.axelor.auth.AuthUtils;
+import com.axelor.auth.db.User;
+import com.axelor.db.Model;
+import com.axelor.db.tenants.TenantAware;
+import com.axelor.meta.schema.views.DataSet;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Cache of dataset query results.
+ *
+ * <p>The cache is enabled per dataset using the <code>cache</code> attribute (time-to-live in
+ * seconds). Once expired, a result is still served for <code>cache-stale</code> seconds while it is
+ * refreshed in background. The results are cached per view, bound parameters, tenant and, unless
+ * <code>cache-scope="tenant"</code>, per user. Datasets using the <code>__user__</code>, <code>
+ * __userId__</code> or <code>__userCode__</code> parameters are always cached per user.
+ */
+@Singleton
+public class DataSetCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DataSetCache.class);
+
+  private static final int MAX_SIZE = 1000;
+
+  private final Cache<String, Entry> cache =
+      CacheBuilder.newBuilder().maximumSize(MAX_SIZE).expireAfterAccess(1, TimeUnit.DAYS).build();
+
+  private final ExecutorService refresher =
+      Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder().setNameFormat("dataset-refresh-%d").setDaemon(true).build());
+
+  private final Set<String> userScoped = ConcurrentHashMap.newKeySet();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder staleHits = new LongAdder();
+  private final LongAdder refreshes = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+
+  private static final class Entry {
+
+    private final List<?> value;
+    private final long created = System.currentTimeMillis();
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    Entry(List<?> value) {
+      this.value = Collections.unmodifiableList(value);
+    }
+
+    long age() {
+      return System.currentTimeMillis() - created;
+    }
+  }
+
+  /**
+   * Check whether the given dataset should be cached.
+   *
+   * @param dataSet the dataset
+   * @return true if cache is enabled for the dataset
+   */
+  public static boolean isCached(DataSet dataSet) {
+    return dataSet != null
+        && dataSet.getCache() != null
+        && dataSet.getCache() > 0
+        && !"rpc".equals(dataSet.getType());
+  }
+
+  /**
+   * Get the dataset result, using the given loader if not cached.
+   *
+   * @param name the view name
+   * @param dataSet the dataset
+   * @param params the bound parameters
+   * @param loader the loader to run the dataset query
+   * @return the dataset result
+   */
+  public List<?> get(
+      String name, DataSet dataSet, Map<String, Object> params, Callable<List<?>> loader) {
+    if (!isCached(dataSet)) {
+      return call(loader);
+    }
+
+    final String key = toKey(name, dataSet, params);
+    final long ttl = TimeUnit.SECONDS.toMillis(dataSet.getCache());
+    final long stale =
+        TimeUnit.SECONDS.toMillis(
+            dataSet.getCacheStale() == null ? dataSet.getCache() : dataSet.getCacheStale());
+
+    final Entry entry = cache.getIfPresent(key);
+    if (entry != null) {
+      final long age = entry.age();
+      if (age < ttl) {
+        hits.increment();
+        return entry.value;
+      }
+      if (age < ttl + stale) {
+        staleHits.increment();
+        refresh(key, entry, loader);
+        return entry.value;
+      }
+      cache.invalidate(key);
+    }
+
+    misses.increment();
+    try {
+      return cache.get(key, () -> new Entry(loader.call())).value;
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      throw propagate(e.getCause());
+    }
+  }
+
+  private void refresh(String key, Entry entry, Callable<List<?>> loader) {
+    if (!entry.refreshing.compareAndSet(false, true)) {
+      return;
+    }
+    final Callable<List<?>> task = TenantAware.capture().wrap(loader);
+    try {
+      refresher.execute(
+          () -> {
+            try {
+              cache.put(key, new Entry(task.call()));
+              refreshes.increment();
+            } catch (Exception e) {
+              failures.increment();
+              entry.refreshing.set(false);
+              LOG.error("Unable to refresh dataset: {}", key, e);
+            }
+          });
+    } catch (RuntimeException e) {
+      entry.refreshing.set(false);
+      LOG.error("Unable to schedule dataset refresh: {}", key, e);
+    }
+  }
+
+  /** Invalidate all the cached results. */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Get the cache statistics.
+   *
+   * @return map of statistics
+   */
+  public Map<String, Long> getStatistics() {
+    return ImmutableMap.<String, Long>builder()
+        .put("size", cache.size())
+        .put("hits", hits.sum())
+        .put("misses", misses.sum())
+        .put("staleHits", staleHits.sum())
+        .put("refreshes", refreshes.sum())
+        .put("failures", failures.sum())
+        .build();
+  }
+
+  private String toKey(String name, DataSet dataSet, Map<String, Object> params) {
+    final StringBuilder builder = new StringBuilder();
+    builder.append(TenantAware.capture().getTenant()).append(':');
+    if (!isTenantScoped(name, dataSet)) {
+      final User user = AuthUtils.getUser();
+      builder.append(user == null ? null : user.getId());
+    }
+    builder.append(':').append(name).append(':').append(dataSet.getText().hashCode()).append(':');
+    append(builder, params);
+    return builder.toString();
+  }
+
+  // the current user is bound to dataset queries, so tenant scope is only safe without them
+  private boolean isTenantScoped(String name, DataSet dataSet) {
+    if (!"tenant".equals(dataSet.getCacheScope())) {
+      return false;
+    }
+    if (dataSet.getText() != null && dataSet.getText().contains(":__user")) {
+      if (userScoped.add(name)) {
+        LOG.warn("Dataset of {} is bound to the current user, so it's cached per user", name);
+      }
+      return false;
+    }
+    return true;
+  }
+
+  private void append(StringBuilder builder, Object value) {
+    if (value instanceof Map) {
+      final Map<String, Object> sorted = new TreeMap<>();
+      ((Map<?, ?>) value).forEach((k, v) -> sorted.put(String.valueOf(k), v));
+      builder.append('{');
+      sorted.forEach(
+          (k, v) -> {
+            builder.append(k).append('=');
+            append(builder, v);
+            builder.append(',');
+          });
+      builder.append('}');
+    } else if (value instanceof Collection) {
+      builder.append('[');
+      for (Object item : (Collection<?>) value) {
+        append(builder, item);
+        builder.append(',');
+      }
+      builder.append(']');
+    } else if (value instanceof Model) {
+      builder.append(value.getClass().getSimpleName()).append('#').append(((Model) value).getId());
+    } else {
+      builder.append(value);
+    }
+  }
+
+  private static List<?> call(Callable<List<?>> loader) {
+    try {
+      return loader.call();
+    } catch (Exception e) {
+      throw propagate(e);
+    }
+  }
+
+  private static RuntimeException propagate(Throwable e) {
+    if (e instanceof RuntimeException) {
+      return (RuntimeException) e;
+    }
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    return new IllegalStateException(e);
+  }
+}
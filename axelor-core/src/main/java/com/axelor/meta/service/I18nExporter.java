@@ -0,0 +1,313 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.service;
+
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
+import com.axelor.common.StringUtils;
+import com.axelor.common.csv.CSVFile;
+import com.axelor.db.JPA;
+import com.axelor.db.internal.DBHelper;
+import com.axelor.db.tenants.TenantAware;
+import com.axelor.meta.MetaScanner;
+import com.axelor.meta.loader.ModuleManager;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exports the translations of all the modules as <code>messages_*.csv</code> files.
+ *
+ * <p>The translations of each language are loaded with a single streamed query, then the message
+ * files of all the modules are rewritten concurrently, each one streamed from the module file to
+ * the exported file.
+ */
+public class I18nExporter {
+
+  private static final Logger log = LoggerFactory.getLogger(I18nExporter.class);
+
+  private static final String PREFIX = "messages_";
+
+  /** The summary of an export. */
+  public static final class Summary {
+
+    private final int modules;
+    private final int languages;
+    private final int files;
+    private final long messages;
+    private final long translated;
+
+    private Summary(int modules, int languages, int files, long messages, long translated) {
+      this.modules = modules;
+      this.languages = languages;
+      this.files = files;
+      this.messages = messages;
+      this.translated = translated;
+    }
+
+    public int getModules() {
+      return modules;
+    }
+
+    public int getLanguages() {
+      return languages;
+    }
+
+    public int getFiles() {
+      return files;
+    }
+
+    public long getMessages() {
+      return messages;
+    }
+
+    public long getTranslated() {
+      return translated;
+    }
+  }
+
+  private static final class Source {
+
+    private final String module;
+    private final String name;
+    private final String language;
+    private final URL file;
+
+    private Source(String module, String name, URL file) {
+      this.module = module;
+      this.name = name;
+      this.language = name.substring(PREFIX.length(), name.length() - 4);
+      this.file = file;
+    }
+  }
+
+  private static int getMaxWorkers() {
+    final int maxPoolSize =
+        AppSettings.get().getInt(AvailableAppSettings.HIBERNATE_HIKARI_MAXIMUN_POOL_SIZE, 0);
+    final int maxWorkers = Runtime.getRuntime().availableProcessors();
+    return maxPoolSize > 0 && maxPoolSize < maxWorkers ? maxPoolSize : maxWorkers;
+  }
+
+  /**
+   * Find the message files to export.
+   *
+   * @return the <code>i18n/*.csv</code> files of each resolved module, by module name
+   */
+  protected Map<String, List<URL>> findFiles() {
+    final Map<String, List<URL>> files = new LinkedHashMap<>();
+    for (String module : ModuleManager.getResolution()) {
+      files.put(module, MetaScanner.findAll(module, "i18n", "(.*?)\\.csv"));
+    }
+    return files;
+  }
+
+  private List<Source> findSources() {
+    final List<Source> sources = new ArrayList<>();
+    for (Map.Entry<String, List<URL>> entry : findFiles().entrySet()) {
+      for (URL file : entry.getValue()) {
+        final String name = Paths.get(file.getFile()).getFileName().toString();
+        if (name.startsWith(PREFIX)) {
+          sources.add(new Source(entry.getKey(), name, file));
+        }
+      }
+    }
+    return sources;
+  }
+
+  private static Map<String, String> load(String language) {
+    final long start = System.currentTimeMillis();
+    final Map<String, String> messages = new HashMap<>();
+
+    @SuppressWarnings("unchecked")
+    final org.hibernate.query.Query<Object[]> query =
+        JPA.em()
+            .createQuery(
+                "SELECT self.key, self.message FROM MetaTranslation self "
+                    + "WHERE self.language = :language",
+                Object[].class)
+            .setParameter("language", language)
+            .unwrap(org.hibernate.query.Query.class);
+
+    query.setFetchSize(DBHelper.getJdbcFetchSize());
+    query.setReadOnly(true);
+
+    try (Stream<Object[]> rows = query.stream()) {
+      rows.forEach(row -> messages.put((String) row[0], (String) row[1]));
+    }
+
+    log.debug(
+        "Translations loaded: {} ({}) in {} ms",
+        messages.size(),
+        language,
+        System.currentTimeMillis() - start);
+
+    return messages;
+  }
+
+  private static void export(
+      Source source, Path target, Map<String, String> messages, LongAdder total, LongAdder found)
+      throws IOException {
+
+    final CSVFile csv = CSVFile.DEFAULT.withFirstRecordAsHeader();
+
+    Files.createParentDirs(target.toFile());
+
+    try (CSVParser parser = csv.parse(source.file.openStream(), StandardCharsets.UTF_8);
+        CSVPrinter printer = CSVFile.DEFAULT.withQuoteAll().write(target.toFile())) {
+      printer.printRecord("key", "message", "comment", "context");
+      for (CSVRecord record : parser) {
+
+        if (CSVFile.isEmpty(record)) {
+          continue;
+        }
+
+        final Map<String, String> map = record.toMap();
+
+        String key = map.get("key");
+        String value = map.get("value");
+
+        if (StringUtils.isBlank(key)) {
+          continue;
+        }
+
+        if (messages.containsKey(key)) {
+          value = messages.get(key);
+          found.increment();
+        }
+
+        total.increment();
+        printer.printRecord(key, value, map.get("comment"), map.get("context"));
+      }
+    }
+  }
+
+  private static <T> T await(Future<T> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof IOException) {
+        throw new UncheckedIOException((IOException) cause);
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * Export the translations of all the modules.
+   *
+   * <p>The files are exported to <code>&lt;module&gt;/src/main/resources/i18n</code> under the
+   * given directory, with the messages of the module files replaced by the translations from the
+   * database, if any.
+   *
+   * @param directory the export directory
+   * @return the export summary
+   */
+  public Summary export(Path directory) {
+    final long start = System.currentTimeMillis();
+    final List<Source> sources = findSources();
+
+    if (sources.isEmpty()) {
+      return new Summary(0, 0, 0, 0, 0);
+    }
+
+    final Set<String> languages = new LinkedHashSet<>();
+    sources.forEach(source -> languages.add(source.language));
+
+    final LongAdder total = new LongAdder();
+    final LongAdder found = new LongAdder();
+
+    final TenantAware context = TenantAware.capture();
+    final ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(getMaxWorkers(), sources.size()),
+            new ThreadFactoryBuilder().setNameFormat("i18n-export-%d").setDaemon(true).build());
+
+    try {
+      // the language loads are queued first, so the file tasks waiting for them never starve them
+      final Map<String, Future<Map<String, String>>> loads = new HashMap<>();
+      for (String language : languages) {
+        loads.put(language, executor.submit(context.wrap(() -> load(language))));
+      }
+
+      final List<Future<Void>> exports = new ArrayList<>();
+      for (Source source : sources) {
+        final Path target =
+            directory.resolve(Paths.get(source.module, "src/main/resources/i18n", source.name));
+        final Future<Map<String, String>> messages = loads.get(source.language);
+        exports.add(
+            executor.submit(
+                () -> {
+                  export(source, target, await(messages), total, found);
+                  return null;
+                }));
+      }
+
+      exports.forEach(I18nExporter::await);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    final Summary summary =
+        new Summary(
+            (int) sources.stream().map(s -> s.module).distinct().count(),
+            languages.size(),
+            sources.size(),
+            total.sum(),
+            found.sum());
+
+    log.info(
+        "Translations exported: {} files, {} languages, {} of {} messages translated in {} ms",
+        summary.files,
+        summary.languages,
+        summary.translated,
+        summary.messages,
+        System.currentTimeMillis() - start);
+
+    return summary;
+  }
+}
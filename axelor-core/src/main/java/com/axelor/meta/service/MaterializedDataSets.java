@@ -0,0 +1,838 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.service;
+
+import com.axelor.common.StringUtils;
+import com.axelor.db.EntityHelper;
+import com.axelor.db.JPA;
+import com.axelor.db.JpaSecurity;
+import com.axelor.db.Model;
+import com.axelor.db.Query;
+import com.axelor.db.mapper.Mapper;
+import com.axelor.db.mapper.Property;
+import com.axelor.db.tenants.TenantAware;
+import com.axelor.event.Observes;
+import com.axelor.events.internal.BeforeTransactionComplete;
+import com.axelor.inject.Beans;
+import com.axelor.meta.db.MetaRollup;
+import com.axelor.meta.db.MetaRollupRecord;
+import com.axelor.meta.db.MetaRollupSpec;
+import com.axelor.meta.loader.XMLViews;
+import com.axelor.meta.schema.views.AbstractView;
+import com.axelor.meta.schema.views.ChartView;
+import com.axelor.meta.schema.views.DataSet;
+import com.axelor.rpc.filter.Filter;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maintains the pre-aggregated values of <code>materialized</code> datasets.
+ *
+ * <p>A materialized dataset groups the records of a model and computes the sum of some numeric
+ * fields and the record count per group:
+ *
+ * <pre>
+ * &lt;dataset type="materialized" model="com.axelor.sale.db.Order"
+ *   group-by="customer.name as customer, status" sum="amount" count="total" /&gt;
+ * </pre>
+ *
+ * <p>The aggregated values are stored in {@link MetaRollup} and updated incrementally. The ids of
+ * the records given with the {@link BeforeTransactionComplete} event are queued once the
+ * transaction is committed, and a worker thread applies the changes of the committed records as
+ * deltas, in its own transaction. The last contribution of each record is kept in {@link
+ * MetaRollupRecord}, so the changes can be applied in any order. Changes of the records referenced
+ * by relation paths, like the customer above, are applied to the referencing records.
+ *
+ * <p>The {@link MetaRollupSpec} of a dataset keeps the digest of the definition the values are
+ * built from, and its row is locked by the worker updates and rebuilds of the dataset so they never
+ * overlap. The values are rebuilt from the source records on first read, or when the definition
+ * changes.
+ *
+ * <p>Bulk updates and deletions (JPQL or native queries, like {@link Query#update(Map)} or {@link
+ * Query#delete()}) don't go through the persistence context, so they are not tracked. The
+ * datasets of the changed models should then be rebuilt with {@link #rebuild(String, DataSet)}.
+ *
+ * <p>The aggregated values include all the records. For users with restricted read access to the
+ * model, the values are aggregated from the readable records instead.
+ */
+@Singleton
+public class MaterializedDataSets {
+
+  public static final String TYPE = "materialized";
+
+  private static final Logger LOG = LoggerFactory.getLogger(MaterializedDataSets.class);
+
+  private static final String COUNT = "_count";
+
+  private static final int BATCH_SIZE = 500;
+
+  // definitions by tenant and view name
+  private final Map<String, Map<String, Definition>> definitions = new ConcurrentHashMap<>();
+
+  private final Set<String> scanned = ConcurrentHashMap.newKeySet();
+
+  private final ExecutorService executor =
+      Executors.newCachedThreadPool(
+          new ThreadFactoryBuilder()
+              .setNameFormat("materialized-dataset-%d")
+              .setDaemon(true)
+              .build());
+
+  private final ObjectMapper objectMapper;
+
+  @Inject
+  public MaterializedDataSets(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Check whether the given dataset is a materialized dataset.
+   *
+   * @param dataSet the dataset to check
+   * @return true if materialized
+   */
+  public static boolean isMaterialized(DataSet dataSet) {
+    return dataSet != null && TYPE.equals(dataSet.getType());
+  }
+
+  private static final class Definition {
+
+    private final String name;
+    private final String digest;
+    private final Class<?> model;
+    private final Map<String, String> groups = new LinkedHashMap<>();
+    private final Map<String, String> sums = new LinkedHashMap<>();
+    private final String count;
+
+    // relation paths by target model
+    private final Map<Class<?>, Set<String>> targets = new HashMap<>();
+
+    Definition(String name, DataSet dataSet) {
+      this.name = name;
+      this.digest = digest(dataSet);
+      this.model = JPA.model(dataSet.getModel());
+      this.count = dataSet.getCount();
+      parse(dataSet.getGroupBy(), groups);
+      parse(dataSet.getSum(), sums);
+      if (model == null || groups.isEmpty()) {
+        throw new IllegalArgumentException("Invalid materialized dataset: " + name);
+      }
+      groups.keySet().forEach(this::track);
+      sums.keySet().forEach(this::track);
+    }
+
+    private static String digest(DataSet dataSet) {
+      final String spec =
+          String.join(
+              "|",
+              String.valueOf(dataSet.getModel()),
+              String.valueOf(dataSet.getGroupBy()),
+              String.valueOf(dataSet.getSum()),
+              String.valueOf(dataSet.getCount()));
+      return Hashing.murmur3_128().hashString(spec, StandardCharsets.UTF_8).toString();
+    }
+
+    private static void parse(String spec, Map<String, String> items) {
+      if (StringUtils.isBlank(spec)) {
+        return;
+      }
+      for (String item : spec.trim().split("\\s*,\\s*")) {
+        final String[] parts = item.split("(?i)\\s+as\\s+");
+        items.put(parts[0], parts.length > 1 ? parts[1] : parts[0].replace('.', '_'));
+      }
+    }
+
+    private void track(String path) {
+      final String[] names = path.split("\\.");
+      Class<?> type = model;
+      for (int i = 0; i < names.length - 1; i++) {
+        final Property property = Mapper.of(type).getProperty(names[i]);
+        if (property == null || property.getTarget() == null || property.isCollection()) {
+          throw new IllegalArgumentException(
+              "Invalid materialized dataset path: " + name + ", " + path);
+        }
+        type = property.getTarget();
+        targets
+            .computeIfAbsent(type, key -> new LinkedHashSet<>())
+            .add(String.join(".", Arrays.copyOfRange(names, 0, i + 1)));
+      }
+    }
+
+    boolean matches(DataSet dataSet) {
+      return digest.equals(digest(dataSet));
+    }
+
+    boolean tracks(Class<?> type) {
+      return model.isAssignableFrom(type)
+          || targets.keySet().stream().anyMatch(target -> target.isAssignableFrom(type));
+    }
+  }
+
+  /** The contribution of a single record to its group. */
+  private static final class Contribution {
+
+    private final String key;
+    private final Map<String, BigDecimal> measures;
+
+    Contribution(String key, Map<String, BigDecimal> measures) {
+      this.key = key;
+      this.measures = measures;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Contribution)) return false;
+      final Contribution other = (Contribution) obj;
+      return Objects.equals(key, other.key) && Objects.equals(measures, other.measures);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(key, measures);
+    }
+  }
+
+  private static String tenant() {
+    return String.valueOf(TenantAware.capture().getTenant());
+  }
+
+  private Map<String, Definition> definitions() {
+    return definitions.computeIfAbsent(tenant(), key -> new ConcurrentHashMap<>());
+  }
+
+  private Definition register(String name, DataSet dataSet) {
+    final Map<String, Definition> known = definitions();
+    final Definition existing = known.get(name);
+    if (existing != null && existing.matches(dataSet)) {
+      return existing;
+    }
+    final Definition definition = new Definition(name, dataSet);
+    known.put(name, definition);
+    return definition;
+  }
+
+  /**
+   * Run the given task with the current tenant and its own unit of work, and wait for it.
+   *
+   * <p>Records are read and rollups are rebuilt with a dedicated entity manager, so that the entity
+   * manager of the caller is neither flushed nor cleared.
+   */
+  private void run(Runnable task) {
+    try {
+      executor.submit(TenantAware.capture().wrap(Executors.callable(task))).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException
+          ? (RuntimeException) e.getCause()
+          : new PersistenceException(e.getCause());
+    }
+  }
+
+  // called by worker threads only
+  private void scan() {
+    final String tenant = tenant();
+    if (scanned.contains(tenant)) {
+      return;
+    }
+    synchronized (this) {
+      if (scanned.contains(tenant)) {
+        return;
+      }
+      doScan();
+      scanned.add(tenant);
+    }
+  }
+
+  private void doScan() {
+    final List<String> names =
+        JPA.em()
+            .createQuery(
+                "SELECT DISTINCT self.name FROM MetaView self "
+                    + "WHERE self.type = 'chart' AND self.xml LIKE :type",
+                String.class)
+            .setParameter("type", "%\"" + TYPE + "\"%")
+            .getResultList();
+    for (String name : names) {
+      try {
+        final AbstractView view = XMLViews.findView(name, "chart");
+        if (view instanceof ChartView && isMaterialized(((ChartView) view).getDataSet())) {
+          register(name, ((ChartView) view).getDataSet());
+          createSpec(name);
+        }
+      } catch (Exception e) {
+        LOG.error("Unable to register materialized dataset: {}", name, e);
+      }
+    }
+  }
+
+  // the spec row is created beforehand, in its own transaction, so that it can always be locked
+  private void createSpec(String name) {
+    try {
+      JPA.runInTransaction(
+          () -> {
+            if (findSpec(name) == null) {
+              final MetaRollupSpec spec = new MetaRollupSpec();
+              spec.setName(name);
+              JPA.em().persist(spec);
+            }
+          });
+    } catch (PersistenceException e) {
+      // created concurrently
+      LOG.trace("Materialized dataset spec already created: {}", name, e);
+    }
+  }
+
+  private MetaRollupSpec findSpec(String name) {
+    return findSpec(name, LockModeType.NONE);
+  }
+
+  private MetaRollupSpec lockSpec(String name) {
+    return findSpec(name, LockModeType.PESSIMISTIC_WRITE);
+  }
+
+  private MetaRollupSpec findSpec(String name, LockModeType lockMode) {
+    final List<MetaRollupSpec> specs =
+        JPA.em()
+            .createQuery(
+                "SELECT self FROM MetaRollupSpec self WHERE self.name = :name",
+                MetaRollupSpec.class)
+            .setParameter("name", name)
+            .setFlushMode(FlushModeType.COMMIT)
+            .setLockMode(lockMode)
+            .getResultList();
+    return specs.isEmpty() ? null : specs.get(0);
+  }
+
+  /**
+   * Forget the known definitions, they will be scanned again when required.
+   *
+   * <p>It should be called when views are saved or reloaded.
+   */
+  public void invalidate() {
+    definitions.clear();
+    scanned.clear();
+  }
+
+  /**
+   * Fetch the aggregated values of the given materialized dataset.
+   *
+   * <p>The aggregated values are built from the source records on first use, and rebuilt if the
+   * dataset definition has changed since.
+   *
+   * @param name the view name
+   * @param dataSet the materialized dataset
+   * @return list of rows
+   */
+  @SuppressWarnings("unchecked")
+  public List<Map<String, Object>> fetch(String name, DataSet dataSet) {
+    final Definition definition = register(name, dataSet);
+    final Class<? extends Model> model = (Class<? extends Model>) definition.model;
+    final JpaSecurity security = Beans.get(JpaSecurity.class);
+
+    security.check(JpaSecurity.CAN_READ, model);
+
+    final Map<String, Map<String, BigDecimal>> totals = new TreeMap<>();
+    final Filter filter = security.getFilter(JpaSecurity.CAN_READ, model);
+
+    // the pre-aggregated values include all the records, aggregate the readable ones instead
+    if (filter != null) {
+      run(
+          () ->
+              forEach(
+                  definition,
+                  filter,
+                  item -> add(totals, contribution(definition, item), BigDecimal.ONE)));
+      return toRows(definition, totals);
+    }
+
+    if (!definition.digest.equals(findDigest(name))) {
+      rebuild(definition, false);
+    }
+
+    for (Object[] rollup : findRollups(name)) {
+      totals
+          .computeIfAbsent((String) rollup[0], key -> new HashMap<>())
+          .put((String) rollup[1], (BigDecimal) rollup[2]);
+    }
+
+    return toRows(definition, totals);
+  }
+
+  private List<Map<String, Object>> toRows(
+      Definition definition, Map<String, Map<String, BigDecimal>> totals) {
+    final List<Map<String, Object>> rows = new ArrayList<>();
+    totals.forEach(
+        (key, measures) -> {
+          final BigDecimal count = measures.get(COUNT);
+          if (count == null || count.signum() <= 0) {
+            return;
+          }
+          final Map<String, Object> row = toRow(definition, key);
+          for (String alias : definition.sums.values()) {
+            final BigDecimal value = measures.get(alias);
+            if (value != null) {
+              row.put(alias, value);
+            }
+          }
+          if (definition.count != null) {
+            row.put(definition.count, count.longValue());
+          }
+          rows.add(row);
+        });
+    return rows;
+  }
+
+  // values are selected rather than entities, so they are never read from the persistence context
+  private List<Object[]> findRollups(String name) {
+    return JPA.em()
+        .createQuery(
+            "SELECT self.groupKey, self.measure, self.measureValue FROM MetaRollup self "
+                + "WHERE self.name = :name",
+            Object[].class)
+        .setParameter("name", name)
+        .setFlushMode(FlushModeType.COMMIT)
+        .getResultList();
+  }
+
+  private String findDigest(String name) {
+    final List<String> digests =
+        JPA.em()
+            .createQuery(
+                "SELECT self.digest FROM MetaRollupSpec self WHERE self.name = :name",
+                String.class)
+            .setParameter("name", name)
+            .setFlushMode(FlushModeType.COMMIT)
+            .getResultList();
+    return digests.isEmpty() ? null : digests.get(0);
+  }
+
+  private Map<String, Object> toRow(Definition definition, String key) {
+    final Map<String, Object> row = new LinkedHashMap<>();
+    final List<Object> values = fromJson(key, new TypeReference<List<Object>>() {});
+    int i = 0;
+    for (String alias : definition.groups.values()) {
+      row.put(alias, values.get(i++));
+    }
+    for (String alias : definition.sums.values()) {
+      row.put(alias, BigDecimal.ZERO);
+    }
+    return row;
+  }
+
+  /**
+   * Rebuild the aggregated values of the given materialized dataset from the source records.
+   *
+   * @param name the view name
+   * @param dataSet the materialized dataset
+   */
+  public void rebuild(String name, DataSet dataSet) {
+    rebuild(register(name, dataSet), true);
+  }
+
+  private void rebuild(Definition definition, boolean force) {
+    run(
+        () -> {
+          createSpec(definition.name);
+          JPA.runInTransaction(() -> doRebuild(definition, force));
+        });
+  }
+
+  private void doRebuild(Definition definition, boolean force) {
+    final EntityManager em = JPA.em();
+
+    // wait for running rebuilds and updates, the values may be up to date once locked
+    final MetaRollupSpec spec = lockSpec(definition.name);
+    if (spec == null) {
+      throw new PersistenceException("Materialized dataset not found: " + definition.name);
+    }
+    if (!force && definition.digest.equals(spec.getDigest())) {
+      return;
+    }
+
+    em.createQuery("DELETE FROM MetaRollup self WHERE self.name = :name")
+        .setParameter("name", definition.name)
+        .executeUpdate();
+    em.createQuery("DELETE FROM MetaRollupRecord self WHERE self.name = :name")
+        .setParameter("name", definition.name)
+        .executeUpdate();
+
+    final Map<String, Map<String, BigDecimal>> totals = new HashMap<>();
+    final long count =
+        forEach(
+            definition,
+            null,
+            item -> {
+              final Contribution contribution = contribution(definition, item);
+              add(totals, contribution, BigDecimal.ONE);
+              em.persist(toRecord(definition, item.getId(), contribution));
+            });
+
+    totals.forEach(
+        (key, measures) ->
+            measures.forEach(
+                (measure, value) -> em.persist(toRollup(definition, key, measure, value))));
+
+    // the spec is detached by the periodic clear, the row lock is kept until commit
+    em.createQuery("UPDATE MetaRollupSpec self SET self.digest = :digest WHERE self.name = :name")
+        .setParameter("digest", definition.digest)
+        .setParameter("name", definition.name)
+        .executeUpdate();
+
+    LOG.info("Materialized dataset {} rebuilt with {} records", definition.name, count);
+  }
+
+  /**
+   * Call the given consumer with the records of the dataset model matching the given filter.
+   *
+   * <p>The records are read by pages, in id order, and the entity manager is flushed and cleared
+   * after each page.
+   */
+  @SuppressWarnings("unchecked")
+  private long forEach(Definition definition, Filter filter, Consumer<Model> consumer) {
+    final EntityManager em = JPA.em();
+    final Class<? extends Model> model = (Class<? extends Model>) definition.model;
+
+    long count = 0;
+    long last = 0;
+    List<? extends Model> items;
+    do {
+      final Filter keyset = Filter.greaterThan("id", last);
+      items =
+          (filter == null ? keyset : Filter.and(filter, keyset))
+              .build(model)
+              .order("id")
+              .autoFlush(false)
+              .fetch(BATCH_SIZE);
+      for (Model item : items) {
+        consumer.accept(item);
+        last = item.getId();
+      }
+      count += items.size();
+      em.flush();
+      em.clear();
+    } while (items.size() == BATCH_SIZE);
+
+    return count;
+  }
+
+  void onBeforeTransactionComplete(@Observes BeforeTransactionComplete event) {
+    if (event.getUpdated().isEmpty() && event.getDeleted().isEmpty()) {
+      return;
+    }
+
+    // until scanned, the definitions are unknown and all the changes are queued
+    final boolean all = !scanned.contains(tenant());
+    final Map<String, Definition> known = definitions();
+    if (!all && known.isEmpty()) {
+      return;
+    }
+
+    final Map<Class<?>, Set<Long>> changed = new HashMap<>();
+
+    collect(event.getUpdated(), all ? null : known, changed);
+    collect(event.getDeleted(), all ? null : known, changed);
+
+    if (changed.isEmpty()) {
+      return;
+    }
+
+    final Runnable task = TenantAware.capture().wrap(() -> update(changed));
+    JPA.runAfterCommit(() -> executor.execute(task));
+  }
+
+  private void collect(
+      Set<? extends Model> entities,
+      Map<String, Definition> known,
+      Map<Class<?>, Set<Long>> changed) {
+    for (Model entity : new ArrayList<>(entities)) {
+      if (entity instanceof MetaRollup
+          || entity instanceof MetaRollupRecord
+          || entity instanceof MetaRollupSpec
+          || entity.getId() == null) {
+        continue;
+      }
+      final Class<?> entityClass = EntityHelper.getEntityClass(entity);
+      if (known == null || known.values().stream().anyMatch(d -> d.tracks(entityClass))) {
+        changed.computeIfAbsent(entityClass, key -> new HashSet<>()).add(entity.getId());
+      }
+    }
+  }
+
+  // called by worker threads once the changes are committed
+  private void update(Map<Class<?>, Set<Long>> changed) {
+    scan();
+    definitions().values().stream()
+        .sorted(Comparator.comparing(definition -> definition.name))
+        .forEach(definition -> update(definition, changed));
+  }
+
+  private void update(Definition definition, Map<Class<?>, Set<Long>> changed) {
+    final Set<Long> ids = new LinkedHashSet<>();
+    final Map<String, Set<Long>> related = new HashMap<>();
+
+    changed.forEach(
+        (type, items) -> {
+          if (definition.model.isAssignableFrom(type)) {
+            ids.addAll(items);
+          }
+          definition.targets.forEach(
+              (target, paths) -> {
+                if (target.isAssignableFrom(type)) {
+                  for (String path : paths) {
+                    related.computeIfAbsent(path, key -> new LinkedHashSet<>()).addAll(items);
+                  }
+                }
+              });
+        });
+
+    if (ids.isEmpty() && related.isEmpty()) {
+      return;
+    }
+
+    try {
+      JPA.runInTransaction(() -> apply(definition, ids, related));
+    } catch (RuntimeException e) {
+      LOG.error("Materialized dataset update failed, it will be rebuilt: {}", definition.name, e);
+      JPA.em().clear();
+      JPA.runInTransaction(
+          () ->
+              JPA.em()
+                  .createQuery(
+                      "UPDATE MetaRollupSpec self SET self.digest = NULL WHERE self.name = :name")
+                  .setParameter("name", definition.name)
+                  .executeUpdate());
+    } finally {
+      JPA.em().clear();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<? extends Model> find(Definition definition, String path, Collection<Long> ids) {
+    return Query.of((Class<? extends Model>) definition.model)
+        .filter("self." + path + " IN :ids")
+        .bind("ids", ids)
+        .autoFlush(false)
+        .fetch();
+  }
+
+  private void apply(Definition definition, Set<Long> ids, Map<String, Set<Long>> related) {
+    final EntityManager em = JPA.em();
+
+    // wait for a running rebuild or update, the changes are then applied to the latest values
+    final MetaRollupSpec spec = lockSpec(definition.name);
+    if (spec == null || spec.getDigest() == null) {
+      // not yet built, it will be built from the source records on first read
+      return;
+    }
+    if (!definition.digest.equals(spec.getDigest())) {
+      // built from another definition, rebuild it on next read
+      spec.setDigest(null);
+      return;
+    }
+
+    // the contributions are computed from the committed records, missing ones are deleted
+    final Map<Long, Contribution> changes = new LinkedHashMap<>();
+    for (List<Long> chunk : Iterables.partition(ids, BATCH_SIZE)) {
+      chunk.forEach(id -> changes.put(id, null));
+      for (Model item : find(definition, "id", chunk)) {
+        changes.put(item.getId(), contribution(definition, item));
+      }
+    }
+    related.forEach(
+        (path, targets) -> {
+          for (List<Long> chunk : Iterables.partition(targets, BATCH_SIZE)) {
+            for (Model item : find(definition, path + ".id", chunk)) {
+              changes.computeIfAbsent(item.getId(), id -> contribution(definition, item));
+            }
+          }
+        });
+
+    final Map<Long, MetaRollupRecord> records = new HashMap<>();
+    for (List<Long> chunk : Iterables.partition(changes.keySet(), BATCH_SIZE)) {
+      em.createQuery(
+              "SELECT self FROM MetaRollupRecord self "
+                  + "WHERE self.name = :name AND self.recordId IN :ids",
+              MetaRollupRecord.class)
+          .setParameter("name", definition.name)
+          .setParameter("ids", chunk)
+          .getResultList()
+          .forEach(record -> records.put(record.getRecordId(), record));
+    }
+
+    final Map<String, Map<String, BigDecimal>> deltas = new HashMap<>();
+    changes.forEach(
+        (id, contribution) -> {
+          final MetaRollupRecord record = records.get(id);
+          final Contribution last = record == null ? null : fromRecord(record);
+          if (Objects.equals(last, contribution)) {
+            return;
+          }
+          add(deltas, last, BigDecimal.ONE.negate());
+          add(deltas, contribution, BigDecimal.ONE);
+          if (contribution == null) {
+            em.remove(record);
+          } else if (record == null) {
+            em.persist(toRecord(definition, id, contribution));
+          } else {
+            record.setGroupKey(contribution.key);
+            record.setMeasures(toJson(contribution.measures));
+          }
+        });
+
+    deltas.forEach(
+        (key, measures) ->
+            measures.forEach(
+                (measure, delta) -> {
+                  if (delta.signum() == 0) {
+                    return;
+                  }
+                  final int updated =
+                      em.createQuery(
+                              "UPDATE MetaRollup self "
+                                  + "SET self.measureValue = self.measureValue + :delta "
+                                  + "WHERE self.name = :name "
+                                  + "AND self.groupKey = :key AND self.measure = :measure")
+                          .setParameter("delta", delta)
+                          .setParameter("name", definition.name)
+                          .setParameter("key", key)
+                          .setParameter("measure", measure)
+                          .executeUpdate();
+                  if (updated == 0) {
+                    em.persist(toRollup(definition, key, measure, delta));
+                  }
+                }));
+  }
+
+  private Contribution contribution(Definition definition, Model entity) {
+    final List<Object> values = new ArrayList<>();
+    for (String path : definition.groups.keySet()) {
+      Object value = getValue(entity, path);
+      if (value instanceof Model) {
+        value = ((Model) value).getId();
+      } else if (value instanceof Enum) {
+        value = ((Enum<?>) value).name();
+      } else if (value != null && !(value instanceof Number || value instanceof Boolean)) {
+        value = value.toString();
+      }
+      values.add(value);
+    }
+    final Map<String, BigDecimal> measures = new LinkedHashMap<>();
+    definition.sums.forEach(
+        (path, alias) -> {
+          final Object value = getValue(entity, path);
+          measures.put(alias, value == null ? BigDecimal.ZERO : new BigDecimal(value.toString()));
+        });
+    return new Contribution(toJson(values), measures);
+  }
+
+  private Object getValue(Object bean, String path) {
+    Object value = bean;
+    for (String name : path.split("\\.")) {
+      if (value == null) {
+        return null;
+      }
+      value = Mapper.of(EntityHelper.getEntityClass(value)).get(value, name);
+    }
+    return value;
+  }
+
+  private void add(
+      Map<String, Map<String, BigDecimal>> totals, Contribution contribution, BigDecimal sign) {
+    if (contribution == null) {
+      return;
+    }
+    final Map<String, BigDecimal> measures =
+        totals.computeIfAbsent(contribution.key, key -> new HashMap<>());
+    measures.merge(COUNT, sign, BigDecimal::add);
+    contribution.measures.forEach(
+        (measure, value) -> measures.merge(measure, value.multiply(sign), BigDecimal::add));
+  }
+
+  private MetaRollupRecord toRecord(Definition definition, Long id, Contribution contribution) {
+    final MetaRollupRecord record = new MetaRollupRecord();
+    record.setName(definition.name);
+    record.setRecordId(id);
+    record.setGroupKey(contribution.key);
+    record.setMeasures(toJson(contribution.measures));
+    return record;
+  }
+
+  private Contribution fromRecord(MetaRollupRecord record) {
+    final Map<String, BigDecimal> measures =
+        fromJson(record.getMeasures(), new TypeReference<LinkedHashMap<String, BigDecimal>>() {});
+    return new Contribution(record.getGroupKey(), measures);
+  }
+
+  private MetaRollup toRollup(Definition definition, String key, String measure, BigDecimal value) {
+    final MetaRollup rollup = new MetaRollup();
+    rollup.setName(definition.name);
+    rollup.setGroupKey(key);
+    rollup.setMeasure(measure);
+    rollup.setMeasureValue(value);
+    return rollup;
+  }
+
+  private String toJson(Object value) {
+    try {
+      return objectMapper.writeValueAsString(value);
+    } catch (IOException e) {
+      throw new PersistenceException(e);
+    }
+  }
+
+  private <T> T fromJson(String json, TypeReference<T> type) {
+    try {
+      return objectMapper.readValue(json, type);
+    } catch (IOException e) {
+      throw new PersistenceException(e);
+    }
+  }
+}
@@ -0,0 +1,280 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.service;
+
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
+import com.axelor.auth.db.User;
+import com.axelor.common.StringUtils;
+import com.axelor.db.JpaSecurity;
+import com.axelor.db.Model;
+import com.axelor.db.tenants.TenantAware;
+import com.axelor.inject.Beans;
+import com.axelor.meta.ActionExecutor;
+import com.axelor.meta.MetaStore;
+import com.axelor.meta.db.MetaAction;
+import com.axelor.meta.db.MetaMenu;
+import com.axelor.meta.schema.actions.ActionView;
+import com.axelor.rpc.ActionRequest;
+import com.axelor.rpc.filter.Filter;
+import com.axelor.rpc.filter.JPQLFilter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Computes menu tags.
+ *
+ * <p>The dynamic tags (<code>tag-get</code> and <code>tag-count</code>) are computed in parallel
+ * with a bounded number of worker threads. The results are cached per user and menu for a short
+ * time, and concurrent requests for the same tag share the same computation.
+ */
+@Singleton
+public class MenuTagService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MenuTagService.class);
+
+  private static final int DEFAULT_CACHE_TTL = 30;
+  private static final int DEFAULT_THREADS = 4;
+  private static final int DEFAULT_TIMEOUT = 30;
+
+  private final ActionExecutor actionExecutor;
+
+  private final Cache<String, Optional<String>> cache;
+
+  private final ConcurrentMap<String, CompletableFuture<String>> pending =
+      new ConcurrentHashMap<>();
+
+  private final ExecutorService executor;
+
+  private final long timeout;
+
+  private volatile long lastRefreshTime;
+
+  @Inject
+  public MenuTagService(ActionExecutor actionExecutor) {
+    final AppSettings settings = AppSettings.get();
+    final int ttl = settings.getInt(AvailableAppSettings.MENU_TAGS_CACHE_TTL, DEFAULT_CACHE_TTL);
+    final int threads = settings.getInt(AvailableAppSettings.MENU_TAGS_THREADS, DEFAULT_THREADS);
+
+    this.actionExecutor = actionExecutor;
+    this.timeout = settings.getInt(AvailableAppSettings.MENU_TAGS_TIMEOUT, DEFAULT_TIMEOUT);
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(ttl > 0 ? 10_000 : 0)
+            .expireAfterWrite(Math.max(ttl, 0), TimeUnit.SECONDS)
+            .build();
+    this.executor =
+        Executors.newFixedThreadPool(
+            Math.max(threads, 1),
+            new ThreadFactoryBuilder().setNameFormat("menu-tags-%d").setDaemon(true).build());
+  }
+
+  /**
+   * Get the time taken by the last tags refresh.
+   *
+   * @return time in milliseconds
+   */
+  public long getLastRefreshTime() {
+    return lastRefreshTime;
+  }
+
+  /** Clear the cached tags. */
+  public void invalidate() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Compute tags of the given menus for the given user.
+   *
+   * @param user the current user
+   * @param menus the menus
+   * @return map of menu name to tag
+   */
+  public Map<String, String> getTags(User user, Collection<MetaMenu> menus) {
+    final long start = System.currentTimeMillis();
+    final Map<String, String> tags = new HashMap<>();
+    final Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+    final TenantAware context = TenantAware.capture();
+
+    for (MetaMenu menu : menus) {
+      if (menu.getTag() != null) {
+        tags.put(menu.getName(), menu.getTag());
+        continue;
+      }
+      if (menu.getTagGet() == null
+          && !(menu.getTagCount() == Boolean.TRUE && menu.getAction() != null)) {
+        continue;
+      }
+      final String key = toKey(context, user, menu);
+      final Optional<String> cached = cache.getIfPresent(key);
+      if (cached != null) {
+        tags.put(menu.getName(), cached.orElse(null));
+        continue;
+      }
+      final TagSource source = new TagSource(menu);
+      futures.put(menu.getName(), submit(key, context.wrap(() -> source.compute(actionExecutor))));
+    }
+
+    final long deadline = start + TimeUnit.SECONDS.toMillis(timeout);
+
+    futures.forEach(
+        (name, future) -> {
+          try {
+            final long wait = deadline - System.currentTimeMillis();
+            tags.put(name, future.get(wait, TimeUnit.MILLISECONDS));
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } catch (TimeoutException e) {
+            LOG.error("Timeout while reading tag for menu: {}", name);
+          } catch (ExecutionException e) {
+            LOG.error("Unable to read tag for menu: {}", name);
+            LOG.trace("Error", e.getCause());
+          }
+        });
+
+    lastRefreshTime = System.currentTimeMillis() - start;
+    LOG.debug("Menu tags refreshed in {} ms ({} computed)", lastRefreshTime, futures.size());
+
+    return tags;
+  }
+
+  private String toKey(TenantAware context, User user, MetaMenu menu) {
+    return context.getTenant() + ":" + user.getCode() + ":" + menu.getName();
+  }
+
+  private CompletableFuture<String> submit(String key, Callable<String> task) {
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final CompletableFuture<String> running = pending.putIfAbsent(key, future);
+    if (running != null) {
+      return running;
+    }
+    try {
+      executor.execute(
+          () -> {
+            try {
+              final String tag = task.call();
+              cache.put(key, Optional.ofNullable(tag));
+              future.complete(tag);
+            } catch (Throwable e) {
+              future.completeExceptionally(e);
+            } finally {
+              pending.remove(key, future);
+            }
+          });
+    } catch (RuntimeException e) {
+      pending.remove(key, future);
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  /** The tag definition of a menu, detached from the persistence context. */
+  private static final class TagSource {
+
+    private final String name;
+    private final String call;
+    private final String action;
+    private final String model;
+
+    TagSource(MetaMenu menu) {
+      final MetaAction metaAction = menu.getAction();
+      this.name = menu.getName();
+      this.call = menu.getTagGet();
+      this.action = metaAction == null ? null : metaAction.getName();
+      this.model = metaAction == null ? null : metaAction.getModel();
+    }
+
+    @SuppressWarnings("all")
+    String compute(ActionExecutor actionExecutor) {
+      if (call != null) {
+        final ActionRequest request = new ActionRequest();
+        request.setAction(call);
+        try {
+          return (String) actionExecutor.execute(request).getItem(0);
+        } catch (Exception e) {
+          LOG.error("Unable to read tag for menu: {}", name);
+          LOG.trace("Error", e);
+          return null;
+        }
+      }
+
+      final ActionView act;
+      try {
+        act = (ActionView) MetaStore.getAction(action);
+      } catch (Exception e) {
+        return null;
+      }
+      if (act == null) {
+        return null;
+      }
+      final ActionRequest request = new ActionRequest();
+      request.setAction(action);
+      request.setModel(model);
+      request.setData(new HashMap<String, Object>());
+      try {
+        final JpaSecurity security = Beans.get(JpaSecurity.class);
+        final List<Filter> filters = new ArrayList<>();
+        final Class<? extends Model> modelClass = (Class<? extends Model>) request.getBeanClass();
+        final Filter securityFilter = security.getFilter(JpaSecurity.CAN_READ, modelClass);
+        if (securityFilter != null) {
+          filters.add(securityFilter);
+        } else if (!security.isPermitted(JpaSecurity.CAN_READ, modelClass)) {
+          return null;
+        }
+        final Map<String, Object> data =
+            (Map) ((Map) actionExecutor.execute(request).getItem(0)).get("view");
+        final Map<String, Object> params = (Map<String, Object>) data.get("params");
+        if (params == null || !Boolean.TRUE.equals(params.get("showArchived"))) {
+          filters.add(new JPQLFilter("self.archived IS NULL OR self.archived = FALSE"));
+        }
+        final String domain = (String) data.get("domain");
+        if (StringUtils.notBlank(domain)) {
+          filters.add(JPQLFilter.forDomain(domain));
+        }
+        final Filter filter = Filter.and(filters);
+        final Map<String, Object> context = (Map) data.get("context");
+        return String.valueOf(filter.build(modelClass).bind(context).count());
+      } catch (Exception e) {
+        LOG.error("Unable to read tag for menu: {}", name);
+        LOG.trace("Error", e);
+      }
+      return null;
+    }
+  }
+}
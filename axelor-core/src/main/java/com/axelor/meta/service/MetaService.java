@@ -27,7 +27,6 @@ import com.axelor.auth.db.User;
 import com.axelor.common.ObjectUtils;
 import com.axelor.common.StringUtils;
 import com.axelor.db.JPA;
-import com.axelor.db.JpaSecurity;
 import com.axelor.db.Model;
 import com.axelor.db.QueryBinder;
 import com.axelor.db.mapper.Mapper;
@@ -35,8 +34,6 @@ import com.axelor.i18n.I18n;
 import com.axelor.inject.Beans;
 import com.axelor.meta.ActionExecutor;
 import com.axelor.meta.MetaFiles;
-import com.axelor.meta.MetaStore;
-import com.axelor.meta.db.MetaAction;
 import com.axelor.meta.db.MetaActionMenu;
 import com.axelor.meta.db.MetaAttachment;
 import com.axelor.meta.db.MetaFile;
@@ -47,9 +44,9 @@ import com.axelor.meta.db.repo.MetaFileRepository;
 import com.axelor.meta.db.repo.MetaHelpRepository;
 import com.axelor.meta.db.repo.MetaViewCustomRepository;
 import com.axelor.meta.db.repo.MetaViewRepository;
+import com.axelor.meta.loader.ViewIndex;
 import com.axelor.meta.loader.XMLViews;
 import com.axelor.meta.schema.actions.Action;
-import com.axelor.meta.schema.actions.ActionView;
 import com.axelor.meta.schema.views.AbstractView;
 import com.axelor.meta.schema.views.ChartView;
 import com.axelor.meta.schema.views.ChartView.ChartConfig;
@@ -62,8 +59,6 @@ import com.axelor.rpc.ActionRequest;
 import com.axelor.rpc.ActionResponse;
 import com.axelor.rpc.Request;
 import com.axelor.rpc.Response;
-import com.axelor.rpc.filter.Filter;
-import com.axelor.rpc.filter.JPQLFilter;
 import com.axelor.script.CompositeScriptHelper;
 import com.axelor.script.ScriptBindings;
 import com.axelor.script.ScriptHelper;
@@ -82,6 +77,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.persistence.PersistenceException;
 import javax.persistence.Query;
@@ -104,6 +101,14 @@ public class MetaService {
 
   @Inject private ActionExecutor actionExecutor;
 
+  @Inject private MenuTagService menuTagService;
+
+  @Inject private SearchViewExecutor searchExecutor;
+
+  @Inject private DataSetCache dataSetCache;
+
+  @Inject private MaterializedDataSets materializedDataSets;
+
   private boolean canShow(
       MenuItem item,
       Map<String, MenuItem> map,
@@ -195,74 +200,6 @@ public class MetaService {
     return all;
   }
 
-  @SuppressWarnings("all")
-  private String getTag(MetaMenu item) {
-
-    final String tag = item.getTag();
-    final String call = item.getTagGet();
-    final MetaAction action = item.getAction();
-
-    if (tag != null) {
-      return tag;
-    }
-    if (call != null) {
-      final ActionRequest request = new ActionRequest();
-      request.setAction(call);
-      try {
-        return (String) actionExecutor.execute(request).getItem(0);
-      } catch (Exception e) {
-        LOG.error("Unable to read tag for menu: {}", item.getName());
-        LOG.trace("Error", e);
-        return null;
-      }
-    }
-
-    if (item.getTagCount() == Boolean.TRUE && action != null) {
-      final ActionView act;
-      try {
-        act = (ActionView) MetaStore.getAction(action.getName());
-      } catch (Exception e) {
-        return null;
-      }
-      if (act == null) {
-        return null;
-      }
-      final ActionRequest request = new ActionRequest();
-      request.setAction(action.getName());
-      request.setModel(action.getModel());
-      request.setData(new HashMap<String, Object>());
-      try {
-        final JpaSecurity security = Beans.get(JpaSecurity.class);
-        final List<Filter> filters = new ArrayList<>();
-        final Class<? extends Model> modelClass = (Class<? extends Model>) request.getBeanClass();
-        final Filter securityFilter = security.getFilter(JpaSecurity.CAN_READ, modelClass);
-        if (securityFilter != null) {
-          filters.add(securityFilter);
-        } else if (!security.isPermitted(JpaSecurity.CAN_READ, modelClass)) {
-          return null;
-        }
-        final Map<String, Object> data =
-            (Map) ((Map) actionExecutor.execute(request).getItem(0)).get("view");
-        final Map<String, Object> params = (Map<String, Object>) data.get("params");
-        if (params == null || !Boolean.TRUE.equals(params.get("showArchived"))) {
-          filters.add(new JPQLFilter("self.archived IS NULL OR self.archived = FALSE"));
-        }
-        final String domain = (String) data.get("domain");
-        if (StringUtils.notBlank(domain)) {
-          filters.add(JPQLFilter.forDomain(domain));
-        }
-        final Filter filter = Filter.and(filters);
-        final Map<String, Object> context = (Map) data.get("context");
-        return String.valueOf(filter.build(modelClass).bind(context).count());
-      } catch (Exception e) {
-        LOG.error("Unable to read tag for menu: {}", item.getName());
-        LOG.trace("Error", e);
-      }
-    }
-
-    return null;
-  }
-
   public List<MenuItem> getMenus(boolean withTagsOnly) {
     return getMenus(withTagsOnly, false, Collections.emptyList());
   }
@@ -436,7 +373,9 @@ public class MetaService {
     }
 
     final List<MenuItem> items = filter(menus.keySet(), true);
-    items.forEach(item -> item.setTag(getTag(menus.get(item))));
+    final Map<String, String> tags =
+        menuTagService.getTags(user, items.stream().map(menus::get).collect(Collectors.toList()));
+    items.forEach(item -> item.setTag(tags.get(item.getName())));
 
     return items;
   }
@@ -563,7 +502,7 @@ public class MetaService {
     Query deleteQuery =
         JPA.em().createQuery("DELETE FROM MetaViewCustom self WHERE self.name = :name");
     deleteQuery.setParameter("name", view.getName());
-    return deleteQuery.executeUpdate();
+    return invalidateCustomViews(deleteQuery.executeUpdate());
   }
 
   @Transactional
@@ -572,13 +511,33 @@ public class MetaService {
       return 0;
     }
 
-    return com.axelor.db.Query.of(MetaViewCustom.class)
-        .filter("self.name = :name AND self.user = :user")
-        .bind("name", view.getName())
-        .bind("user", user)
-        .delete();
+    return invalidateCustomViews(
+        com.axelor.db.Query.of(MetaViewCustom.class)
+            .filter("self.name = :name AND self.user = :user")
+            .bind("name", view.getName())
+            .bind("user", user)
+            .delete());
+  }
+
+  // bulk deletes bypass the interceptor, so drop the view index here, again after commit
+  private int invalidateCustomViews(int deleted) {
+    if (deleted > 0) {
+      ViewIndex.invalidate();
+      JPA.runAfterCommit(ViewIndex::invalidate);
+    }
+    return deleted;
   }
 
+  /**
+   * Run the search view query given with the request.
+   *
+   * <p>The selects are run concurrently when parallel search is enabled (see {@link
+   * SearchViewExecutor}), else one after the other. In both cases, the response data is merged in
+   * the order of the search selects, and a failing select fails the whole search.
+   *
+   * @param request the search request
+   * @return the response
+   */
   @SuppressWarnings("all")
   public Response runSearch(Request request) {
     Response response = new Response();
@@ -590,55 +549,67 @@ public class MetaService {
     LOG.debug("Search : {}", name);
 
     Search search = (Search) XMLViews.findView(name, "search");
-    ScriptHelper helper = search.scriptHandler(context);
+
+    List<Search.SearchSelect> selects = new ArrayList<>();
+    for (Search.SearchSelect select : search.getSelects()) {
+      if (selected == null || selected.contains(select.getModel())) {
+        selects.add(select);
+      }
+    }
+
+    LOG.debug("Param : {}", context);
 
     List<Object> data = Lists.newArrayList();
 
-    for (Search.SearchSelect select : search.getSelects()) {
+    searchExecutor.run(
+        selects,
+        select -> runSearch(search, select, search.scriptHandler(context), request),
+        data,
+        response);
 
-      if (selected != null && !selected.contains(select.getModel())) {
-        continue;
-      }
+    LOG.debug("Total : {}", data.size());
 
-      LOG.debug("Model : {}", select.getModel());
-      LOG.debug("Param : {}", context);
+    response.setData(data);
+    response.setStatus(Response.STATUS_SUCCESS);
 
-      Query query;
-      try {
-        query = select.toQuery(search, helper);
-      } catch (ClassNotFoundException e) {
-        throw new IllegalArgumentException(e);
-      }
-      List<?> items = Lists.newArrayList();
+    return response;
+  }
 
-      LOG.debug("Query : {}", select.getQueryString());
+  @SuppressWarnings("all")
+  private List<?> runSearch(
+      Search search, Search.SearchSelect select, ScriptHelper helper, Request request) {
 
-      if (query != null) {
-        query.setFirstResult(request.getOffset());
-        query.setMaxResults(search.getLimit());
-        items = query.getResultList();
-      }
+    LOG.debug("Model : {}", select.getModel());
 
-      LOG.debug("Found : {}", items.size());
+    Query query;
+    try {
+      query = select.toQuery(search, helper);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalArgumentException(e);
+    }
+    List<?> items = Lists.newArrayList();
 
-      for (Object item : items) {
-        if (item instanceof Map) {
-          ((Map) item).put("_model", select.getModel());
-          ((Map) item).put("_modelTitle", select.getLocalizedTitle());
-          ((Map) item).put("_form", select.getFormView());
-          ((Map) item).put("_grid", select.getGridView());
-        }
-      }
+    LOG.debug("Query : {}", select.getQueryString());
 
-      data.addAll(items);
+    if (query != null) {
+      query.setFirstResult(request.getOffset());
+      query.setMaxResults(search.getLimit());
+      searchExecutor.applyTimeout(query);
+      items = query.getResultList();
     }
 
-    LOG.debug("Total : {}", data.size());
+    LOG.debug("Found : {}", items.size());
 
-    response.setData(data);
-    response.setStatus(Response.STATUS_SUCCESS);
+    for (Object item : items) {
+      if (item instanceof Map) {
+        ((Map) item).put("_model", select.getModel());
+        ((Map) item).put("_modelTitle", select.getLocalizedTitle());
+        ((Map) item).put("_form", select.getFormView());
+        ((Map) item).put("_grid", select.getGridView());
+      }
+    }
 
-    return response;
+    return items;
   }
 
   public Response getAttachment(long id, String model, Request request) {
@@ -766,20 +737,28 @@ public class MetaService {
 
         data.put("dataset", res.getData());
 
+      } else if (MaterializedDataSets.isMaterialized(chart.getDataSet())) {
+        data.put("dataset", materializedDataSets.fetch(name, chart.getDataSet()));
       } else {
-        Query query =
-            "sql".equals(chart.getDataSet().getType())
-                ? JPA.em().createNativeQuery(string)
-                : JPA.em().createQuery(string);
+        final boolean bind = request.getData() != null;
+        final Callable<List<?>> loader =
+            () -> {
+              Query query =
+                  "sql".equals(chart.getDataSet().getType())
+                      ? JPA.em().createNativeQuery(string)
+                      : JPA.em().createQuery(string);
 
-        // return result as list of map
-        this.transformQueryResult(query);
+              // return result as list of map
+              this.transformQueryResult(query);
 
-        if (request.getData() != null) {
-          QueryBinder.of(query).bind(context);
-        }
+              if (bind) {
+                QueryBinder.of(query).bind(context);
+              }
 
-        data.put("dataset", query.getResultList());
+              return query.getResultList();
+            };
+
+        data.put("dataset", dataSetCache.get(name, chart.getDataSet(), request.getData(), loader));
       }
     }
 
@@ -871,30 +850,47 @@ public class MetaService {
       res = actionExecutor.execute(req);
 
       data.put("dataset", res.getData());
+    } else if (MaterializedDataSets.isMaterialized(dataSet)) {
+      data.put("dataset", materializedDataSets.fetch(viewName, dataSet));
     } else {
-      Query query =
-          "sql".equals(report.getDataSet().getType())
-              ? JPA.em().createNativeQuery(dataSet.getText())
-              : JPA.em().createQuery(dataSet.getText());
-
-      if (request.getLimit() > 0) {
-        query.setMaxResults(request.getLimit());
-      }
-      if (request.getOffset() > 0) {
-        query.setFirstResult(request.getOffset());
-      }
-      if (dataSet.getLimit() != null && dataSet.getLimit() > 0) {
-        query.setMaxResults(dataSet.getLimit());
-      }
-
-      // return result as list of map
-      this.transformQueryResult(query);
-
+      final int limit = request.getLimit();
+      final int offset = request.getOffset();
+      final boolean bind = request.getData() != null;
+      final Callable<List<?>> loader =
+          () -> {
+            Query query =
+                "sql".equals(report.getDataSet().getType())
+                    ? JPA.em().createNativeQuery(dataSet.getText())
+                    : JPA.em().createQuery(dataSet.getText());
+
+            if (limit > 0) {
+              query.setMaxResults(limit);
+            }
+            if (offset > 0) {
+              query.setFirstResult(offset);
+            }
+            if (dataSet.getLimit() != null && dataSet.getLimit() > 0) {
+              query.setMaxResults(dataSet.getLimit());
+            }
+
+            // return result as list of map
+            this.transformQueryResult(query);
+
+            if (bind) {
+              QueryBinder.of(query).bind(context);
+            }
+
+            return query.getResultList();
+          };
+
+      final Map<String, Object> params = new HashMap<>();
       if (request.getData() != null) {
-        QueryBinder.of(query).bind(context);
+        params.putAll(request.getData());
       }
+      params.put("_limit", limit);
+      params.put("_offset", offset);
 
-      data.put("dataset", query.getResultList());
+      data.put("dataset", dataSetCache.get(viewName, dataSet, params, loader));
     }
 
     return response;
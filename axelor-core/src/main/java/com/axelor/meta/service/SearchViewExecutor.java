@@ -0,0 +1,167 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.service;
+
+import com.axelor.app.AppSettings;
+import com.axelor.app.AvailableAppSettings;
+import com.axelor.db.tenants.TenantAware;
+import com.axelor.meta.schema.views.Search.SearchSelect;
+import com.axelor.rpc.Response;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import javax.inject.Singleton;
+import javax.persistence.Query;
+import org.hibernate.annotations.QueryHints;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the selects of a search view concurrently.
+ *
+ * <p>The parallel mode is enabled with <code>search.view.threads</code> setting. Each select is run
+ * by a worker thread with its own entity manager and connection, and is given at most <code>
+ * search.view.timeout</code> seconds to complete. Selects that time out are skipped and reported
+ * as response errors, while a failing select fails the whole search as in sequential mode.
+ */
+@Singleton
+public class SearchViewExecutor {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SearchViewExecutor.class);
+
+  private static final int DEFAULT_TIMEOUT = 30;
+
+  private final int threads;
+
+  private final int timeout;
+
+  private ExecutorService executor;
+
+  public SearchViewExecutor() {
+    this(
+        AppSettings.get().getInt(AvailableAppSettings.SEARCH_VIEW_THREADS, 0),
+        AppSettings.get().getInt(AvailableAppSettings.SEARCH_VIEW_TIMEOUT, DEFAULT_TIMEOUT));
+  }
+
+  SearchViewExecutor(int threads, int timeout) {
+    this.threads = threads;
+    this.timeout = timeout;
+  }
+
+  /**
+   * Whether parallel execution is enabled.
+   *
+   * @return true if enabled
+   */
+  public boolean isEnabled() {
+    return threads > 0;
+  }
+
+  /**
+   * Apply the per select timeout on the given query.
+   *
+   * @param query the select query
+   */
+  public void applyTimeout(Query query) {
+    if (isEnabled() && timeout > 0) {
+      query.setHint(QueryHints.TIMEOUT_JPA, (int) TimeUnit.SECONDS.toMillis(timeout));
+    }
+  }
+
+  private synchronized ExecutorService getExecutor() {
+    if (executor == null) {
+      executor =
+          Executors.newFixedThreadPool(
+              threads,
+              new ThreadFactoryBuilder().setNameFormat("search-view-%d").setDaemon(true).build());
+    }
+    return executor;
+  }
+
+  /**
+   * Run the given selects.
+   *
+   * <p>When parallel execution is enabled, the selects are run concurrently by the worker threads,
+   * else one after the other by the calling thread. The results are merged in the given collection
+   * in select order by the calling thread only. In both modes, a failing select fails the search
+   * with its error, while selects that time out are skipped and reported as response errors.
+   *
+   * @param selects the selects to run
+   * @param task the task running a select
+   * @param data the collection to merge the results in select order
+   * @param response the response to report timed out selects
+   */
+  public void run(
+      List<SearchSelect> selects,
+      Function<SearchSelect, List<?>> task,
+      Collection<Object> data,
+      Response response) {
+
+    if (!isEnabled() || selects.size() < 2) {
+      for (SearchSelect select : selects) {
+        data.addAll(task.apply(select));
+      }
+      return;
+    }
+
+    final TenantAware context = TenantAware.capture();
+    final ExecutorService service = getExecutor();
+    final List<Future<List<?>>> futures = new ArrayList<>();
+
+    for (SearchSelect select : selects) {
+      futures.add(service.submit(context.wrap(() -> task.apply(select))));
+    }
+
+    final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeout);
+
+    for (int i = 0; i < selects.size(); i++) {
+      final String model = selects.get(i).getModel();
+      final Future<List<?>> future = futures.get(i);
+      try {
+        final long wait = timeout > 0 ? deadline - System.currentTimeMillis() : Long.MAX_VALUE;
+        data.addAll(future.get(wait, TimeUnit.MILLISECONDS));
+      } catch (InterruptedException e) {
+        futures.forEach(f -> f.cancel(true));
+        Thread.currentThread().interrupt();
+        return;
+      } catch (TimeoutException e) {
+        LOG.error("Search timeout: {}", model);
+        future.cancel(true);
+        response.addError(model, "timeout");
+      } catch (ExecutionException e) {
+        futures.forEach(f -> f.cancel(true));
+        final Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+    }
+  }
+}
@@ -22,28 +22,25 @@ import com.axelor.app.AvailableAppSettings;
 import com.axelor.auth.AuthUtils;
 import com.axelor.auth.db.User;
 import com.axelor.common.StringUtils;
-import com.axelor.common.csv.CSVFile;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
 import com.axelor.i18n.I18n;
 import com.axelor.i18n.I18nBundle;
 import com.axelor.inject.Beans;
-import com.axelor.meta.MetaScanner;
 import com.axelor.meta.MetaStore;
 import com.axelor.meta.db.MetaAction;
 import com.axelor.meta.db.MetaAttrs;
 import com.axelor.meta.db.MetaField;
 import com.axelor.meta.db.MetaJsonField;
 import com.axelor.meta.db.MetaModel;
-import com.axelor.meta.db.MetaTranslation;
 import com.axelor.meta.db.MetaView;
 import com.axelor.meta.db.repo.MetaAttrsRepository;
-import com.axelor.meta.db.repo.MetaTranslationRepository;
 import com.axelor.meta.loader.ModuleManager;
 import com.axelor.meta.loader.XMLViews;
 import com.axelor.meta.schema.ObjectViews;
 import com.axelor.meta.schema.actions.Action;
 import com.axelor.meta.schema.actions.ActionView;
+import com.axelor.meta.service.I18nExporter;
 import com.axelor.meta.service.MetaService;
 import com.axelor.rpc.ActionRequest;
 import com.axelor.rpc.ActionResponse;
@@ -51,12 +48,7 @@ import com.axelor.rpc.Context;
 import com.axelor.script.ScriptHelper;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
-import com.google.common.io.Files;
 import com.google.inject.Inject;
-import java.io.IOException;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
@@ -67,9 +59,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import javax.xml.bind.JAXBException;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVPrinter;
-import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -77,7 +66,7 @@ public class MetaController {
 
   @Inject private ModuleManager moduleManager;
 
-  @Inject private MetaTranslationRepository translations;
+  @Inject private I18nExporter i18nExporter;
 
   private static final Logger log = LoggerFactory.getLogger(MetaController.class);
 
@@ -269,63 +258,25 @@ public class MetaController {
   private static final String EXPORT_DIR =
       AppSettings.get().getPath(AvailableAppSettings.DATA_EXPORT_DIR, DEFAULT_EXPORT_DIR);
 
-  private void exportI18n(String module, URL file) throws IOException {
-
-    String name = Paths.get(file.getFile()).getFileName().toString();
-    if (!name.startsWith("messages_")) {
-      return;
-    }
-
-    Path path = Paths.get(EXPORT_DIR, "i18n");
-    String lang = name.substring(9, name.length() - 4);
-    Path target = path.resolve(Paths.get(module, "src/main/resources/i18n", name));
-
-    final List<String[]> items = new ArrayList<>();
-    final CSVFile csv = CSVFile.DEFAULT.withFirstRecordAsHeader();
-
-    try (CSVParser csvParser = csv.parse(file.openStream(), StandardCharsets.UTF_8)) {
-      for (CSVRecord record : csvParser) {
-
-        if (CSVFile.isEmpty(record)) {
-          continue;
-        }
-
-        final Map<String, String> map = record.toMap();
-
-        String key = map.get("key");
-        String value = map.get("value");
-
-        if (StringUtils.isBlank(key)) {
-          continue;
-        }
-
-        MetaTranslation tr = translations.findByKey(key, lang);
-        if (tr != null) {
-          value = tr.getMessage();
-        }
-        String[] row = {key, value, map.get("comment"), map.get("context")};
-        items.add(row);
-      }
-    }
-
-    Files.createParentDirs(target.toFile());
-
-    try (CSVPrinter printer = CSVFile.DEFAULT.withQuoteAll().write(target.toFile())) {
-      printer.printRecord("key", "message", "comment", "context");
-      printer.printRecords(items);
-    }
-  }
-
   public void exportI18n(ActionRequest request, ActionResponse response) {
-    for (String module : ModuleManager.getResolution()) {
-      for (URL file : MetaScanner.findAll(module, "i18n", "(.*?)\\.csv")) {
-        try {
-          exportI18n(module, file);
-        } catch (IOException e) {
-          throw new RuntimeException(e);
-        }
-      }
-    }
-    response.setFlash(I18n.get("Export complete."));
+    final Instant startInstant = Instant.now();
+    final I18nExporter.Summary summary = i18nExporter.export(Paths.get(EXPORT_DIR, "i18n"));
+    final Duration duration = Duration.between(startInstant, Instant.now());
+    final String durationTime =
+        LocalTime.MIN.plusSeconds(duration.getSeconds()).format(DateTimeFormatter.ISO_LOCAL_TIME);
+    response.setFlash(
+        I18n.get("Export complete.")
+            + "<br>"
+            + String.format(
+                I18n.get("%d files of %d modules and %d languages exported (%s)."),
+                summary.getFiles(),
+                summary.getModules(),
+                summary.getLanguages(),
+                durationTime)
+            + "<br>"
+            + String.format(
+                I18n.get("%d of %d messages translated."),
+                summary.getTranslated(),
+                summary.getMessages()));
   }
 }
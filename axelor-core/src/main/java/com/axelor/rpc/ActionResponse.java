@@ -36,6 +36,8 @@ public class ActionResponse extends Response {
 
   private Map<String, Object> dataMap;
 
+  private Map<String, Object> trace;
+
   private static final Logger log = LoggerFactory.getLogger(ActionResponse.class);
 
   private Map<String, Object> dataMap() {
@@ -53,6 +55,25 @@ public class ActionResponse extends Response {
     dataMap().put(name, value);
   }
 
+  /**
+   * Get the execution trace of the actions, if requested.
+   *
+   * @return the trace tree
+   */
+  public Map<String, Object> getTrace() {
+    return trace;
+  }
+
+  /**
+   * Set the execution trace of the actions.
+   *
+   * @param trace the trace tree
+   * @see com.axelor.meta.ActionTracer
+   */
+  public void setTrace(Map<String, Object> trace) {
+    this.trace = trace;
+  }
+
   /**
    * Set the <i>reload</i> flag.
    *
@@ -126,6 +126,13 @@ public class Resource<T extends Model> {
 
   private static final Pattern NAME_PATTERN = Pattern.compile("[\\w\\.]+");
 
+  private static final int SECURITY_CHUNK_SIZE = 1000;
+
+  private static final int MASS_UPDATE_CHUNK_SIZE =
+      AppSettings.get().getInt(AvailableAppSettings.DATA_MASS_UPDATE_CHUNK_SIZE, 1000);
+  private static final long MASS_UPDATE_THROTTLE =
+      AppSettings.get().getInt(AvailableAppSettings.DATA_MASS_UPDATE_THROTTLE, 0);
+
   @Inject
   @SuppressWarnings("unchecked")
   public Resource(
@@ -152,6 +159,12 @@ public class Resource<T extends Model> {
     return null;
   }
 
+  private void checkAll(AccessType type, List<Long> ids) {
+    for (List<Long> chunk : Lists.partition(ids, SECURITY_CHUNK_SIZE)) {
+      security.get().check(type, model, chunk.toArray(new Long[] {}));
+    }
+  }
+
   private void firePreRequestEvent(String source, Request request) {
     preRequest
         .select(NamedLiteral.of(source), EntityTypes.type(model))
@@ -472,11 +485,12 @@ public class Resource<T extends Model> {
         if (populate) {
           item = repo.populate(map, request.getContext());
         }
-        Translator.applyTranslatables(map, model);
       }
       jsonData.add(item);
     }
 
+    Translator.applyTranslatables(jsonData, model, request.getFields());
+
     try {
       // check for children (used by tree view)
       doChildCount(request, jsonData);
@@ -1023,50 +1037,76 @@ public class Resource<T extends Model> {
       names = request.getFields().toArray(names);
     }
 
+    // validate the records before checking permissions
+    final List<Object> items = Lists.newArrayList();
     for (Object record : records) {
-
-      if (record == null) {
-        continue;
+      if (record != null) {
+        items.add(repository.validate((Map) record, request.getContext()));
       }
+    }
 
-      record = (Map) repository.validate((Map) record, request.getContext());
+    // load all the records and their references at once
+    JPA.preload(model, items);
 
+    // check permissions once for all the records
+    final List<Long> ids = Lists.newArrayList();
+    boolean creating = false;
+    for (Object record : items) {
       Long id = findId((Map) record);
-      JpaSecurity.AccessType accessType =
-          id == null || id <= 0L ? JpaSecurity.CAN_CREATE : JpaSecurity.CAN_WRITE;
-
       if (id == null || id <= 0L) {
-        security.get().check(JpaSecurity.CAN_CREATE, model);
+        creating = true;
+      } else {
+        ids.add(id);
       }
+    }
+    if (creating) {
+      security.get().check(JpaSecurity.CAN_CREATE, model);
+    }
+    checkAll(JpaSecurity.CAN_WRITE, ids);
 
-      Map<String, Object> orig = (Map) ((Map) record).get("_original");
-      JPA.verify(model, orig);
+    final List<Model> beans = Lists.newArrayList();
+    final List<Long> created = Lists.newArrayList();
+    final List<Long> updated = Lists.newArrayList();
 
-      Model bean = JPA.edit(model, (Map) record);
-      id = bean.getId();
+    // flush once, so that the statements are sent with jdbc batching
+    JPA.runWithDeferredFlush(
+        () -> {
+          for (Object record : items) {
 
-      if (bean != null && id != null && id > 0L) {
-        security.get().check(JpaSecurity.CAN_WRITE, model, id);
-      }
+            Long id = findId((Map) record);
+            boolean create = id == null || id <= 0L;
 
-      // if user, update password
-      if (bean instanceof User) {
-        changeUserPassword((User) bean, (Map) record);
-      }
+            Map<String, Object> orig = (Map) ((Map) record).get("_original");
+            JPA.verify(model, orig);
 
-      bean = JPA.manage(bean);
-      if (repository != null) {
-        bean = repository.save(bean);
-      }
+            Model bean = JPA.edit(model, (Map) record);
 
-      // check permission rules again
-      security.get().check(accessType, model, bean.getId());
+            // if user, update password
+            if (bean instanceof User) {
+              changeUserPassword((User) bean, (Map) record);
+            }
 
-      // if it's a translation object, invalidate cache
-      if (bean instanceof MetaTranslation) {
-        I18nBundle.invalidate();
-      }
+            bean = JPA.manage(bean);
+            if (repository != null) {
+              bean = repository.save(bean);
+            }
+
+            beans.add(bean);
+            (create ? created : updated).add(bean.getId());
+          }
+          return beans;
+        });
 
+    // check permission rules again
+    checkAll(JpaSecurity.CAN_CREATE, created);
+    checkAll(JpaSecurity.CAN_WRITE, updated);
+
+    // if it's a translation object, invalidate cache
+    if (MetaTranslation.class.isAssignableFrom(model)) {
+      I18nBundle.invalidate();
+    }
+
+    for (Model bean : beans) {
       data.add(repository.populate(toMap(bean, names), request.getContext()));
     }
 
@@ -1078,8 +1118,15 @@ public class Resource<T extends Model> {
     return response;
   }
 
-  @Transactional
   public Response updateMass(Request request) {
+    if (MASS_UPDATE_CHUNK_SIZE > 0) {
+      return updateMassInChunks(request);
+    }
+    return updateMassAll(request);
+  }
+
+  @Transactional
+  protected Response updateMassAll(Request request) {
 
     security.get().check(JpaSecurity.CAN_WRITE, model);
 
@@ -1111,6 +1158,70 @@ public class Resource<T extends Model> {
     return response;
   }
 
+  /**
+   * Update the matched records in chunks, each chunk committed in its own transaction so that row
+   * locks are not held during the whole update. The request events are fired in their own
+   * transactions.
+   */
+  protected Response updateMassInChunks(Request request) {
+
+    security.get().check(JpaSecurity.CAN_WRITE, model);
+
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Mass update '{}' with", model.getCanonicalName(), request.getData());
+    } else {
+      LOG.debug("Mass update '{}'", model.getCanonicalName());
+    }
+
+    JPA.runInTransaction(() -> firePreRequestEvent(RequestEvent.MASS_UPDATE, request));
+
+    Response response = new Response();
+
+    Query<?> query = getQuery(request);
+    List<?> data = request.getRecords();
+
+    LOG.debug("JPQL: {}", query);
+
+    @SuppressWarnings("all")
+    Map<String, Object> values = (Map) data.get(0);
+    User user = AuthUtils.getUser();
+
+    final long start = System.currentTimeMillis();
+    final int[] updated = {0};
+
+    try {
+      response.setTotal(
+          query.update(
+              values,
+              user,
+              MASS_UPDATE_CHUNK_SIZE,
+              MASS_UPDATE_THROTTLE,
+              count -> {
+                updated[0] = count;
+                LOG.info(
+                    "Mass update '{}': {} records updated in {} ms",
+                    model.getCanonicalName(),
+                    count,
+                    System.currentTimeMillis() - start);
+              }));
+    } catch (RuntimeException e) {
+      // the chunks already committed are not rolled back
+      LOG.error(
+          "Mass update '{}' failed, {} records already updated",
+          model.getCanonicalName(),
+          updated[0]);
+      throw e;
+    }
+
+    LOG.debug("Records updated: {}", response.getTotal());
+
+    response.setStatus(Response.STATUS_SUCCESS);
+
+    JPA.runInTransaction(() -> firePostRequestEvent(RequestEvent.MASS_UPDATE, request, response));
+
+    return response;
+  }
+
   @Transactional
   @SuppressWarnings("all")
   public Response remove(long id, Request request) {
@@ -1158,7 +1269,7 @@ public class Resource<T extends Model> {
 
     firePreRequestEvent(RequestEvent.REMOVE, request);
 
-    final List<Model> entities = Lists.newArrayList();
+    final Map<Long, Integer> versions = Maps.newLinkedHashMap();
 
     for (Object record : records) {
       Map map = (Map) record;
@@ -1168,8 +1279,20 @@ public class Resource<T extends Model> {
         version = Ints.tryParse(map.get("version").toString());
       } catch (Exception e) {
       }
+      versions.put(id, version);
+    }
+
+    // check permissions once for all the records
+    checkAll(JpaSecurity.CAN_REMOVE, Lists.newArrayList(versions.keySet()));
+
+    // load all the records at once
+    JPA.preload(model, records);
+
+    final List<Model> entities = Lists.newArrayList();
 
-      security.get().check(JpaSecurity.CAN_REMOVE, model, id);
+    for (Map.Entry<Long, Integer> entry : versions.entrySet()) {
+      Long id = entry.getKey();
+      Integer version = entry.getValue();
       Model bean = JPA.find(model, id);
 
       if (bean == null || (version != null && !Objects.equal(version, bean.getVersion()))) {
@@ -1178,6 +1301,7 @@ public class Resource<T extends Model> {
       entities.add(bean);
     }
 
+    // removals are not flushed one by one, the deletes are sent together on commit
     for (Model entity : entities) {
       if (repository == null) {
         JPA.remove(entity);
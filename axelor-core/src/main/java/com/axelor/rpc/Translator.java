@@ -21,16 +21,24 @@ import com.axelor.common.StringUtils;
 import com.axelor.db.mapper.Mapper;
 import com.axelor.db.mapper.Property;
 import com.axelor.i18n.I18n;
-import java.util.Arrays;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.ResourceBundle;
 import javax.annotation.Nullable;
 
 final class Translator {
 
+  private static final LoadingCache<Class<?>, Plan> PLANS =
+      CacheBuilder.newBuilder().maximumSize(1000).weakKeys().build(CacheLoader.from(Plan::new));
+
   private Translator() {}
 
   private static String getTranslation(String value) {
@@ -55,16 +63,18 @@ final class Translator {
   @Nullable
   private static Property getProperty(Mapper mapper, String field) {
     Property property = null;
-    Iterator<String> names = Arrays.stream(field.split("\\.")).iterator();
-    while (names.hasNext()) {
-      property = mapper.getProperty(names.next());
-      if (property == null) return null;
-      if (names.hasNext()) {
-        if (property.getTarget() == null) return null;
-        mapper = Mapper.of(property.getTarget());
+    int start = 0;
+    while (true) {
+      int end = field.indexOf('.', start);
+      String name = end < 0 ? field.substring(start) : field.substring(start, end);
+      property = mapper.getProperty(name);
+      if (property == null || end < 0) {
+        return property;
       }
+      if (property.getTarget() == null) return null;
+      mapper = Mapper.of(property.getTarget());
+      start = end + 1;
     }
-    return property;
   }
 
   static Map<String, Object> translate(Map<String, Object> values, Property property) {
@@ -83,25 +93,143 @@ final class Translator {
   }
 
   static void applyTranslatables(Map<String, Object> values, Class<?> model) {
-    final Mapper mapper = Mapper.of(model);
-    final Collection<String> names = values.keySet().stream().collect(Collectors.toList());
-
-    names.forEach(
-        name -> {
-          final Object value = values.get(name);
-          if (value instanceof String) {
-            final Property property = getProperty(mapper, name);
-            if (property != null && property.isTranslatable()) {
-              translate(values, name);
-            }
-          } else if (value instanceof Map) {
-            final Property property = getProperty(mapper, name);
-            if (property != null && property.getTarget() != null) {
-              @SuppressWarnings("unchecked")
-              final Map<String, Object> map = (Map<String, Object>) value;
-              applyTranslatables(map, property.getTarget());
+    plan(model).apply(values, new Values());
+  }
+
+  /**
+   * Apply translatable values on all the given records.
+   *
+   * <p>The translatable paths are resolved once per model and requested fields, and the value
+   * translations are looked up once per distinct value for the whole batch.
+   *
+   * @param items the records, as returned by search
+   * @param model the model class of the records
+   * @param fields the requested fields, may be null
+   */
+  static void applyTranslatables(
+      Collection<?> items, Class<?> model, @Nullable Collection<String> fields) {
+    final Plan plan = plan(model);
+    final Values values = new Values();
+
+    if (fields != null) {
+      fields.forEach(plan::resolve);
+    }
+
+    for (Object item : items) {
+      if (item instanceof Map) {
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> map = (Map<String, Object>) item;
+        plan.apply(map, values);
+      }
+    }
+  }
+
+  private static Plan plan(Class<?> model) {
+    return PLANS.getUnchecked(model);
+  }
+
+  static long size(Class<?> model) {
+    return plan(model).steps.size();
+  }
+
+  /** The resolved translation instruction of a single key. */
+  private static final class Step {
+
+    private static final Step NONE = new Step(false, null);
+
+    private final boolean translatable;
+    private final Class<?> target;
+
+    private Step(boolean translatable, Class<?> target) {
+      this.translatable = translatable;
+      this.target = target;
+    }
+  }
+
+  /**
+   * Per-model cache of resolved translatable paths.
+   *
+   * <p>The names come from the request, so only the ones resolving to a property are kept, and
+   * their number is bounded.
+   */
+  private static final class Plan {
+
+    private static final int MAX_STEPS = 1000;
+
+    private final Mapper mapper;
+    private final Cache<String, Step> steps =
+        CacheBuilder.newBuilder().maximumSize(MAX_STEPS).build();
+
+    Plan(Class<?> model) {
+      this.mapper = Mapper.of(model);
+    }
+
+    Step resolve(String name) {
+      Step step = steps.getIfPresent(name);
+      if (step == null) {
+        step = compute(name);
+        if (step != Step.NONE) {
+          steps.put(name, step);
+        }
+      }
+      return step;
+    }
+
+    private Step compute(String name) {
+      final Property property = getProperty(mapper, name);
+      if (property == null) {
+        return Step.NONE;
+      }
+      if (property.isTranslatable() || property.getTarget() != null) {
+        return new Step(property.isTranslatable(), property.getTarget());
+      }
+      return Step.NONE;
+    }
+
+    void apply(Map<String, Object> values, Values translations) {
+      final List<String> names = new ArrayList<>(values.keySet());
+      for (String name : names) {
+        final Object value = values.get(name);
+        if (value instanceof String) {
+          final Step step = resolve(name);
+          if (step.translatable) {
+            final String val = translations.get((String) value);
+            if (!Objects.equals(val, value)) {
+              values.put(toKey(name), val);
             }
           }
-        });
+        } else if (value instanceof Map) {
+          final Step step = resolve(name);
+          if (step.target != null) {
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> map = (Map<String, Object>) value;
+            plan(step.target).apply(map, translations);
+          }
+        }
+      }
+    }
+  }
+
+  /** Request scoped value translation lookup. */
+  private static final class Values {
+
+    private final Map<String, String> cache = new HashMap<>();
+    private ResourceBundle bundle;
+
+    String get(String value) {
+      if (StringUtils.isBlank(value)) {
+        return value;
+      }
+      return cache.computeIfAbsent(value, this::lookup);
+    }
+
+    private String lookup(String value) {
+      if (bundle == null) {
+        bundle = I18n.getBundle();
+      }
+      final String key = toValueKey(value);
+      final String val = bundle.getString(key);
+      return Objects.equals(val, key) ? value : val;
+    }
   }
 }
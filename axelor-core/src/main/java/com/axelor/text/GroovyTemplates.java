@@ -65,6 +65,8 @@ public class GroovyTemplates implements Templates {
 
     private String text;
 
+    private volatile groovy.text.Template compiled;
+
     public GroovyTemplate(String text) {
       this.text = text;
     }
@@ -130,16 +132,24 @@ public class GroovyTemplates implements Templates {
       return builder.toString();
     }
 
+    private groovy.text.Template compile() throws Exception {
+      groovy.text.Template template = compiled;
+      if (template == null) {
+        final String text = process(this.text);
+        final TemplateEngine engine = isWordTemplate(text) ? STREAMING_ENGINE : GSTRING_ENGINE;
+        compiled = template = engine.createTemplate(text);
+      }
+      return template;
+    }
+
     @Override
     public Renderer make(final Map<String, Object> context) {
       final ScriptBindings bindings = new ScriptBindings(context);
-      final String text = process(this.text);
-      final TemplateEngine engine = isWordTemplate(text) ? STREAMING_ENGINE : GSTRING_ENGINE;
 
       bindings.put("__fmt__", new FormatHelper());
 
       try {
-        final groovy.text.Template template = engine.createTemplate(text);
+        final groovy.text.Template template = compile();
         return new Renderer() {
 
           @Override
@@ -272,15 +272,17 @@ public class StringTemplates implements Templates {
       return new Renderer() {
         @Override
         public void render(Writer out) throws IOException {
+          // render a copy, the compiled template can be rendered several times
+          final ST instance = new ST(template);
           final ScriptBindings vars = new ScriptBindings(context);
           for (String name : names) {
             try {
-              template.add(name, vars.get(name));
+              instance.add(name, vars.get(name));
             } catch (Exception e) {
             }
           }
           try {
-            template.write(new AutoIndentWriter(out), locale);
+            instance.write(new AutoIndentWriter(out), locale);
           } catch (Exception e) {
           }
         }
@@ -28,6 +28,7 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
@@ -151,6 +152,26 @@ public class QueryTest extends JpaTest {
     Assert.assertEquals(count, removed);
   }
 
+  @Test
+  @Transactional
+  public void testChunkedRemove() {
+    for (int i = 0; i < 1201; i++) {
+      Contact c = new Contact();
+      c.setFirstName("Chunk " + i);
+      c.setLastName(i % 2 == 0 ? "Chunked Remove" : "Chunked Keep");
+      JPA.em().persist(c);
+    }
+    final Query<Contact> q =
+        all(Contact.class)
+            .filter("self.lastName = ?1 OR self.firstName = ?2", "Chunked Remove", "Chunk 1");
+    final long count = q.count();
+    Assert.assertEquals(602, count);
+    Assert.assertEquals(count, q.remove());
+    Assert.assertEquals(0, q.count());
+    Assert.assertEquals(
+        599, all(Contact.class).filter("self.lastName = ?1", "Chunked Keep").count());
+  }
+
   @Test
   @Transactional
   public void testBulkUpdate() {
@@ -194,6 +215,40 @@ public class QueryTest extends JpaTest {
     }
   }
 
+  @Test
+  public void testChunkedUpdate() {
+    inTransaction(
+        () -> {
+          for (int i = 0; i < 5; i++) {
+            JPA.em().persist(new Contact("Update " + i, "Chunked Update"));
+          }
+        });
+
+    final Query<Contact> q =
+        all(Contact.class)
+            .filter("self.lastName = ?1 OR self.firstName = ?2", "Chunked Update", "Update 0");
+    final Map<String, Object> values = ImmutableMap.of("self.lang", "FR", "self.food", "cheese");
+    final List<Integer> progress = new ArrayList<>();
+    final long start = System.currentTimeMillis();
+
+    final int updated = q.update(values, null, 2, 50, progress::add);
+
+    // 3 chunks, with a pause between each
+    Assert.assertEquals(5, updated);
+    Assert.assertEquals(Arrays.asList(2, 4, 5), progress);
+    Assert.assertTrue(System.currentTimeMillis() - start >= 100);
+
+    getEntityManager().clear();
+
+    for (Contact c : q.fetch()) {
+      Assert.assertEquals("FR", c.getLang());
+      Assert.assertEquals("cheese", c.getFood());
+    }
+
+    // already updated records are not matched anymore
+    Assert.assertEquals(0, q.update(values, null, 2, 0, null));
+  }
+
   @Test
   public void testJDBC() {
 
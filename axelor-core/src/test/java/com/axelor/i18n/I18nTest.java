@@ -18,17 +18,39 @@
 package com.axelor.i18n;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import com.axelor.JpaTest;
+import com.axelor.common.StringUtils;
+import com.axelor.common.csv.CSVFile;
 import com.axelor.meta.db.MetaTranslation;
 import com.axelor.meta.db.repo.MetaTranslationRepository;
+import com.axelor.meta.service.I18nExporter;
 import com.google.inject.persist.Transactional;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import javax.inject.Inject;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVPrinter;
+import org.apache.commons.csv.CSVRecord;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class I18nTest extends JpaTest {
 
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
   @Inject private MetaTranslationRepository translations;
 
   @Before
@@ -70,4 +92,91 @@ public class I18nTest extends JpaTest {
     assertEquals(
         "5 records selected.", I18n.get("{0} record selected.", "{0} records selected.", 5));
   }
+
+  private URL messages(String name, String... keys) throws IOException {
+    final File file = new File(folder.newFolder(), name);
+    try (CSVPrinter printer = CSVFile.DEFAULT.withQuoteAll().write(file)) {
+      printer.printRecord("key", "message", "comment", "context");
+      for (String key : keys) {
+        printer.printRecord(key, null, null, null);
+      }
+    }
+    return file.toURI().toURL();
+  }
+
+  private Map<String, String> exported(Path file) throws IOException {
+    final Map<String, String> messages = new HashMap<>();
+    try (CSVParser parser = CSVFile.DEFAULT.withFirstRecordAsHeader().parse(file.toFile())) {
+      for (CSVRecord record : parser) {
+        messages.put(record.get("key"), record.get("message"));
+      }
+    }
+    return messages;
+  }
+
+  @Test
+  public void testExport() throws IOException {
+    final Map<String, List<URL>> files = new LinkedHashMap<>();
+    files.put(
+        "test-first",
+        Collections.singletonList(messages("messages_en.csv", "Hello World!!!", "Unknown")));
+    files.put(
+        "test-second",
+        Arrays.asList(
+            messages("messages_en.csv", "{0} record selected."),
+            messages("messages_fr.csv", "Hello World!!!"),
+            messages("other_en.csv", "Hello World!!!")));
+
+    final I18nExporter exporter =
+        new I18nExporter() {
+          @Override
+          protected Map<String, List<URL>> findFiles() {
+            return files;
+          }
+        };
+
+    final Path directory = folder.newFolder().toPath();
+    final I18nExporter.Summary summary = exporter.export(directory);
+
+    assertEquals(2, summary.getModules());
+    assertEquals(2, summary.getLanguages());
+    assertEquals(3, summary.getFiles());
+    assertEquals(4, summary.getMessages());
+    assertEquals(2, summary.getTranslated());
+
+    final Path first = directory.resolve("test-first/src/main/resources/i18n");
+    final Path second = directory.resolve("test-second/src/main/resources/i18n");
+
+    final Map<String, String> firstEn = exported(first.resolve("messages_en.csv"));
+    assertEquals("Hello...", firstEn.get("Hello World!!!"));
+    assertTrue(firstEn.containsKey("Unknown"));
+    assertTrue(StringUtils.isBlank(firstEn.get("Unknown")));
+
+    final Map<String, String> secondEn = exported(second.resolve("messages_en.csv"));
+    assertEquals("{0} record selected.", secondEn.get("{0} record selected."));
+
+    final Map<String, String> secondFr = exported(second.resolve("messages_fr.csv"));
+    assertTrue(StringUtils.isBlank(secondFr.get("Hello World!!!")));
+
+    // only message files are exported
+    assertFalse(second.resolve("other_en.csv").toFile().exists());
+  }
+
+  @Test
+  public void testExportNothing() throws IOException {
+    final I18nExporter exporter =
+        new I18nExporter() {
+          @Override
+          protected Map<String, List<URL>> findFiles() {
+            return Collections.emptyMap();
+          }
+        };
+
+    final Path directory = folder.newFolder().toPath();
+    final I18nExporter.Summary summary = exporter.export(directory);
+
+    assertEquals(0, summary.getFiles());
+    assertEquals(0, summary.getMessages());
+    assertEquals(0, directory.toFile().list().length);
+  }
 }
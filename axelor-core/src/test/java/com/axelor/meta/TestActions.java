@@ -18,13 +18,22 @@
 package com.axelor.meta;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import com.axelor.auth.db.User;
+import com.axelor.meta.db.MetaMenu;
 import com.axelor.meta.schema.ObjectViews;
 import com.axelor.meta.schema.actions.Action;
+import com.axelor.meta.schema.actions.ActionView;
 import com.axelor.meta.schema.views.FormView;
+import com.axelor.meta.service.MenuTagService;
 import com.axelor.rpc.ActionRequest;
 import com.axelor.rpc.ActionResponse;
 import com.axelor.test.db.Contact;
@@ -34,6 +43,7 @@ import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.persist.Transactional;
 import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import org.junit.Assert;
@@ -48,6 +58,8 @@ public class TestActions extends MetaTest {
 
   @Inject private ActionExecutor executor;
 
+  @Inject private MenuTagService menuTags;
+
   @Before
   public void setUp() {
     try {
@@ -222,6 +234,33 @@ public class TestActions extends MetaTest {
     assertTrue(!((Map<?, ?>) value).isEmpty());
   }
 
+  @Test
+  public void testParallel() {
+    Action action = MetaStore.getAction("action-contact-attrs-parallel");
+    Map<?, ?> map = (Map<?, ?>) action.execute(createHandler(action, null));
+
+    // merged in item order, the last attribute wins
+    assertEquals("last", ((Map<?, ?>) map.get("notes")).get("title"));
+    assertEquals(true, ((Map<?, ?>) map.get("notes")).get("hidden"));
+    assertEquals(true, ((Map<?, ?>) map.get("firstName")).get("readonly"));
+    assertEquals(true, ((Map<?, ?>) map.get("dateOfBirth")).get("hidden"));
+
+    Map<String, Object> context = Maps.newHashMap();
+    context.put("orderDate", LocalDate.parse("2012-12-10"));
+    context.put("createDate", LocalDate.parse("2012-12-11"));
+
+    Action sequential = MetaStore.getAction("check.dates");
+    Action parallel = MetaStore.getAction("check.dates.parallel");
+
+    Object expected = sequential.execute(createHandler(sequential, context));
+    assertNotNull(expected);
+    assertEquals(expected, parallel.execute(createHandler(parallel, context)));
+
+    context.put("createDate", LocalDate.parse("2012-12-01"));
+    expected = sequential.execute(createHandler(sequential, context));
+    assertEquals(expected, parallel.execute(createHandler(parallel, context)));
+  }
+
   @Test
   public void testMethod() {
 
@@ -339,4 +378,154 @@ public class TestActions extends MetaTest {
     Assert.assertNotNull(((List<?>) value).get(0));
     Assert.assertTrue(value.toString().contains("pending"));
   }
+
+  @Test
+  public void testCache() {
+    Map<String, Object> context = Maps.newHashMap();
+    context.put("firstName", "John");
+
+    ActionHandler handler = createHandler("action-contact-defaults", context);
+    String query = "select: self.email FROM Contact self WHERE self.firstName = :firstName";
+
+    Object first = handler.evaluate(query);
+    assertEquals(first, handler.evaluate(query));
+    assertEquals(1, handler.getCacheHits());
+    assertEquals(1, handler.getCacheMisses());
+
+    handler.evaluate("eval: __date__");
+    handler.evaluate("eval: __date__");
+    assertEquals(2, handler.getCacheHits());
+
+    // not pure, never cached
+    handler.evaluate("eval: firstName");
+    assertEquals(2, handler.getCacheMisses());
+
+    handler.invalidate();
+    handler.evaluate(query);
+    assertEquals(3, handler.getCacheMisses());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testFindFields() {
+    final List<String> names = Arrays.asList("firstName", "title", "title.name", "dateOfBirth");
+    final Map<String, Object> first = MetaStore.findFields(Contact.class, names);
+    final List<Map<String, Object>> fields = (List<Map<String, Object>>) first.get("fields");
+    assertEquals(4, fields.size());
+
+    // results are copies of the cached metadata
+    fields.get(0).put("name", "changed");
+    final Map<String, Object> second = MetaStore.findFields(Contact.class, names);
+    final List<Map<String, Object>> others = (List<Map<String, Object>>) second.get("fields");
+    assertEquals("firstName", others.get(0).get("name"));
+    assertEquals(fields.get(1), others.get(1));
+
+    MetaStore.invalidateFields();
+    assertEquals(others, MetaStore.findFields(Contact.class, names).get("fields"));
+  }
+
+  @Test
+  public void testPureAction() {
+    final Action action = MetaStore.getAction("action-view-contact");
+    assertTrue(action instanceof ActionView);
+    assertTrue(((ActionView) action).isPure());
+
+    final ActionRequest request = new ActionRequest();
+    request.setModel("com.axelor.test.db.Contact");
+    request.setAction("action-view-contact");
+    request.setData(Maps.newHashMap());
+
+    final ActionResponse first = executor.execute(request);
+    final long hits = MetaStore.getActionResponseStats().hitCount();
+    final ActionResponse second = executor.execute(request);
+    assertEquals(hits + 1, MetaStore.getActionResponseStats().hitCount());
+
+    // cached responses are copies
+    assertEquals(first.getData(), second.getData());
+    assertNotSame(first.getData(), second.getData());
+  }
+
+  @Test
+  public void testActionRegistry() {
+    final Action action = MetaStore.getAction("action-contact-defaults");
+    assertNotNull(action);
+
+    final long hits = MetaStore.getActionStats().hitCount();
+    assertSame(action, MetaStore.getAction("action-contact-defaults"));
+    assertEquals(hits + 1, MetaStore.getActionStats().hitCount());
+
+    // unknown names are not registered
+    final long count = MetaStore.getActionCount();
+    final long misses = MetaStore.getActionStats().missCount();
+    assertNull(MetaStore.getAction("action-contact-unknown"));
+    assertNull(MetaStore.getAction("action-contact-unknown"));
+    assertEquals(misses + 2, MetaStore.getActionStats().missCount());
+    assertEquals(count, MetaStore.getActionCount());
+
+    // registered for the tests only, so not found once invalidated
+    MetaStore.invalidate("action-contact-defaults");
+    assertNull(MetaStore.getAction("action-contact-defaults"));
+    assertEquals(misses + 3, MetaStore.getActionStats().missCount());
+    assertEquals(count - 1, MetaStore.getActionCount());
+  }
+
+  @Test
+  public void testMenuTags() {
+    final MetaMenu fixed = new MetaMenu("menu-tag-fixed");
+    final MetaMenu dynamic = new MetaMenu("menu-tag-dynamic");
+    final MetaMenu none = new MetaMenu("menu-tag-none");
+
+    fixed.setTag("new");
+    dynamic.setTagGet("action-contact-tag");
+
+    final User user = new User("tags", "Tags");
+    final List<MetaMenu> menus = Arrays.asList(fixed, dynamic, none);
+
+    final Map<String, String> first = menuTags.getTags(user, menus);
+    assertEquals("new", first.get("menu-tag-fixed"));
+    assertNotNull(first.get("menu-tag-dynamic"));
+    assertFalse(first.containsKey("menu-tag-none"));
+
+    // computed tags are cached for a short time
+    assertEquals(first, menuTags.getTags(user, menus));
+
+    menuTags.invalidate();
+    final Map<String, String> second = menuTags.getTags(user, menus);
+    assertEquals("new", second.get("menu-tag-fixed"));
+    assertNotEquals(first.get("menu-tag-dynamic"), second.get("menu-tag-dynamic"));
+
+    // cached per user
+    final User other = new User("tags-other", "Tags Other");
+    final Map<String, String> third = menuTags.getTags(other, menus);
+    assertNotEquals(second.get("menu-tag-dynamic"), third.get("menu-tag-dynamic"));
+  }
+
+  @Test
+  public void testTraceMetrics() {
+    ActionTracer.resetMetrics();
+
+    final ActionTracer.Node root = ActionTracer.start("test");
+    for (int i = 0; i < ActionTracer.MAX_METRICS + 100; i++) {
+      ActionTracer.enter("self.id = " + i, "select").close();
+      ActionTracer.enter("action-" + i, "action-record").close();
+    }
+    for (int i = 0; i < 2; i++) {
+      ActionTracer.enter("action-contact-tag", "action-method").close();
+    }
+    root.close();
+
+    final Map<String, ActionTracer.Stats> metrics = ActionTracer.getMetrics();
+
+    // expressions are not aggregated and the number of actions is bounded
+    assertTrue(metrics.size() <= ActionTracer.MAX_METRICS);
+    assertTrue(metrics.keySet().stream().noneMatch(key -> key.startsWith("select")));
+
+    // the recently recorded actions are kept
+    final ActionTracer.Stats stats = metrics.get("action-method:action-contact-tag");
+    assertNotNull(stats);
+    assertEquals(2, stats.getCount());
+
+    ActionTracer.resetMetrics();
+    assertTrue(ActionTracer.getMetrics().isEmpty());
+  }
 }
@@ -0,0 +1,91 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.db.repo;
+
+import com.axelor.inject.Beans;
+import com.axelor.meta.db.MetaJsonField;
+import com.axelor.script.ScriptTest;
+import com.axelor.test.db.Contact;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestJsonReferenceIndex extends ScriptTest {
+
+  private MetaJsonField findGuardian() {
+    return all(MetaJsonField.class)
+        .filter("self.model = :model AND self.name = 'guardian'")
+        .bind("model", Contact.class.getName())
+        .fetchOne();
+  }
+
+  private boolean awaitReady(MetaJsonReferenceIndex index, Long fieldId)
+      throws InterruptedException {
+    final EntityManager em = getEntityManager();
+    for (int i = 0; i < 50; i++) {
+      em.clear();
+      if (index.isReady(em.find(MetaJsonField.class, fieldId))) {
+        return true;
+      }
+      Thread.sleep(100);
+    }
+    return false;
+  }
+
+  @Test
+  public void testDisabled() {
+    // bulk updates are not tracked, the full update is used unless the index is enabled
+    Assert.assertFalse(Beans.get(MetaJsonReferenceIndex.class).isReady(findGuardian()));
+  }
+
+  @Test
+  public void testRebuildAfterRollback() throws Exception {
+    final MetaJsonReferenceIndex index = new MetaJsonReferenceIndex(true);
+    final List<Contact> contacts = all(Contact.class).order("id").fetch(2);
+    final Contact owner = contacts.get(0);
+    final Contact guardian = contacts.get(1);
+
+    inTransaction(
+        () ->
+            getEntityManager()
+                .find(Contact.class, owner.getId())
+                .setAttrs("{\"guardian\":{\"id\":" + guardian.getId() + "}}"));
+
+    final MetaJsonField field = findGuardian();
+    final EntityManager em = getEntityManager();
+
+    em.getTransaction().begin();
+    try {
+      index.rebuild(field);
+    } finally {
+      em.getTransaction().rollback();
+    }
+
+    // the rolled back rebuild must not prevent the next one
+    Assert.assertTrue(awaitReady(index, field.getId()));
+
+    final Map<MetaJsonField, List<Long>> owners =
+        index.findOwners(
+            Collections.singletonList(findGuardian()), Contact.class.getName(), guardian.getId());
+    Assert.assertEquals(1, owners.size());
+    Assert.assertTrue(owners.values().iterator().next().contains(owner.getId()));
+  }
+}
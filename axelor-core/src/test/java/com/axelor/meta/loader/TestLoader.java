@@ -18,16 +18,33 @@
 package com.axelor.meta.loader;
 
 import com.axelor.AbstractTest;
+import com.axelor.meta.schema.ObjectViews;
 import com.axelor.meta.schema.views.AbstractView;
 import com.axelor.test.db.Contact;
+import com.google.common.io.Resources;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.xml.bind.JAXBException;
 import org.junit.Assert;
+import org.junit.Ignore;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class TestLoader extends AbstractTest {
 
+  private static final Logger log = LoggerFactory.getLogger(TestLoader.class);
+
   @Inject private ViewLoader loader;
 
   @Test
@@ -59,4 +76,64 @@ public class TestLoader extends AbstractTest {
       Assert.assertNotNull(text);
     }
   }
+
+  private static int parse(List<byte[]> files, int rounds) throws JAXBException {
+    int count = 0;
+    for (int i = 0; i < rounds; i++) {
+      for (byte[] file : files) {
+        final ObjectViews views = XMLViews.unmarshal(new ByteArrayInputStream(file));
+        count += views.getViews() == null ? 0 : views.getViews().size();
+      }
+    }
+    return count;
+  }
+
+  @Test
+  @Ignore("benchmark, run manually")
+  public void benchmark() throws Exception {
+    final Path dir = Paths.get(Resources.getResource("views/Meta.xml").toURI()).getParent();
+    final List<byte[]> files = new ArrayList<>();
+    final List<Path> paths;
+    try (Stream<Path> stream = Files.list(dir)) {
+      paths = stream.filter(p -> p.toString().endsWith(".xml")).collect(Collectors.toList());
+    }
+    for (Path path : paths) {
+      files.add(Files.readAllBytes(path));
+    }
+
+    final int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+    final int rounds = 10;
+
+    // warm up
+    final int expected = parse(files, 1) * rounds;
+
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < threads; i++) {
+      Assert.assertEquals(expected, parse(files, rounds));
+    }
+    final long sequential = System.currentTimeMillis() - start;
+
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      start = System.currentTimeMillis();
+      final List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> parse(files, rounds)));
+      }
+      for (Future<Integer> future : futures) {
+        Assert.assertEquals(expected, future.get().intValue());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    final long parallel = System.currentTimeMillis() - start;
+
+    log.info(
+        "{} x {} view files: sequential {} ms, {} threads {} ms",
+        threads * rounds,
+        files.size(),
+        sequential,
+        threads,
+        parallel);
+  }
 }
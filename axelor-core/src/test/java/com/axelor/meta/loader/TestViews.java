@@ -18,22 +18,42 @@
 package com.axelor.meta.loader;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import com.axelor.common.ResourceUtils;
+import com.axelor.db.JPA;
 import com.axelor.meta.MetaTest;
+import com.axelor.meta.db.MetaView;
+import com.axelor.meta.db.repo.MetaViewRepository;
 import com.axelor.meta.schema.ObjectViews;
 import com.axelor.meta.schema.views.AbstractView;
+import com.axelor.meta.schema.views.DataSet;
 import com.axelor.meta.schema.views.FormInclude;
 import com.axelor.meta.schema.views.FormView;
 import com.axelor.meta.schema.views.Search;
+import com.axelor.meta.service.DataSetCache;
+import com.axelor.meta.service.MaterializedDataSets;
 import com.axelor.script.ScriptHelper;
+import com.axelor.test.db.Contact;
 import com.axelor.test.db.Title;
 import com.google.common.collect.Maps;
 import com.google.inject.persist.Transactional;
+import java.math.BigDecimal;
 import java.net.URL;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import javax.inject.Inject;
 import javax.persistence.Query;
 import org.junit.Assert;
@@ -43,6 +63,12 @@ public class TestViews extends MetaTest {
 
   @Inject private ViewLoader loader;
 
+  @Inject private MetaViewRepository views;
+
+  @Inject private XMLViews.FinalViewGenerator generator;
+
+  @Inject private MaterializedDataSets materialized;
+
   @Test
   public void test1() throws Exception {
     ObjectViews views = this.unmarshal("com/axelor/meta/Contact.xml", ObjectViews.class);
@@ -129,4 +155,234 @@ public class TestViews extends MetaTest {
 
     assertEquals(form1.getName(), included.getName());
   }
+
+  @Test
+  @Transactional
+  public void testCache() throws Exception {
+
+    final URL url = ResourceUtils.getResource("com/axelor/meta/Include.xml");
+    loader.process(url, new Module("test"), false);
+
+    final FormView first = (FormView) XMLViews.findView("contact-form1", null, null, "test");
+    final FormView second = (FormView) XMLViews.findView("contact-form1", null, null, "test");
+
+    assertNotSame(first, second);
+    assertNotSame(first.getItems(), second.getItems());
+    assertNotSame(first.getItems().get(0), second.getItems().get(0));
+    assertEquals(toJson(first), toJson(second));
+
+    first.getItems().clear();
+    assertFalse(second.getItems().isEmpty());
+  }
+
+  @Test
+  public void testSnapshot() throws Exception {
+    ObjectViews views = this.unmarshal("com/axelor/meta/Contact.xml", ObjectViews.class);
+
+    for (AbstractView view : views.getViews()) {
+      final String xml = XMLViews.toXml(view, true);
+      final byte[] snapshot = ViewSnapshot.of(view, xml);
+      assertNotNull(snapshot);
+
+      final ObjectViews read = ViewSnapshot.read(snapshot, xml);
+      assertNotNull(read);
+      assertEquals(xml, XMLViews.toXml(read.getViews().get(0), true));
+      assertEquals(toJson(XMLViews.unmarshal(xml)), toJson(read));
+
+      // stale snapshot
+      assertNull(ViewSnapshot.read(snapshot, xml + " "));
+    }
+  }
+
+  @Test
+  @Transactional
+  public void testIndex() throws Exception {
+
+    final URL url = ResourceUtils.getResource("com/axelor/meta/Include.xml");
+    loader.process(url, new Module("test"), false);
+
+    final MetaView view = views.findByName("contact-form2");
+    assertNotNull(view);
+
+    final ViewIndex index = ViewIndex.get();
+    assertEquals(view.getId(), index.findView("contact-form2", null, null, "test", null));
+    assertEquals(view.getId(), index.findView("contact-form2", null, view.getModel(), null, null));
+    assertNull(index.findView("contact-form2", null, null, "other", null));
+    assertNull(index.findView("contact-form2", null, null, null, -1L));
+
+    // saving a view drops the index
+    view.setPriority(view.getPriority() + 1);
+    views.save(view);
+    JPA.flush();
+    assertNotSame(index, ViewIndex.get());
+  }
+
+  @Test
+  @Transactional
+  public void testIndexCheck() throws Exception {
+
+    final URL url = ResourceUtils.getResource("com/axelor/meta/Include.xml");
+    loader.process(url, new Module("test"), false);
+    JPA.flush();
+
+    ViewIndex.invalidate();
+    final ViewIndex index = ViewIndex.get();
+    assertFalse(index.isStale(0));
+
+    // updated without the interceptor, as from another node
+    JPA.em()
+        .createQuery("UPDATE MetaView self SET self.updatedOn = :now WHERE self.name = :name")
+        .setParameter("now", LocalDateTime.now().plusMinutes(1))
+        .setParameter("name", "contact-form2")
+        .executeUpdate();
+
+    assertFalse(index.isStale(-1));
+    assertFalse(index.isStale(60_000));
+    assertTrue(index.isStale(0));
+  }
+
+  @Test
+  @Transactional
+  public void testFinalViews() throws Exception {
+
+    final URL url = ResourceUtils.getResource("com/axelor/meta/Extend.xml");
+    loader.process(url, new Module("test"), false);
+
+    final List<String> names = Arrays.asList("extend-form1", "extend-form2");
+    assertEquals(2, generator.generate(names, false));
+    JPA.flush();
+
+    final MetaView first = views.findByID("extend-form1__computed__");
+    final MetaView second = views.findByID("extend-form2__computed__");
+    assertTrue(first.getXml().contains("lastName"));
+    assertTrue(second.getXml().contains("lastName"));
+
+    final Integer firstVersion = first.getVersion();
+    final Integer secondVersion = second.getVersion();
+
+    // change the extension of the first view only
+    final MetaView extension = views.findByID("extend-form1-ext");
+    extension.setXml(extension.getXml().replace("lastName", "email"));
+    views.save(extension);
+
+    assertEquals(2, generator.generate(names, true));
+    JPA.flush();
+
+    assertTrue(first.getXml().contains("email"));
+    assertNotEquals(firstVersion, first.getVersion());
+    assertEquals(secondVersion, second.getVersion());
+  }
+
+  @Test
+  public void testDataSetCache() throws Exception {
+    final DataSetCache cache = new DataSetCache();
+    final AtomicInteger calls = new AtomicInteger();
+    final Callable<List<?>> loader = () -> Collections.singletonList(calls.incrementAndGet());
+
+    final DataSet dataSet = new DataSet();
+    dataSet.setText("SELECT COUNT(self.id) FROM Contact self WHERE self.title = :title");
+
+    final Map<String, Object> params = Maps.newHashMap();
+    params.put("title", "mr");
+
+    // not cached without ttl
+    assertEquals(Collections.singletonList(1), cache.get("chart", dataSet, params, loader));
+    assertEquals(Collections.singletonList(2), cache.get("chart", dataSet, params, loader));
+
+    dataSet.setCache(1);
+    dataSet.setCacheStale(60);
+
+    assertEquals(Collections.singletonList(3), cache.get("chart", dataSet, params, loader));
+    assertEquals(Collections.singletonList(3), cache.get("chart", dataSet, params, loader));
+
+    // cached per parameters
+    params.put("title", "mrs");
+    assertEquals(Collections.singletonList(4), cache.get("chart", dataSet, params, loader));
+    params.put("title", "mr");
+
+    // expired results are served while refreshed in background
+    Thread.sleep(1100);
+    assertEquals(Collections.singletonList(3), cache.get("chart", dataSet, params, loader));
+    for (int i = 0; i < 50 && cache.getStatistics().get("refreshes") == 0; i++) {
+      Thread.sleep(100);
+    }
+    assertEquals(Collections.singletonList(5), cache.get("chart", dataSet, params, loader));
+
+    final Map<String, Long> stats = cache.getStatistics();
+    assertEquals(Long.valueOf(1), stats.get("staleHits"));
+    assertEquals(Long.valueOf(1), stats.get("refreshes"));
+
+    cache.invalidateAll();
+    assertEquals(Collections.singletonList(6), cache.get("chart", dataSet, params, loader));
+  }
+
+  private Map<Object, Map<String, Object>> fetchRollup(DataSet dataSet) {
+    final Map<Object, Map<String, Object>> rows = new HashMap<>();
+    for (Map<String, Object> row : materialized.fetch("contact-rollup", dataSet)) {
+      rows.put(row.get("title"), row);
+    }
+    return rows;
+  }
+
+  // the rollups are updated by a worker thread once committed
+  private Map<Object, Map<String, Object>> awaitRollup(
+      DataSet dataSet, Predicate<Map<Object, Map<String, Object>>> condition) throws Exception {
+    Map<Object, Map<String, Object>> rows = fetchRollup(dataSet);
+    for (int i = 0; i < 50 && !condition.test(rows); i++) {
+      Thread.sleep(100);
+      rows = fetchRollup(dataSet);
+    }
+    return rows;
+  }
+
+  @Test
+  public void testMaterializedDataSet() throws Exception {
+    final DataSet dataSet = new DataSet();
+    dataSet.setType(MaterializedDataSets.TYPE);
+    dataSet.setModel(Contact.class.getName());
+    dataSet.setGroupBy("title.code as title");
+    dataSet.setSum("credit");
+    dataSet.setCount("total");
+
+    final Map<Object, Map<String, Object>> first = fetchRollup(dataSet);
+    assertEquals(
+        all(Contact.class).count(),
+        first.values().stream().mapToLong(row -> (Long) row.get("total")).sum());
+
+    final Title title = new Title();
+    title.setCode("rollup");
+    title.setName("Rollup");
+
+    final Contact contact = new Contact("Rollup", "Test");
+    contact.setTitle(title);
+    contact.setCredit(new BigDecimal("10.5"));
+
+    JPA.runInTransaction(
+        () -> {
+          JPA.persist(title);
+          JPA.persist(contact);
+        });
+
+    Map<Object, Map<String, Object>> rows = awaitRollup(dataSet, r -> r.containsKey("rollup"));
+    assertEquals(1L, rows.get("rollup").get("total"));
+    final BigDecimal credit = (BigDecimal) rows.get("rollup").get("credit");
+    assertEquals(0, new BigDecimal("10.5").compareTo(credit));
+
+    // changes of referenced records are applied to the referencing records
+    JPA.runInTransaction(() -> JPA.find(Title.class, title.getId()).setCode("rollup-changed"));
+
+    rows = awaitRollup(dataSet, r -> r.containsKey("rollup-changed"));
+    assertFalse(rows.containsKey("rollup"));
+    assertEquals(1L, rows.get("rollup-changed").get("total"));
+
+    JPA.runInTransaction(() -> JPA.remove(JPA.find(Contact.class, contact.getId())));
+
+    rows = awaitRollup(dataSet, r -> !r.containsKey("rollup-changed"));
+    assertFalse(rows.containsKey("rollup-changed"));
+    assertEquals(first, rows);
+
+    // rebuilt values are the same
+    materialized.rebuild("contact-rollup", dataSet);
+    assertEquals(first, fetchRollup(dataSet));
+  }
 }
@@ -0,0 +1,189 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.schema.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.axelor.text.Template;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpServer;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import wslite.soap.SOAPClient;
+
+/** Tests and benchmarks the web service client against a local stub SOAP server. */
+public class TestWebServiceClient {
+
+  private static final Logger log = LoggerFactory.getLogger(TestWebServiceClient.class);
+
+  private static final int DELAY = 50;
+
+  private static final int CALLS = 20;
+
+  private static final String PAYLOAD =
+      "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+          + "<soap:Body><echo xmlns=\"urn:test\">hello</echo></soap:Body>"
+          + "</soap:Envelope>";
+
+  private static final String RESPONSE =
+      "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+          + "<soap:Body><echoResponse xmlns=\"urn:test\">hello</echoResponse></soap:Body>"
+          + "</soap:Envelope>";
+
+  private static HttpServer server;
+  private static ExecutorService serverExecutor;
+  private static String location;
+
+  @BeforeClass
+  public static void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/echo",
+        exchange -> {
+          ByteStreams.toByteArray(exchange.getRequestBody());
+          try {
+            Thread.sleep(DELAY);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          final byte[] bytes = RESPONSE.getBytes(StandardCharsets.UTF_8);
+          exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=UTF-8");
+          exchange.sendResponseHeaders(200, bytes.length);
+          try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+          }
+        });
+    server.createContext(
+        "/fail",
+        exchange -> {
+          ByteStreams.toByteArray(exchange.getRequestBody());
+          exchange.sendResponseHeaders(500, -1);
+          exchange.close();
+        });
+    serverExecutor = Executors.newFixedThreadPool(CALLS);
+    server.setExecutor(serverExecutor);
+    server.start();
+    location = "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @AfterClass
+  public static void stopServer() {
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  @Test
+  public void testSend() throws Exception {
+    final String result = WebServiceClient.send(location + "/echo", PAYLOAD, 5, 5);
+    assertTrue(result.contains("echoResponse"));
+    assertTrue(result.contains("hello"));
+  }
+
+  @Test
+  public void testCircuit() throws Exception {
+    final String url = location + "/fail";
+    for (int i = 0; i < 5; i++) {
+      try {
+        WebServiceClient.await(WebServiceClient.submit(url, PAYLOAD, 5, 5), 10);
+        fail();
+      } catch (IOException e) {
+        assertTrue(e.getMessage().startsWith("HTTP 500"));
+      }
+    }
+    try {
+      WebServiceClient.await(WebServiceClient.submit(url, PAYLOAD, 5, 5), 10);
+      fail();
+    } catch (IOException e) {
+      assertTrue(e.getMessage().startsWith("Service unavailable"));
+    }
+  }
+
+  private static Map<String, Object> context(String name) {
+    return ImmutableMap.of("name", name);
+  }
+
+  @Test
+  public void testTemplateCache() throws Exception {
+    final File file = File.createTempFile("ws-", ".tmpl");
+    try {
+      Files.write(file.toPath(), "Hello $name$".getBytes(StandardCharsets.UTF_8));
+      final Template first = WebServiceClient.template(file, null);
+      assertSame(first, WebServiceClient.template(file, null));
+      assertEquals("Hello World", first.make(context("World")).render());
+      assertEquals("Hello Again", first.make(context("Again")).render());
+
+      Files.write(file.toPath(), "Hello, $name$!".getBytes(StandardCharsets.UTF_8));
+      final Template second = WebServiceClient.template(file, null);
+      assertNotSame(first, second);
+      assertEquals("Hello, World!", second.make(context("World")).render());
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  @Ignore("benchmark, run manually")
+  public void benchmark() throws Exception {
+    final String url = location + "/echo";
+
+    // warm up
+    new SOAPClient(url).send(PAYLOAD);
+    WebServiceClient.send(url, PAYLOAD, 5, 5);
+
+    long start = System.currentTimeMillis();
+    for (int i = 0; i < CALLS; i++) {
+      new SOAPClient(url).send(PAYLOAD);
+    }
+    final long sequential = System.currentTimeMillis() - start;
+
+    start = System.currentTimeMillis();
+    final List<Future<String>> calls = new ArrayList<>();
+    for (int i = 0; i < CALLS; i++) {
+      calls.add(WebServiceClient.submit(url, PAYLOAD, 5, 5));
+    }
+    for (Future<String> call : calls) {
+      assertTrue(WebServiceClient.await(call, 10).contains("echoResponse"));
+    }
+    final long concurrent = System.currentTimeMillis() - start;
+
+    log.info("{} calls: sequential {} ms, pooled {} ms", CALLS, sequential, concurrent);
+
+    assertTrue(concurrent < sequential);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.meta.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import com.axelor.meta.MetaTest;
+import com.axelor.meta.schema.ObjectViews;
+import com.axelor.meta.schema.views.Search;
+import com.axelor.meta.schema.views.Search.SearchSelect;
+import com.axelor.rpc.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSearchViewExecutor extends MetaTest {
+
+  private List<SearchSelect> selects;
+
+  @Before
+  public void setUp() {
+    try {
+      ObjectViews views = this.unmarshal("com/axelor/meta/Search.xml", ObjectViews.class);
+      selects = ((Search) views.getViews().get(0)).getSelects();
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    assertEquals(3, selects.size());
+  }
+
+  private Function<SearchSelect, List<?>> task(int failing, long delay) {
+    return select -> {
+      final int index = selects.indexOf(select);
+      try {
+        Thread.sleep(delay * (selects.size() - index));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (index == failing) {
+        throw new IllegalArgumentException("select " + index);
+      }
+      return Collections.singletonList(index);
+    };
+  }
+
+  private void testOrder(SearchViewExecutor executor) {
+    final List<Object> data = new ArrayList<>();
+    final Response response = new Response();
+
+    executor.run(selects, task(-1, 50), data, response);
+
+    assertEquals(Arrays.asList(0, 1, 2), data);
+    assertNull(response.getErrors());
+  }
+
+  private void testFailure(SearchViewExecutor executor) {
+    try {
+      executor.run(selects, task(1, 0), new ArrayList<>(), new Response());
+      fail("failing select should fail the search");
+    } catch (IllegalArgumentException e) {
+      assertEquals("select 1", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testSequential() {
+    final SearchViewExecutor executor = new SearchViewExecutor(0, 30);
+    testOrder(executor);
+    testFailure(executor);
+  }
+
+  @Test
+  public void testParallel() {
+    final SearchViewExecutor executor = new SearchViewExecutor(3, 30);
+    testOrder(executor);
+    testFailure(executor);
+  }
+
+  @Test
+  public void testTimeout() {
+    final SearchViewExecutor executor = new SearchViewExecutor(3, 1);
+    final List<Object> data = new ArrayList<>();
+    final Response response = new Response();
+
+    // only the first select takes longer than the timeout
+    executor.run(
+        selects,
+        select -> {
+          final int index = selects.indexOf(select);
+          if (index == 0) {
+            try {
+              Thread.sleep(3000);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+          return Collections.singletonList(index);
+        },
+        data,
+        response);
+
+    assertEquals(Arrays.asList(1, 2), data);
+    assertEquals("timeout", response.getErrors().get(selects.get(0).getModel()));
+  }
+}
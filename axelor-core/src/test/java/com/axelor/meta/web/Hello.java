@@ -20,9 +20,12 @@ package com.axelor.meta.web;
 import com.axelor.meta.CallMethod;
 import com.axelor.rpc.ActionRequest;
 import com.axelor.rpc.ActionResponse;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Hello {
 
+  private static final AtomicInteger TAGS = new AtomicInteger();
+
   public void say(ActionRequest request, ActionResponse response) {
     response.setFlash("Hello World!!!");
   }
@@ -35,4 +38,9 @@ public class Hello {
   public String unauthorizedCallMethod(String what) {
     return "Call unauthorizedCallMethod: " + what;
   }
+
+  @CallMethod
+  public String tag() {
+    return String.valueOf(TAGS.incrementAndGet());
+  }
 }
@@ -17,7 +17,14 @@
  */
 package com.axelor.rpc;
 
+import com.axelor.auth.AuthSecurityException;
 import com.axelor.db.JPA;
+import com.axelor.db.JpaSecurity;
+import com.axelor.db.Model;
+import com.axelor.event.Event;
+import com.axelor.events.PostRequest;
+import com.axelor.events.PreRequest;
+import com.axelor.rpc.filter.Filter;
 import com.axelor.test.db.Address;
 import com.axelor.test.db.Circle;
 import com.axelor.test.db.Contact;
@@ -25,11 +32,18 @@ import com.axelor.test.db.Title;
 import com.axelor.test.db.repo.ContactRepository;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.inject.TypeLiteral;
 import com.google.inject.persist.Transactional;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.inject.Inject;
+import javax.persistence.OptimisticLockException;
+import javax.validation.ValidationException;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -39,6 +53,59 @@ public class ResourceTest extends RpcTest {
 
   @Inject ContactRepository contacts;
 
+  @Inject Event<PreRequest> preRequest;
+
+  @Inject Event<PostRequest> postRequest;
+
+  /** Create a resource not allowed to update the given record. */
+  private Resource<Contact> restricted(Long denied) {
+    final JpaSecurity security =
+        new JpaSecurity() {
+
+          @Override
+          public Set<AccessType> getAccessTypes(Class<? extends Model> model, Long id) {
+            return Collections.emptySet();
+          }
+
+          @Override
+          public boolean hasRole(String name) {
+            return false;
+          }
+
+          @Override
+          public Filter getFilter(AccessType type, Class<? extends Model> model, Long... ids) {
+            return null;
+          }
+
+          @Override
+          public boolean isPermitted(AccessType type, Class<? extends Model> model, Long... ids) {
+            return type != CAN_WRITE || !Arrays.asList(ids).contains(denied);
+          }
+
+          @Override
+          public void check(AccessType type, Class<? extends Model> model, Long... ids) {
+            if (!isPermitted(type, model, ids)) {
+              throw new AuthSecurityException(type, model, ids);
+            }
+          }
+        };
+    return new Resource<>(TypeLiteral.get(Contact.class), () -> security, preRequest, postRequest);
+  }
+
+  private Request saveRequest(Map<String, Object> first, Map<String, Object> second) {
+    final Request request = new Request();
+    request.setRecords(Arrays.asList(first, second));
+    return request;
+  }
+
+  private Map<String, Object> values(Contact contact, String name, Object value) {
+    final Map<String, Object> values = Maps.newHashMap();
+    values.put("id", contact.getId());
+    values.put("version", contact.getVersion());
+    values.put(name, value);
+    return values;
+  }
+
   @Test
   public void testFields() throws Exception {
 
@@ -130,4 +197,114 @@ public class ResourceTest extends RpcTest {
     Assert.assertSame(c, c.getAddresses().get(0).getContact());
     Assert.assertSame(n, n.getAddresses().get(0).getContact());
   }
+
+  @Test
+  public void testTranslatableSteps() {
+
+    final List<String> fields = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      fields.add("unknown" + i);
+      fields.add("title.unknown" + i);
+    }
+
+    Translator.applyTranslatables(
+        Collections.emptyList(), Contact.class, Collections.singletonList("title"));
+
+    final long size = Translator.size(Contact.class);
+
+    Translator.applyTranslatables(Collections.emptyList(), Contact.class, fields);
+
+    Assert.assertTrue(size > 0);
+    Assert.assertEquals(size, Translator.size(Contact.class));
+  }
+
+  @Test
+  public void testSaveDenied() {
+    final List<Contact> all = contacts.all().order("id").fetch(2);
+    final Resource<Contact> restricted = restricted(all.get(1).getId());
+    final Request request =
+        saveRequest(
+            values(all.get(0), "firstName", "Allowed"), values(all.get(1), "firstName", "Denied"));
+
+    try {
+      JPA.runInTransaction(() -> restricted.save(request));
+      Assert.fail("saving a record without write permission should fail");
+    } catch (AuthSecurityException e) {
+      Assert.assertEquals(JpaSecurity.CAN_WRITE, e.getType());
+    }
+
+    // none of the records are saved
+    JPA.em().clear();
+    Assert.assertNotEquals("Allowed", contacts.find(all.get(0).getId()).getFirstName());
+    Assert.assertNotEquals("Denied", contacts.find(all.get(1).getId()).getFirstName());
+  }
+
+  @Test
+  public void testSaveInvalid() {
+    final List<Contact> all = contacts.all().order("id").fetch(2);
+    final Resource<Contact> restricted = restricted(all.get(1).getId());
+    final Request request =
+        saveRequest(
+            values(all.get(0), "firstName", "Valid"), values(all.get(1), "email", "invalid"));
+
+    // the records are validated before checking permissions
+    try {
+      JPA.runInTransaction(() -> restricted.save(request));
+      Assert.fail("saving an invalid record should fail");
+    } catch (ValidationException e) {
+      Assert.assertEquals("Invalid email", e.getMessage());
+    }
+
+    JPA.em().clear();
+    Assert.assertNotEquals("Valid", contacts.find(all.get(0).getId()).getFirstName());
+  }
+
+  private List<Contact> createContacts(String name, int count) {
+    final List<Contact> created = new ArrayList<>();
+    inTransaction(
+        () -> {
+          for (int i = 0; i < count; i++) {
+            created.add(contacts.save(new Contact(name + " " + i, name)));
+          }
+        });
+    return created;
+  }
+
+  private Request removeRequest(List<Contact> records, int staleIndex) {
+    final List<Object> items = new ArrayList<>();
+    for (int i = 0; i < records.size(); i++) {
+      final Contact contact = records.get(i);
+      final Map<String, Object> values = Maps.newHashMap();
+      values.put("id", contact.getId());
+      values.put("version", contact.getVersion() + (i == staleIndex ? 1 : 0));
+      items.add(values);
+    }
+    final Request request = new Request();
+    request.setRecords(items);
+    return request;
+  }
+
+  @Test
+  public void testRemove() {
+    final List<Contact> created = createContacts("Removed", 3);
+
+    resource.remove(removeRequest(created, -1));
+
+    Assert.assertEquals(0, contacts.all().filter("self.lastName = 'Removed'").count());
+  }
+
+  @Test
+  public void testRemoveStale() {
+    final List<Contact> created = createContacts("Stale", 3);
+
+    try {
+      resource.remove(removeRequest(created, 1));
+      Assert.fail("removing a modified record should fail");
+    } catch (OptimisticLockException e) {
+    }
+
+    // none of the records are removed
+    JPA.em().clear();
+    Assert.assertEquals(3, contacts.all().filter("self.lastName = 'Stale'").count());
+  }
 }
@@ -18,7 +18,10 @@
 package com.axelor.script;
 
 import com.axelor.inject.Beans;
+import com.axelor.meta.db.MetaJsonField;
 import com.axelor.meta.db.MetaJsonRecord;
+import com.axelor.meta.db.repo.MetaJsonFieldRepository;
+import com.axelor.meta.db.repo.MetaJsonRecordRenamer;
 import com.axelor.meta.db.repo.MetaJsonRecordRepository;
 import com.axelor.rpc.Context;
 import com.axelor.rpc.JsonContext;
@@ -132,4 +135,63 @@ public class TestJsonContext extends ScriptTest {
     Assert.assertTrue(sh.eval("world") instanceof MetaJsonRecord);
     Assert.assertTrue(sh.eval("world.price") instanceof BigDecimal);
   }
+
+  @Test
+  public void testIndexedFieldName() {
+    final MetaJsonFieldRepository fields = Beans.get(MetaJsonFieldRepository.class);
+    final MetaJsonField field = new MetaJsonField();
+    field.setName("code') || pg_sleep(10) || ('");
+    field.setType("string");
+    field.setModel(Contact.class.getName());
+    field.setModelField("attrs");
+    field.setIndexed(true);
+
+    try {
+      fields.save(field);
+      Assert.fail("indexed custom fields must have plain names");
+    } catch (IllegalArgumentException e) {
+      Assert.assertNull(field.getId());
+    }
+
+    field.setName("code_2");
+    final MetaJsonField saved = fields.save(field);
+    Assert.assertNotNull(saved.getId());
+    fields.remove(fields.find(saved.getId()));
+  }
+
+  @Test
+  public void testRenameAfterRollback() throws Exception {
+    final MetaJsonRecordRenamer renamer = Beans.get(MetaJsonRecordRenamer.class);
+    final MetaJsonRecordRepository $json = Beans.get(MetaJsonRecordRepository.class);
+    final EntityManager em = getEntityManager();
+    final Long[] id = {null};
+
+    inTransaction(
+        () -> {
+          final Context ctx = $json.create("world");
+          ctx.put("name", "Renamed");
+          id[0] = $json.save(ctx).getId();
+          em.createQuery("UPDATE MetaJsonRecord self SET self.name = 'stale' WHERE self.id = :id")
+              .setParameter("id", id[0])
+              .executeUpdate();
+        });
+
+    em.getTransaction().begin();
+    try {
+      renamer.rename("world");
+    } finally {
+      em.getTransaction().rollback();
+    }
+
+    // the rolled back rename must not prevent the next one
+    renamer.rename("world");
+
+    String name = null;
+    for (int i = 0; i < 50 && !"Renamed".equals(name); i++) {
+      Thread.sleep(100);
+      em.clear();
+      name = em.find(MetaJsonRecord.class, id[0]).getName();
+    }
+    Assert.assertEquals("Renamed", name);
+  }
 }
@@ -21,6 +21,7 @@ import com.axelor.db.JPA;
 import com.axelor.db.JpaRepository;
 import com.axelor.test.db.Contact;
 import java.util.Map;
+import javax.validation.ValidationException;
 
 public class ContactRepository extends JpaRepository<Contact> {
 
@@ -39,4 +40,12 @@ public class ContactRepository extends JpaRepository<Contact> {
   public Contact manage(Contact contact) {
     return JPA.manage(contact);
   }
+
+  @Override
+  public Map<String, Object> validate(Map<String, Object> json, Map<String, Object> context) {
+    if ("invalid".equals(json.get("email"))) {
+      throw new ValidationException("Invalid email");
+    }
+    return json;
+  }
 }
@@ -0,0 +1,170 @@
+/*
+ * Axelor Business Solutions
+ *
+ * Copyright (C) 2005-2021 Axelor (<http://axelor.com>).
+ *
+ * This program is free software: you can redistribute it and/or  modify
+ * it under the terms of the GNU Affero General Public License, version 3,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.axelor.web.service;
+
+import com.axelor.app.internal.AppFilter;
+import com.axelor.auth.AuthUtils;
+import com.axelor.auth.db.User;
+import com.axelor.db.tenants.TenantResolver;
+import com.axelor.inject.Beans;
+import com.axelor.meta.MetaStore;
+import com.axelor.meta.loader.ViewIndex;
+import com.axelor.rpc.Response;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.ws.rs.core.CacheControl;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * Cache of serialized view and field metadata responses.
+ *
+ * <p>Responses are cached as json bytes with an entity tag, keyed by the request parameters, the
+ * tenant, the user, the locale and the generations of the view index and of the field metadata.
+ * Any change to views, models, fields, selections, translations or permissions starts new
+ * generations, so stale entries are never served and expire from the cache.
+ *
+ * <p>Views with conditional widgets are serialized against the request context, so responses to
+ * requests with a context are not cached for them.
+ */
+final class ViewResponseCache {
+
+  private static final long MAX_WEIGHT = 64L * 1024 * 1024;
+
+  private static final Cache<String, Entry> CACHE =
+      CacheBuilder.newBuilder()
+          .maximumWeight(MAX_WEIGHT)
+          .<String, Entry>weigher((key, entry) -> entry.json.length)
+          .expireAfterAccess(1, TimeUnit.HOURS)
+          .build();
+
+  private static final CacheControl CACHE_CONTROL = CacheControl.valueOf("private, no-cache");
+
+  private ViewResponseCache() {}
+
+  private static final class Entry {
+
+    private final byte[] json;
+    private final EntityTag tag;
+    private final boolean contextual;
+
+    private Entry(byte[] json, boolean contextual) {
+      this.json = json;
+      this.tag = new EntityTag(Hashing.murmur3_128().hashBytes(json).toString(), true);
+      this.contextual = contextual;
+    }
+  }
+
+  /**
+   * A computed response.
+   *
+   * <p>The response is contextual if its content depends on the request context.
+   */
+  static final class Result {
+
+    private final Response response;
+    private final boolean contextual;
+
+    Result(Response response, boolean contextual) {
+      this.response = response;
+      this.contextual = contextual;
+    }
+  }
+
+  private static String key(String... parts) {
+    final User user = AuthUtils.getUser();
+    return String.join("|", parts)
+        + "|"
+        + TenantResolver.currentTenantIdentifier()
+        + "|"
+        + (user == null ? null : user.getId())
+        + "|"
+        + AppFilter.getLocale()
+        + "|"
+        + ViewIndex.getGeneration()
+        + ":"
+        + MetaStore.getGeneration();
+  }
+
+  private static boolean matches(String ifNoneMatch, EntityTag tag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String value : ifNoneMatch.split(",")) {
+      value = value.trim();
+      if (value.startsWith("W/")) {
+        value = value.substring(2);
+      }
+      if ("*".equals(value) || ("\"" + tag.getValue() + "\"").equals(value)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static javax.ws.rs.core.Response build(Entry entry, String ifNoneMatch) {
+    if (matches(ifNoneMatch, entry.tag)) {
+      return javax.ws.rs.core.Response.notModified(entry.tag).cacheControl(CACHE_CONTROL).build();
+    }
+    return javax.ws.rs.core.Response.ok(entry.json, MediaType.APPLICATION_JSON_TYPE)
+        .tag(entry.tag)
+        .cacheControl(CACHE_CONTROL)
+        .build();
+  }
+
+  /**
+   * Get the serialized response of a request.
+   *
+   * @param ifNoneMatch the <code>If-None-Match</code> header of the request, if any
+   * @param withContext whether the request has a context to evaluate conditions against
+   * @param compute the function computing the response if not cached
+   * @param keyParts the request parameters
+   * @return the json response, or a not modified response if it matches the given tag
+   */
+  static javax.ws.rs.core.Response get(
+      String ifNoneMatch, boolean withContext, Supplier<Result> compute, String... keyParts) {
+    final String key = key(keyParts);
+    Entry entry = CACHE.getIfPresent(key);
+
+    if (entry != null && !(entry.contextual && withContext)) {
+      return build(entry, ifNoneMatch);
+    }
+
+    final Result result = compute.get();
+    try {
+      entry =
+          new Entry(
+              Beans.get(ObjectMapper.class).writeValueAsBytes(result.response), result.contextual);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+
+    // contextual responses are valid for requests without context only
+    if (result.response.getStatus() == Response.STATUS_SUCCESS
+        && !(result.contextual && withContext)) {
+      CACHE.put(key, entry);
+    }
+
+    return build(entry, ifNoneMatch);
+  }
+}
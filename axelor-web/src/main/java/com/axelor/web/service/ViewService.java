@@ -70,14 +70,17 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 
@@ -121,11 +124,28 @@ public class ViewService extends AbstractService {
     return response;
   }
 
+  /**
+   * Get the field metadata of a model, as cached json with an entity tag.
+   *
+   * <p>Responds with <code>304 Not Modified</code> if the given tag matches.
+   */
   @GET
   @Path("fields/{model}")
+  public javax.ws.rs.core.Response cachedFields(
+      @PathParam("model") String model,
+      @QueryParam("jsonModel") String jsonModel,
+      @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+    return ViewResponseCache.get(
+        ifNoneMatch,
+        false,
+        () -> new ViewResponseCache.Result(fields(model, jsonModel), false),
+        "fields",
+        model,
+        jsonModel);
+  }
+
   @SuppressWarnings("all")
-  public Response fields(
-      @PathParam("model") String model, @QueryParam("jsonModel") String jsonModel) {
+  public Response fields(String model, String jsonModel) {
     final Response response = new Response();
     final Map<String, Object> meta = Maps.newHashMap();
     final Class<?> modelClass = findClass(model);
@@ -268,13 +288,59 @@ public class ViewService extends AbstractService {
     return names;
   }
 
+  /**
+   * Get a view, as cached json with an entity tag.
+   *
+   * <p>Responds with <code>304 Not Modified</code> if the given tag matches.
+   */
   @GET
   @Path("view")
-  public Response view(
+  public javax.ws.rs.core.Response cachedView(
       @QueryParam("model") String model,
       @QueryParam("name") String name,
-      @QueryParam("type") String type) {
+      @QueryParam("type") String type,
+      @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+    return cachedView(model, name, type, ifNoneMatch, false);
+  }
 
+  /**
+   * Get a view for the given request, as cached json with an entity tag.
+   *
+   * <p>Responds with <code>304 Not Modified</code> if the given tag matches.
+   */
+  @POST
+  @Path("view")
+  public javax.ws.rs.core.Response cachedView(
+      Request request, @HeaderParam(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) {
+
+    final Map<String, Object> data = request.getData();
+    final String name = (String) data.get("name");
+    final String type = (String) data.get("type");
+
+    // conditional widgets are evaluated against the request
+    return cachedView(request.getModel(), name, type, ifNoneMatch, true);
+  }
+
+  private javax.ws.rs.core.Response cachedView(
+      String model, String name, String type, String ifNoneMatch, boolean withContext) {
+    final Supplier<ViewResponseCache.Result> compute =
+        () -> {
+          final Response response = view(model, name, type);
+          final Object view = ((Map<?, ?>) response.getData()).get("view");
+          final boolean contextual =
+              view instanceof AbstractView && XMLViews.hasConditions((AbstractView) view);
+          return new ViewResponseCache.Result(response, contextual);
+        };
+
+    // kanban columns are read from records
+    if ("kanban".equals(type)) {
+      return javax.ws.rs.core.Response.ok(view(model, name, type)).build();
+    }
+
+    return ViewResponseCache.get(ifNoneMatch, withContext, compute, "view", model, name, type);
+  }
+
+  public Response view(String model, String name, String type) {
     final Response response = service.findView(model, name, type);
     final AbstractView view = (AbstractView) response.getData();
 
@@ -317,8 +383,6 @@ public class ViewService extends AbstractService {
     return response;
   }
 
-  @POST
-  @Path("view")
   public Response view(Request request) {
 
     final Map<String, Object> data = request.getData();
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Map;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.HttpHeaders;
 import org.junit.Test;
 
 public class ResourceTest extends AbstractTest {
@@ -55,6 +56,20 @@ public class ResourceTest extends AbstractTest {
     assertEquals(((Map<?, ?>) response.getData()).get("model"), model);
   }
 
+  @Test
+  public void testFieldsNotModified() {
+
+    final javax.ws.rs.core.Response first = jsonPath("/meta/fields/" + model).get();
+    assertEquals(200, first.getStatus());
+    assertNotNull(first.getEntityTag());
+
+    final javax.ws.rs.core.Response second =
+        jsonPath("/meta/fields/" + model)
+            .header(HttpHeaders.IF_NONE_MATCH, first.getHeaderString(HttpHeaders.ETAG))
+            .get();
+    assertEquals(304, second.getStatus());
+  }
+
   @Test
   public void testSearch() {
 